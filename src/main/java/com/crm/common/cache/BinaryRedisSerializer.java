@@ -0,0 +1,235 @@
+package com.crm.common.cache;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONB;
+import com.alibaba.fastjson2.JSONWriter;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Redis 二进制序列化
+ * <p>
+ * 格式：魔数(1) + 版本(1) + 标记(1) + 类型 id(2) + 数据，数据为 JSONB 编码，字符串直接存 UTF-8，
+ * 超过阈值时使用 Deflate 压缩。未注册的类型仍按 JSON + 类名写入。
+ * 集合的类型 id 为集合自身（List、Set），数据为元素个数(4) + 每个元素的类型 id(2) + 长度(4) + 数据，
+ * 元素类型可以不同，null 元素长度为 -1。
+ * 读取时兼容旧的 JSON 格式，便于灰度发布。
+ *
+ * @author crm
+ */
+public class BinaryRedisSerializer implements RedisSerializer<Object> {
+    /**
+     * 魔数，UTF-8 编码的 JSON 文本不会以该字节开头
+     */
+    static final byte MAGIC = (byte) 0xBF;
+    static final byte VERSION = 1;
+    static final int HEADER_SIZE = 5;
+
+    private static final int FLAG_COMPRESSED = 1;
+    private static final int FLAG_COLLECTION = 1 << 1;
+
+    /**
+     * 是否写入二进制格式，关闭时只写旧的 JSON 格式，但仍可读取二进制格式
+     */
+    private final boolean binaryWrite;
+    /**
+     * 压缩阈值，单位：字节，小于等于 0 不压缩
+     */
+    private final int compressThreshold;
+
+    public BinaryRedisSerializer(boolean binaryWrite, int compressThreshold) {
+        this.binaryWrite = binaryWrite;
+        this.compressThreshold = compressThreshold;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) {
+            return new byte[0];
+        }
+        if (!binaryWrite) {
+            return toJson(value);
+        }
+        int flags = 0;
+        Short typeId;
+        byte[] data;
+        if (value instanceof Collection<?> collection) {
+            flags |= FLAG_COLLECTION;
+            typeId = RedisTypeRegistry.getId(value instanceof Set ? Set.class : List.class);
+            data = encodeElements(collection);
+        } else {
+            typeId = RedisTypeRegistry.getId(value.getClass());
+            data = typeId == null ? null : encode(value);
+        }
+        // 未注册的类型，或集合中有未注册类型的元素，按 JSON 写入
+        if (typeId == null || data == null) {
+            return toJson(value);
+        }
+        if (compressThreshold > 0 && data.length > compressThreshold) {
+            byte[] compressed = compress(data);
+            if (compressed.length < data.length) {
+                data = compressed;
+                flags |= FLAG_COMPRESSED;
+            }
+        }
+        byte[] bytes = new byte[HEADER_SIZE + data.length];
+        bytes[0] = MAGIC;
+        bytes[1] = VERSION;
+        bytes[2] = (byte) flags;
+        bytes[3] = (byte) (typeId >> 8);
+        bytes[4] = (byte) (short) typeId;
+        System.arraycopy(data, 0, bytes, HEADER_SIZE, data.length);
+        return bytes;
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        // 旧的 JSON 格式
+        if (bytes[0] != MAGIC) {
+            return JSON.to(Object.class, new String(bytes, StandardCharsets.UTF_8));
+        }
+        if (bytes.length < HEADER_SIZE || bytes[1] != VERSION) {
+            throw new SerializationException("不支持的 Redis 数据版本：" + (bytes.length > 1 ? bytes[1] : -1));
+        }
+        int flags = bytes[2];
+        short typeId = (short) (((bytes[3] & 0xff) << 8) | (bytes[4] & 0xff));
+        byte[] data = new byte[bytes.length - HEADER_SIZE];
+        System.arraycopy(bytes, HEADER_SIZE, data, 0, data.length);
+        if ((flags & FLAG_COMPRESSED) != 0) {
+            data = decompress(data);
+        }
+        Class<?> type = RedisTypeRegistry.getType(typeId);
+        if (type == null) {
+            throw new SerializationException("未注册的 Redis 类型 id：" + typeId);
+        }
+        if ((flags & FLAG_COLLECTION) != 0) {
+            return decodeElements(data, type);
+        }
+        return decode(data, type);
+    }
+
+    private static byte[] encode(Object value) {
+        return value instanceof String str ? str.getBytes(StandardCharsets.UTF_8) : JSONB.toBytes(value);
+    }
+
+    private static Object decode(byte[] data, Class<?> type) {
+        return type == String.class ? new String(data, StandardCharsets.UTF_8) : JSONB.parseObject(data, type);
+    }
+
+    /**
+     * 逐个元素写入类型 id 和数据，有未注册类型的元素时返回 null
+     */
+    private static byte[] encodeElements(Collection<?> collection) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeInt(collection.size());
+            for (Object element : collection) {
+                if (element == null) {
+                    out.writeShort(RedisTypeRegistry.UNKNOWN);
+                    out.writeInt(-1);
+                    continue;
+                }
+                Short typeId = RedisTypeRegistry.getId(element.getClass());
+                if (typeId == null) {
+                    return null;
+                }
+                byte[] data = encode(element);
+                out.writeShort(typeId);
+                out.writeInt(data.length);
+                out.write(data);
+            }
+        } catch (IOException e) {
+            throw new SerializationException("Redis 集合编码失败", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * 按集合类型还原，List 还原为 ArrayList，Set 还原为 LinkedHashSet
+     */
+    private static Collection<Object> decodeElements(byte[] data, Class<?> collectionType) {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        try {
+            int size = in.readInt();
+            Collection<Object> collection = collectionType == Set.class ? new LinkedHashSet<>() : new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                short typeId = in.readShort();
+                int length = in.readInt();
+                if (length < 0) {
+                    collection.add(null);
+                    continue;
+                }
+                Class<?> type = RedisTypeRegistry.getType(typeId);
+                if (type == null) {
+                    throw new SerializationException("未注册的 Redis 类型 id：" + typeId);
+                }
+                byte[] element = new byte[length];
+                in.readFully(element);
+                collection.add(decode(element, type));
+            }
+            return collection;
+        } catch (IOException e) {
+            throw new SerializationException("Redis 集合解码失败", e);
+        }
+    }
+
+    private static byte[] toJson(Object value) {
+        return JSON.toJSONString(value, JSONWriter.Feature.WriteClassName).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] compress(byte[] data) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 2);
+            byte[] buffer = new byte[4096];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] decompress(byte[] data) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length * 3);
+            byte[] buffer = new byte[4096];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(buffer);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new SerializationException("Redis 数据解压失败：数据不完整");
+                }
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new SerializationException("Redis 数据解压失败", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.crm.common.cache;
+
+import com.crm.utils.TransactionUtils;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 用户菜单树缓存，按（角色组合，菜单类型）缓存序列化后的 JSON
+ * <p>
+ * 菜单版本号保存在 Redis 中，菜单或角色菜单关系变化时递增并广播，各节点收到后丢弃旧版本的缓存。
+ *
+ * @author crm
+ */
+@Slf4j
+@Component
+public class MenuTreeCache implements MessageListener {
+    @Resource
+    private RedisCache redisCache;
+    @Resource
+    private RedisTemplate<String, Object> redisTemplate;
+    @Resource
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    private final Map<String, Entry> cache = new ConcurrentHashMap<>();
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private volatile long version;
+
+    @PostConstruct
+    public void init() {
+        Object value = redisCache.get(RedisKeys.getMenuVersionKey());
+        version = value == null ? 0 : Long.parseLong(String.valueOf(value));
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(RedisKeys.getMenuVersionChannel()));
+    }
+
+    /**
+     * 获取缓存的菜单 JSON，不存在或版本已过期时重新生成
+     */
+    public byte[] get(String key, Supplier<byte[]> loader) {
+        // 先读取版本号，加载期间版本变化时缓存会在下次访问时失效
+        long current = version;
+        Entry entry = cache.get(key);
+        if (entry != null && entry.version == current) {
+            hitCount.increment();
+            return entry.json;
+        }
+        missCount.increment();
+        byte[] json = loader.get();
+        cache.put(key, new Entry(current, json));
+        return json;
+    }
+
+    /**
+     * 递增菜单版本号，事务提交后执行
+     */
+    public void invalidate() {
+        TransactionUtils.afterCommit(() -> {
+            Long increased = redisCache.increment(RedisKeys.getMenuVersionKey());
+            // 其他节点收到的版本号与本节点一致，递增失败时同样广播本地递增后的版本号
+            long newVersion = increased == null ? version + 1 : increased;
+            updateVersion(newVersion);
+            redisCache.publish(RedisKeys.getMenuVersionChannel(), newVersion);
+        });
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        Object body = redisTemplate.getValueSerializer().deserialize(message.getBody());
+        if (body == null) {
+            log.warn("收到空的菜单版本消息");
+            return;
+        }
+        updateVersion(Long.parseLong(String.valueOf(body)));
+    }
+
+    /**
+     * 缓存统计信息
+     */
+    public Map<String, Object> stats() {
+        long hits = hitCount.sum();
+        long misses = missCount.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("version", version);
+        stats.put("size", cache.size());
+        stats.put("hitCount", hits);
+        stats.put("missCount", misses);
+        stats.put("hitRate", hits + misses == 0 ? 0 : (double) hits / (hits + misses));
+        return stats;
+    }
+
+    private synchronized void updateVersion(long newVersion) {
+        if (newVersion > version) {
+            version = newVersion;
+            cache.clear();
+        }
+    }
+
+    private record Entry(long version, byte[] json) {
+    }
+}
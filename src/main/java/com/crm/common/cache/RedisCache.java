@@ -3,13 +3,19 @@ package com.crm.common.cache;
 
 import jakarta.annotation.Resource;
 import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
 import org.springframework.stereotype.Component;
 
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 /**
  * @author crm
@@ -37,9 +43,11 @@ public class RedisCache {
     public final static long NOT_EXPIRE = -1L;
 
     public void set(String key, Object value, long expire) {
-        redisTemplate.opsForValue().set(key, value);
         if (expire != NOT_EXPIRE) {
-            expire(key, expire);
+            // SET EX，一次请求完成写入和过期时间设置
+            redisTemplate.opsForValue().set(key, value, expire, TimeUnit.SECONDS);
+        } else {
+            redisTemplate.opsForValue().set(key, value);
         }
     }
 
@@ -48,17 +56,62 @@ public class RedisCache {
     }
 
     public Object get(String key, long expire) {
-        Object value = redisTemplate.opsForValue().get(key);
         if (expire != NOT_EXPIRE) {
-            expire(key, expire);
+            // GETEX，读取的同时刷新过期时间
+            return redisTemplate.opsForValue().getAndExpire(key, Duration.ofSeconds(expire));
         }
-        return value;
+        return redisTemplate.opsForValue().get(key);
     }
 
     public Object get(String key) {
         return get(key, NOT_EXPIRE);
     }
 
+    /**
+     * 批量获取，返回结果与 keys 顺序一致，不存在的 key 对应 null
+     */
+    public List<Object> multiGet(Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Object> values = redisTemplate.opsForValue().multiGet(keys);
+        return values == null ? new ArrayList<>() : values;
+    }
+
+    /**
+     * 批量写入，设置过期时间时通过管道逐个 SET EX，只有一次网络往返
+     */
+    public void multiSet(Map<String, Object> map, long expire) {
+        if (map.isEmpty()) {
+            return;
+        }
+        if (expire == NOT_EXPIRE) {
+            redisTemplate.opsForValue().multiSet(map);
+            return;
+        }
+        pipeline(operations -> map.forEach((key, value) ->
+                operations.opsForValue().set(key, value, expire, TimeUnit.SECONDS)));
+    }
+
+    public void multiSet(Map<String, Object> map) {
+        multiSet(map, DEFAULT_EXPIRE);
+    }
+
+    /**
+     * 管道批量执行，所有命令一次发送
+     * 回调中的命令返回值均为 null，执行结果按命令顺序在返回值中获取
+     */
+    @SuppressWarnings("unchecked")
+    public List<Object> pipeline(Consumer<RedisOperations<String, Object>> action) {
+        return redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                action.accept((RedisOperations<String, Object>) operations);
+                return null;
+            }
+        });
+    }
+
     public Long increment(String key) {
         return redisTemplate.opsForValue().increment(key);
     }
@@ -89,11 +142,14 @@ public class RedisCache {
     }
 
     public void hMSet(String key, Map<String, Object> map, long expire) {
-        redisTemplate.opsForHash().putAll(key, map);
-
-        if (expire != NOT_EXPIRE) {
-            expire(key, expire);
+        if (expire == NOT_EXPIRE) {
+            redisTemplate.opsForHash().putAll(key, map);
+            return;
         }
+        pipeline(operations -> {
+            operations.opsForHash().putAll(key, map);
+            operations.expire(key, expire, TimeUnit.SECONDS);
+        });
     }
 
     public void hSet(String key, String field, Object value) {
@@ -101,17 +157,34 @@ public class RedisCache {
     }
 
     public void hSet(String key, String field, Object value, long expire) {
-        redisTemplate.opsForHash().put(key, field, value);
-
-        if (expire != NOT_EXPIRE) {
-            expire(key, expire);
+        if (expire == NOT_EXPIRE) {
+            redisTemplate.opsForHash().put(key, field, value);
+            return;
         }
+        pipeline(operations -> {
+            operations.opsForHash().put(key, field, value);
+            operations.expire(key, expire, TimeUnit.SECONDS);
+        });
     }
 
     public void expire(String key, long expire) {
         redisTemplate.expire(key, expire, TimeUnit.SECONDS);
     }
 
+    /**
+     * 获取剩余过期时长，单位：秒；-1 表示不过期，-2 表示 key 不存在
+     */
+    public Long getExpire(String key) {
+        return redisTemplate.getExpire(key, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 发布消息
+     */
+    public void publish(String channel, Object message) {
+        redisTemplate.convertAndSend(channel, message);
+    }
+
     public void hDel(String key, Object... fields) {
         redisTemplate.opsForHash().delete(key, fields);
     }
@@ -121,11 +194,14 @@ public class RedisCache {
     }
 
     public void leftPush(String key, Object value, long expire) {
-        redisTemplate.opsForList().leftPush(key, value);
-
-        if (expire != NOT_EXPIRE) {
-            expire(key, expire);
+        if (expire == NOT_EXPIRE) {
+            redisTemplate.opsForList().leftPush(key, value);
+            return;
         }
+        pipeline(operations -> {
+            operations.opsForList().leftPush(key, value);
+            operations.expire(key, expire, TimeUnit.SECONDS);
+        });
     }
 
     public Object rightPop(String key) {
@@ -23,4 +23,74 @@ public class RedisKeys {
         return "sys:manager:" + id;
     }
 
+    /**
+     * token 失效广播频道
+     */
+    public static String getTokenEvictChannel() {
+        return "sys:channel:token-evict";
+    }
+
+    /**
+     * 权限变化广播频道
+     */
+    public static String getPermissionChannel() {
+        return "sys:channel:permission";
+    }
+
+    /**
+     * 菜单版本号 Key
+     */
+    public static String getMenuVersionKey() {
+        return "sys:menu:version";
+    }
+
+    /**
+     * 菜单版本变化广播频道
+     */
+    public static String getMenuVersionChannel() {
+        return "sys:channel:menu-version";
+    }
+
+    /**
+     * 热点商品ID集合 Key，热点库存相关 Key 使用相同的 hash tag，保证集群模式下 Lua 脚本可以同时访问
+     */
+    public static String getHotStockIdsKey() {
+        return "product:stock:{hot-stock}:ids";
+    }
+
+    /**
+     * 热点商品库存计数器 Key
+     */
+    public static String getHotStockKey(Integer productId) {
+        return "product:stock:{hot-stock}:" + productId;
+    }
+
+    /**
+     * 热点商品待写回数据库的库存增量 Key
+     */
+    public static String getHotStockPendingKey() {
+        return "product:stock:{hot-stock}:pending";
+    }
+
+    /**
+     * 正在写回数据库的一批库存增量 Key，写回成功后删除
+     */
+    public static String getHotStockProcessingKey(String batchId) {
+        return "product:stock:{hot-stock}:processing:" + batchId;
+    }
+
+    /**
+     * 正在写回的批次 Key 集合，分值为取出时间，用于回收宕机节点遗留的批次
+     */
+    public static String getHotStockProcessingSetKey() {
+        return "product:stock:{hot-stock}:processing";
+    }
+
+    /**
+     * 号段序列 Key
+     */
+    public static String getSequenceKey(String name) {
+        return "sys:sequence:" + name;
+    }
+
 }
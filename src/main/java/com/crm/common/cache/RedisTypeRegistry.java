@@ -0,0 +1,59 @@
+package com.crm.common.cache;
+
+import com.crm.security.user.ManagerDetail;
+import com.crm.vo.SysMenuVO;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Redis 二进制序列化类型注册表
+ * 类型 id 写入缓存数据头部代替类名，已发布的 id 不能修改或复用，新类型只能追加
+ *
+ * @author crm
+ */
+public class RedisTypeRegistry {
+    /**
+     * 未注册类型，旧格式中元素类型未知的集合、新格式中的 null 元素使用
+     */
+    public static final short UNKNOWN = 0;
+
+    private static final Map<Short, Class<?>> ID_TO_TYPE = new HashMap<>();
+    private static final Map<Class<?>, Short> TYPE_TO_ID = new HashMap<>();
+
+    static {
+        register(1, String.class);
+        register(2, Integer.class);
+        register(3, Long.class);
+        register(4, Boolean.class);
+        register(5, Double.class);
+        // 集合自身的类型，元素类型逐个写入
+        register(8, List.class);
+        register(9, Set.class);
+        register(10, ManagerDetail.class);
+        register(11, SysMenuVO.class);
+    }
+
+    private static void register(int id, Class<?> type) {
+        if (ID_TO_TYPE.put((short) id, type) != null) {
+            throw new IllegalStateException("Redis 类型 id 重复：" + id);
+        }
+        TYPE_TO_ID.put(type, (short) id);
+    }
+
+    /**
+     * 获取类型 id，未注册返回 null
+     */
+    public static Short getId(Class<?> type) {
+        return TYPE_TO_ID.get(type);
+    }
+
+    /**
+     * 根据类型 id 获取类型，未注册返回 null
+     */
+    public static Class<?> getType(short id) {
+        return ID_TO_TYPE.get(id);
+    }
+}
@@ -2,7 +2,9 @@ package com.crm.common.config;
 
 import com.baomidou.mybatisplus.annotation.DbType;
 import com.baomidou.mybatisplus.extension.plugins.MybatisPlusInterceptor;
-import com.baomidou.mybatisplus.extension.plugins.inner.PaginationInnerInterceptor;
+import com.crm.common.page.CountCachingPaginationInterceptor;
+import com.crm.common.page.PageCountCache;
+import com.crm.common.page.PageCountInvalidationInterceptor;
 
 import org.mybatis.spring.annotation.MapperScan;
 import org.springframework.context.annotation.Bean;
@@ -22,11 +24,20 @@ public class MybatisPlusConfig {
      * 新的分页插件,一缓和二缓遵循mybatis的规则,需要设置 MybatisConfiguration#useDeprecatedExecutor = false 避免缓存出现问题(该属性会在旧插件移除后一同移除)
      */
     @Bean
-    public MybatisPlusInterceptor mybatisPlusInterceptor() {
+    public MybatisPlusInterceptor mybatisPlusInterceptor(PageCountCache pageCountCache) {
         MybatisPlusInterceptor interceptor = new MybatisPlusInterceptor();
-        interceptor.addInnerInterceptor(new PaginationInnerInterceptor(DbType.MYSQL)); // 如果配置多个插件, 切记分页最后添加
+        // 分页总数按查询签名缓存，写操作按表失效
+        interceptor.addInnerInterceptor(new CountCachingPaginationInterceptor(DbType.MYSQL, pageCountCache)); // 如果配置多个插件, 切记分页最后添加
         // 如果有多数据源可以不配具体类型, 否则都建议配上具体的 DbType
         return interceptor;
     }
 
+    /**
+     * 写语句执行后失效分页总数缓存，Interceptor 类型的 Bean 会由 MyBatis-Plus 自动注册
+     */
+    @Bean
+    public PageCountInvalidationInterceptor pageCountInvalidationInterceptor(PageCountCache pageCountCache) {
+        return new PageCountInvalidationInterceptor(pageCountCache);
+    }
+
 }
@@ -2,10 +2,13 @@ package com.crm.common.config;
 
 import com.alibaba.fastjson2.JSON;
 import com.alibaba.fastjson2.JSONWriter;
+import com.crm.common.cache.BinaryRedisSerializer;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.SerializationException;
 
@@ -20,13 +23,16 @@ import java.nio.charset.StandardCharsets;
 public class RedisConfig {
 
     @Bean
-    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory factory) {
+    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory factory,
+                                                       @Value("${redis.serializer.binary-write:true}") boolean binaryWrite,
+                                                       @Value("${redis.serializer.compress-threshold:1024}") int compressThreshold) {
         RedisTemplate<String, Object> template = new RedisTemplate<>();
         // Key HashKey使用String序列化
         template.setKeySerializer(RedisSerializer.string());
         template.setHashKeySerializer(RedisSerializer.string());
 
-        FastJsonRedisSerializer<Object> serializer = new FastJsonRedisSerializer<>(Object.class);
+        // Value 使用二进制序列化，兼容读取旧的 JSON 数据
+        BinaryRedisSerializer serializer = new BinaryRedisSerializer(binaryWrite, compressThreshold);
         template.setValueSerializer(serializer);
         template.setHashValueSerializer(serializer);
 
@@ -34,6 +40,16 @@ public class RedisConfig {
         return template;
     }
 
+    /**
+     * Redis 发布订阅监听容器
+     */
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory factory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(factory);
+        return container;
+    }
+
     static class FastJsonRedisSerializer<T> implements RedisSerializer<T> {
         public static final Charset DEFAULT_CHARSET = StandardCharsets.UTF_8;
         private Class<T> clazz;
@@ -0,0 +1,312 @@
+package com.crm.common.excel;
+
+import com.alibaba.excel.EasyExcel;
+import com.alibaba.excel.context.AnalysisContext;
+import com.alibaba.excel.exception.ExcelDataConvertException;
+import com.alibaba.excel.read.listener.ReadListener;
+import com.alibaba.excel.support.ExcelTypeEnum;
+import com.crm.common.exception.ServerException;
+import com.crm.common.export.ExportJob;
+import com.crm.common.export.ExportJobManager;
+import com.crm.utils.ExcelUtils;
+import com.crm.vo.ImportErrorVO;
+import jakarta.annotation.Resource;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Excel/CSV 导入
+ * 读取线程以 SAX 方式逐行读取，枚举列由各字段的 Converter 反向转换，文件内查重后按批交给工作线程；
+ * 工作线程并行完成注解校验、数据库查重和批量写入，同时处理的批数有上限，读取速度超过写入速度时读取线程等待
+ * 不能导入的行记录行号和原因，导入结束后写成错误报告
+ *
+ * @author crm
+ */
+@Slf4j
+@Component
+public class ExcelImporter {
+    @Resource
+    private Validator validator;
+    @Resource
+    private ExportJobManager exportJobManager;
+
+    /**
+     * 每批处理的行数
+     */
+    @Value("${excel-import.chunk-size:1000}")
+    private int chunkSize;
+
+    /**
+     * 每个导入任务同时处理的批数，每批占用一个数据库连接
+     */
+    @Value("${excel-import.parallelism:4}")
+    private int parallelism;
+
+    /**
+     * 根据文件扩展名确定文件类型
+     */
+    public static ExcelTypeEnum excelType(String fileName) {
+        String name = fileName == null ? "" : fileName.toLowerCase(Locale.ROOT);
+        if (name.endsWith(".xlsx")) {
+            return ExcelTypeEnum.XLSX;
+        }
+        if (name.endsWith(".xls")) {
+            return ExcelTypeEnum.XLS;
+        }
+        if (name.endsWith(".csv")) {
+            return ExcelTypeEnum.CSV;
+        }
+        throw new ServerException("仅支持导入 xlsx、xls、csv 文件");
+    }
+
+    /**
+     * 提交导入任务，上传的文件先保存为临时文件，任务结束后删除
+     * 任务的导出文件为错误报告，通过导出任务接口查询进度和下载
+     *
+     * @param file    上传的文件
+     * @param name    错误报告文件名
+     * @param clazz   导入数据的模板
+     * @param handler 业务逻辑，在导入线程中执行
+     * @return 任务ID
+     */
+    public <T> String submit(MultipartFile file, String name, Class<T> clazz, ImportHandler<T> handler) {
+        if (file == null || file.isEmpty()) {
+            throw new ServerException("请选择要导入的文件");
+        }
+        ExcelTypeEnum excelType = excelType(file.getOriginalFilename());
+        Path temp;
+        try {
+            temp = Files.createTempFile("crm-import-", excelType.getValue());
+            file.transferTo(temp);
+        } catch (IOException e) {
+            throw new ServerException("导入文件保存失败", e);
+        }
+        try {
+            return exportJobManager.submit(name, 0, (out, job) -> {
+                try {
+                    job.setMessage(importFile(temp, excelType, clazz, handler, job, out));
+                } finally {
+                    Files.deleteIfExists(temp);
+                }
+            });
+        } catch (RuntimeException e) {
+            deleteQuietly(temp);
+            throw e;
+        }
+    }
+
+    /**
+     * 导入文件，写出错误报告
+     *
+     * @param file      待导入的文件，第一行为表头
+     * @param excelType 文件类型
+     * @param clazz     导入数据的模板
+     * @param handler   业务逻辑
+     * @param job       导入任务，更新已读取行数
+     * @param errorOut  错误报告输出流
+     * @return 导入结果说明
+     */
+    public <T> String importFile(Path file, ExcelTypeEnum excelType, Class<T> clazz, ImportHandler<T> handler,
+                                 ExportJob job, OutputStream errorOut) throws Exception {
+        ImportContext<T> context = new ImportContext<>(handler, job);
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            context.workers = workers;
+            EasyExcel.read(file.toFile(), clazz, context).excelType(excelType).sheet().doRead();
+        }
+        if (context.failure.get() != null) {
+            throw context.failure.get();
+        }
+        List<ImportErrorVO> errors = new ArrayList<>(context.errors);
+        errors.sort(Comparator.comparing(ImportErrorVO::getRowNo));
+        ExcelUtils.writeExcel(errorOut, errors, "错误明细", ImportErrorVO.class);
+        long total = context.success.sum() + errors.size();
+        log.info("导入任务[{}]完成，共{}行，成功{}行，失败{}行", job.getId(), total, context.success.sum(), errors.size());
+        return String.format("共%d行，成功%d行，失败%d行", total, context.success.sum(), errors.size());
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("删除导入临时文件失败：{}", file, e);
+        }
+    }
+
+    private record ImportRow<T>(int rowNo, T data) {
+    }
+
+    /**
+     * 一次导入的状态，读取回调在读取线程中执行
+     */
+    private class ImportContext<T> implements ReadListener<T> {
+        private final ImportHandler<T> handler;
+        private final ExportJob job;
+        private final List<ImportHandler.UniqueKey<T>> uniqueKeys;
+        /**
+         * 文件内已出现的取值，不区分大小写，只在读取线程中访问，先出现的行有效
+         */
+        private final List<Set<String>> seen = new ArrayList<>();
+        private final Semaphore permits = new Semaphore(parallelism);
+        private final Queue<ImportErrorVO> errors = new ConcurrentLinkedQueue<>();
+        private final LongAdder success = new LongAdder();
+        private final AtomicReference<Exception> failure = new AtomicReference<>();
+        private ExecutorService workers;
+        private List<ImportRow<T>> chunk = new ArrayList<>(chunkSize);
+        private boolean totalSet;
+
+        ImportContext(ImportHandler<T> handler, ExportJob job) {
+            this.handler = handler;
+            this.job = job;
+            this.uniqueKeys = handler.uniqueKeys();
+            uniqueKeys.forEach(key -> seen.add(new HashSet<>()));
+        }
+
+        @Override
+        public void invoke(T data, AnalysisContext context) {
+            if (!totalSet) {
+                Integer approximate = context.readSheetHolder().getApproximateTotalRowNumber();
+                if (approximate != null && approximate > 1) {
+                    job.setTotal(approximate - 1);
+                }
+                totalSet = true;
+            }
+            job.getRows().incrementAndGet();
+            int rowNo = context.readRowHolder().getRowIndex() + 1;
+            for (int i = 0; i < uniqueKeys.size(); i++) {
+                ImportHandler.UniqueKey<T> key = uniqueKeys.get(i);
+                String value = key.getter().apply(data);
+                if (value != null && !value.isBlank() && !seen.get(i).add(value.trim().toLowerCase(Locale.ROOT))) {
+                    errors.add(new ImportErrorVO(rowNo, key.label() + "[" + value + "]在文件中重复"));
+                    return;
+                }
+            }
+            chunk.add(new ImportRow<>(rowNo, data));
+            if (chunk.size() >= chunkSize) {
+                submit();
+            }
+        }
+
+        @Override
+        public void onException(Exception exception, AnalysisContext context) throws Exception {
+            if (exception instanceof ExcelDataConvertException e) {
+                // 单元格格式错误只影响该行
+                job.getRows().incrementAndGet();
+                errors.add(new ImportErrorVO(e.getRowIndex() + 1, "第" + (e.getColumnIndex() + 1) + "列格式错误"));
+                return;
+            }
+            throw exception;
+        }
+
+        @Override
+        public void doAfterAllAnalysed(AnalysisContext context) {
+            if (!chunk.isEmpty()) {
+                submit();
+            }
+        }
+
+        @Override
+        public boolean hasNext(AnalysisContext context) {
+            // 工作线程出现无法恢复的错误时停止读取
+            return failure.get() == null;
+        }
+
+        private void submit() {
+            List<ImportRow<T>> rows = chunk;
+            chunk = new ArrayList<>(chunkSize);
+            permits.acquireUninterruptibly();
+            workers.execute(() -> {
+                try {
+                    process(rows);
+                } catch (Exception e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    permits.release();
+                }
+            });
+        }
+
+        /**
+         * 校验、数据库查重后批量写入
+         */
+        private void process(List<ImportRow<T>> rows) {
+            List<ImportRow<T>> valid = new ArrayList<>(rows.size());
+            for (ImportRow<T> row : rows) {
+                Set<ConstraintViolation<T>> violations = validator.validate(row.data());
+                if (violations.isEmpty()) {
+                    valid.add(row);
+                } else {
+                    errors.add(new ImportErrorVO(row.rowNo(), violations.stream()
+                            .map(ConstraintViolation::getMessage)
+                            .sorted()
+                            .collect(Collectors.joining("；"))));
+                }
+            }
+            for (ImportHandler.UniqueKey<T> key : uniqueKeys) {
+                valid = excludeExisting(valid, key);
+            }
+            if (valid.isEmpty()) {
+                return;
+            }
+            try {
+                handler.insert(valid.stream().map(ImportRow::data).toList());
+                success.add(valid.size());
+            } catch (Exception e) {
+                log.error("导入任务[{}]第{}行起的一批数据写入失败", job.getId(), valid.get(0).rowNo(), e);
+                String message = e instanceof ServerException ? e.getMessage() : "写入失败，请检查数据长度和格式";
+                valid.forEach(row -> errors.add(new ImportErrorVO(row.rowNo(), message)));
+            }
+        }
+
+        private List<ImportRow<T>> excludeExisting(List<ImportRow<T>> rows, ImportHandler.UniqueKey<T> key) {
+            // 数据库默认排序规则不区分大小写，返回的取值按不区分大小写匹配
+            Map<String, List<ImportRow<T>>> byValue = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            for (ImportRow<T> row : rows) {
+                String value = key.getter().apply(row.data());
+                if (value != null && !value.isBlank()) {
+                    byValue.computeIfAbsent(value.trim(), k -> new ArrayList<>()).add(row);
+                }
+            }
+            if (byValue.isEmpty()) {
+                return rows;
+            }
+            Collection<String> existing = key.existing().apply(byValue.keySet());
+            if (existing.isEmpty()) {
+                return rows;
+            }
+            Set<ImportRow<T>> duplicated = new HashSet<>();
+            for (String value : existing) {
+                for (ImportRow<T> row : byValue.getOrDefault(value, List.of())) {
+                    errors.add(new ImportErrorVO(row.rowNo(), key.label() + "[" + value + "]已存在"));
+                    duplicated.add(row);
+                }
+            }
+            return rows.stream().filter(row -> !duplicated.contains(row)).toList();
+        }
+    }
+}
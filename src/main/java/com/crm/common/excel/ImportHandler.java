@@ -0,0 +1,33 @@
+package com.crm.common.excel;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 导入的业务逻辑，校验通过、未重复的数据按批交给 {@link #insert(List)} 写入
+ *
+ * @author crm
+ */
+public interface ImportHandler<T> {
+    /**
+     * 需要查重的字段，文件内和数据库中都不能重复
+     */
+    List<UniqueKey<T>> uniqueKeys();
+
+    /**
+     * 批量写入，一批数据一条 INSERT
+     */
+    void insert(List<T> rows);
+
+    /**
+     * 查重字段
+     *
+     * @param label    字段名称，用于错误提示
+     * @param getter   取值，为空时不查重，由非空校验处理
+     * @param existing 按一批取值查询数据库中已存在的取值
+     */
+    record UniqueKey<T>(String label, Function<T, String> getter,
+                        Function<Collection<String>, Collection<String>> existing) {
+    }
+}
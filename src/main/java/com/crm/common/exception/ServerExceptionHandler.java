@@ -2,6 +2,7 @@ package com.crm.common.exception;
 
 import com.crm.common.result.Result;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.validation.BindException;
 import org.springframework.validation.FieldError;
@@ -34,6 +35,15 @@ public class ServerExceptionHandler {
         return Result.error(fieldError.getDefaultMessage());
     }
 
+    /**
+     * 唯一索引冲突，通常是并发提交了相同的数据
+     */
+    @ExceptionHandler(DuplicateKeyException.class)
+    public Result<String> handleDuplicateKeyException(DuplicateKeyException ex) {
+        log.warn("唯一索引冲突：{}", ex.getMessage());
+        return Result.error("数据已存在，请勿重复提交");
+    }
+
     @ExceptionHandler(AccessDeniedException.class)
     public Result<String> handleAccessDeniedException(Exception ex) {
 
@@ -0,0 +1,121 @@
+package com.crm.common.export;
+
+import com.crm.enums.ExportJobStatusEnum;
+import com.crm.vo.ExportJobVO;
+import lombok.Getter;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 导出任务，保存在提交任务的节点内存中，导出文件也只在该节点上
+ * 导入任务同样以导出任务执行，导出文件为错误报告
+ *
+ * @author crm
+ */
+@Getter
+public class ExportJob {
+    private final String id;
+    private final Integer userId;
+    /**
+     * 导出文件名，不含扩展名
+     */
+    private final String name;
+    /**
+     * 预计总行数，提交时统计，导出过程中数据变化时与实际行数可能不一致
+     */
+    private volatile long total;
+    private final Path file;
+    private final LocalDateTime createTime = LocalDateTime.now();
+    private final AtomicLong rows = new AtomicLong();
+
+    private volatile ExportJobStatusEnum status = ExportJobStatusEnum.WAITING;
+    private volatile String message;
+    private volatile LocalDateTime finishTime;
+
+    ExportJob(String id, Integer userId, String name, long total, Path file) {
+        this.id = id;
+        this.userId = userId;
+        this.name = name;
+        this.total = total;
+        this.file = file;
+    }
+
+    /**
+     * 包装导出数据，每遍历一行累加一次进度
+     */
+    public <T> Iterable<T> track(Iterable<T> data) {
+        return () -> {
+            Iterator<T> iterator = data.iterator();
+            return new Iterator<>() {
+                @Override
+                public boolean hasNext() {
+                    return iterator.hasNext();
+                }
+
+                @Override
+                public T next() {
+                    T next = iterator.next();
+                    rows.incrementAndGet();
+                    return next;
+                }
+            };
+        };
+    }
+
+    /**
+     * 提交时无法统计总行数的任务，在执行过程中设置
+     */
+    public void setTotal(long total) {
+        this.total = total;
+    }
+
+    /**
+     * 任务结果说明，失败时为失败原因
+     */
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    void running() {
+        status = ExportJobStatusEnum.RUNNING;
+    }
+
+    void success() {
+        finishTime = LocalDateTime.now();
+        status = ExportJobStatusEnum.SUCCESS;
+    }
+
+    void failed(String message) {
+        this.message = message;
+        finishTime = LocalDateTime.now();
+        status = ExportJobStatusEnum.FAILED;
+    }
+
+    boolean isFinished() {
+        return finishTime != null;
+    }
+
+    public ExportJobVO toVO() {
+        ExportJobVO vo = new ExportJobVO();
+        vo.setId(id);
+        vo.setName(name);
+        vo.setStatus(status.getValue());
+        vo.setStatusName(status.getName());
+        long written = rows.get();
+        vo.setRows(written);
+        vo.setTotal(total);
+        if (status == ExportJobStatusEnum.SUCCESS) {
+            vo.setPercent(100);
+        } else {
+            // 未完成时最多显示 99%，实际行数可能超过统计的总数
+            vo.setPercent(total <= 0 ? 0 : (int) Math.min(99, written * 100 / total));
+        }
+        vo.setMessage(message);
+        vo.setCreateTime(createTime);
+        vo.setFinishTime(finishTime);
+        return vo;
+    }
+}
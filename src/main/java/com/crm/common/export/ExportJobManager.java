@@ -0,0 +1,263 @@
+package com.crm.common.export;
+
+import com.crm.common.exception.ErrorCode;
+import com.crm.common.exception.ServerException;
+import com.crm.enums.ExportJobStatusEnum;
+import com.crm.security.user.SecurityUser;
+import com.crm.utils.ExcelUtils;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 异步导出任务
+ * 提交后立即返回任务ID，任务在有界线程池中执行，文件写入本地目录，前端轮询进度后下载；
+ * 每个用户同时排队和执行的任务数有上限，完成的任务超过保留时间后连同文件一起清理
+ * 任务和文件只在提交任务的节点上，多节点部署时进度查询和下载需路由到同一节点，服务重启后未下载的任务失效
+ *
+ * @author crm
+ */
+@Slf4j
+@Component
+public class ExportJobManager {
+    private static final String FILE_SUFFIX = ".xlsx";
+    private static final String PART_SUFFIX = ".part";
+    private static final int MAX_MESSAGE_LENGTH = 200;
+
+    /**
+     * 导出文件目录
+     */
+    @Value("${export-job.dir:${java.io.tmpdir}/crm-export}")
+    private String dir;
+
+    /**
+     * 导出线程数，即同时执行的最大任务数
+     */
+    @Value("${export-job.threads:2}")
+    private int threads;
+
+    /**
+     * 排队任务数上限，超过后拒绝提交
+     */
+    @Value("${export-job.queue-capacity:20}")
+    private int queueCapacity;
+
+    /**
+     * 每个用户同时排队和执行的最大任务数
+     */
+    @Value("${export-job.per-user:2}")
+    private int perUser;
+
+    /**
+     * 完成后的保留时间，单位：秒，超过后删除任务和文件
+     */
+    @Value("${export-job.retention:3600}")
+    private long retention;
+
+    private Path directory;
+    private ThreadPoolExecutor executor;
+
+    private final Map<String, ExportJob> jobs = new ConcurrentHashMap<>();
+    private final Map<Integer, AtomicInteger> activeByUser = new ConcurrentHashMap<>();
+
+    private final LongAdder submittedCount = new LongAdder();
+    private final LongAdder successCount = new LongAdder();
+    private final LongAdder failedCount = new LongAdder();
+    private final LongAdder rejectedCount = new LongAdder();
+    private final LongAdder downloadCount = new LongAdder();
+    private final LongAdder sendfileCount = new LongAdder();
+
+    @PostConstruct
+    public void start() throws IOException {
+        directory = Paths.get(dir).toAbsolutePath();
+        Files.createDirectories(directory);
+        // 重启前的任务已丢失，残留文件无法再下载
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*{" + FILE_SUFFIX + "," + PART_SUFFIX + "}")) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        }
+        AtomicInteger threadNo = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread thread = new Thread(r, "export-job-" + threadNo.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        log.info("导出任务目录：{}", directory);
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 提交导出任务
+     *
+     * @param name  导出文件名，不含扩展名
+     * @param total 预计总行数，用于计算进度
+     * @param task  写入逻辑
+     * @return 任务ID
+     */
+    public String submit(String name, long total, ExportTask task) {
+        Integer userId = SecurityUser.getManagerId();
+        if (userId == null) {
+            throw new ServerException(ErrorCode.UNAUTHORIZED);
+        }
+        AtomicInteger active = activeByUser.computeIfAbsent(userId, k -> new AtomicInteger());
+        if (active.incrementAndGet() > perUser) {
+            active.decrementAndGet();
+            rejectedCount.increment();
+            throw new ServerException("同时最多进行" + perUser + "个导出任务，请等待已提交的任务完成");
+        }
+        String id = UUID.randomUUID().toString().replace("-", "");
+        ExportJob job = new ExportJob(id, userId, name, total, directory.resolve(id + FILE_SUFFIX));
+        jobs.put(id, job);
+        try {
+            executor.execute(() -> run(job, task));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(id);
+            active.decrementAndGet();
+            rejectedCount.increment();
+            throw new ServerException("导出任务较多，请稍后再试");
+        }
+        submittedCount.increment();
+        log.info("提交导出任务[{}]：{}，预计{}行", id, name, total);
+        return id;
+    }
+
+    /**
+     * 查询当前用户的导出任务
+     */
+    public ExportJob get(String jobId) {
+        ExportJob job = jobs.get(jobId);
+        if (job == null || !job.getUserId().equals(SecurityUser.getManagerId())) {
+            throw new ServerException("导出任务不存在或已过期");
+        }
+        return job;
+    }
+
+    /**
+     * 下载导出文件
+     * Tomcat 支持 sendfile 时由容器直接把文件写入 socket，否则用 FileChannel.transferTo 写入响应
+     */
+    public void download(String jobId, HttpServletRequest request, HttpServletResponse response) throws Exception {
+        ExportJob job = get(jobId);
+        if (job.getStatus() != ExportJobStatusEnum.SUCCESS) {
+            throw new ServerException("导出任务" + job.getStatus().getName() + "，暂不能下载");
+        }
+        Path file = job.getFile();
+        long size = Files.size(file);
+        ExcelUtils.setDownloadHeader(job.getName(), response);
+        response.setContentLengthLong(size);
+        downloadCount.increment();
+        if (Boolean.TRUE.equals(request.getAttribute("org.apache.tomcat.sendfile.support"))) {
+            request.setAttribute("org.apache.tomcat.sendfile.filename", file.toString());
+            request.setAttribute("org.apache.tomcat.sendfile.start", 0L);
+            request.setAttribute("org.apache.tomcat.sendfile.end", size);
+            sendfileCount.increment();
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(response.getOutputStream());
+            long position = 0;
+            while (position < size) {
+                position += channel.transferTo(position, size - position, target);
+            }
+        }
+    }
+
+    /**
+     * 清理超过保留时间的任务和文件
+     */
+    @Scheduled(fixedDelayString = "${export-job.cleanup-interval:300000}")
+    public void cleanup() {
+        LocalDateTime expireTime = LocalDateTime.now().minusSeconds(retention);
+        jobs.values().removeIf(job -> {
+            if (!job.isFinished() || job.getFinishTime().isAfter(expireTime)) {
+                return false;
+            }
+            try {
+                Files.deleteIfExists(job.getFile());
+            } catch (IOException e) {
+                log.warn("删除导出文件失败：{}", job.getFile(), e);
+            }
+            return true;
+        });
+    }
+
+    /**
+     * 导出任务统计信息
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("dir", directory.toString());
+        stats.put("running", executor.getActiveCount());
+        stats.put("queued", executor.getQueue().size());
+        stats.put("jobs", jobs.size());
+        stats.put("submittedCount", submittedCount.sum());
+        stats.put("successCount", successCount.sum());
+        stats.put("failedCount", failedCount.sum());
+        stats.put("rejectedCount", rejectedCount.sum());
+        stats.put("downloadCount", downloadCount.sum());
+        stats.put("sendfileCount", sendfileCount.sum());
+        return stats;
+    }
+
+    private void run(ExportJob job, ExportTask task) {
+        Path part = job.getFile().resolveSibling(job.getId() + PART_SUFFIX);
+        try {
+            job.running();
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(part))) {
+                task.write(out, job);
+            }
+            Files.move(part, job.getFile(), StandardCopyOption.ATOMIC_MOVE);
+            job.success();
+            successCount.increment();
+            log.info("导出任务[{}]完成，共{}行", job.getId(), job.getRows().get());
+        } catch (Exception e) {
+            String message = e instanceof ServerException ? e.getMessage() : "导出失败，请稍后重试";
+            job.failed(message.length() > MAX_MESSAGE_LENGTH ? message.substring(0, MAX_MESSAGE_LENGTH) : message);
+            failedCount.increment();
+            log.error("导出任务[{}]失败", job.getId(), e);
+            try {
+                Files.deleteIfExists(part);
+            } catch (IOException ex) {
+                log.warn("删除导出临时文件失败：{}", part, ex);
+            }
+        } finally {
+            activeByUser.get(job.getUserId()).decrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.crm.common.export;
+
+import java.io.OutputStream;
+
+/**
+ * 导出任务的写入逻辑，在导出线程中执行
+ *
+ * @author crm
+ */
+@FunctionalInterface
+public interface ExportTask {
+    /**
+     * 写入导出文件，写入的数据通过 {@link ExportJob#track(Iterable)} 包装以更新进度
+     *
+     * @param out 文件输出流，不需要关闭
+     * @param job 当前任务
+     */
+    void write(OutputStream out, ExportJob job) throws Exception;
+}
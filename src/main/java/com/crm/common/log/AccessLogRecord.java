@@ -0,0 +1,26 @@
+package com.crm.common.log;
+
+/**
+ * 访问日志记录
+ *
+ * @param method        请求方式
+ * @param uri           请求地址
+ * @param ip            客户端 IP
+ * @param status        响应状态码
+ * @param latencyMicros 耗时，单位：微秒
+ * @param managerId     登录管理员 id，未登录为 null
+ * @param requestBytes  请求体字节数，未知为 -1
+ * @param responseBytes 响应体字节数
+ * @param body          截断后的请求体
+ * @author crm
+ */
+public record AccessLogRecord(String method, String uri, String ip, int status, long latencyMicros,
+                              Integer managerId, long requestBytes, long responseBytes, String body) {
+
+    @Override
+    public String toString() {
+        return method + " " + uri + " " + status + " " + latencyMicros / 1000.0 + "ms ip=" + ip
+                + " manager=" + managerId + " in=" + requestBytes + " out=" + responseBytes
+                + (body == null || body.isEmpty() ? "" : " body=" + body);
+    }
+}
@@ -0,0 +1,232 @@
+package com.crm.common.log;
+
+import com.crm.security.config.RequestLogProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 异步访问日志
+ * 请求线程只负责把记录放入环形队列，由后台线程批量写入日志，队列满时丢弃并计数
+ *
+ * @author crm
+ */
+@Slf4j
+@Component
+public class AccessLogWriter {
+    private static final Logger ACCESS_LOG = LoggerFactory.getLogger("ACCESS_LOG");
+    /**
+     * 采样率、请求体上限按地址缓存的最大条数
+     */
+    private static final int RULE_CACHE_SIZE = 4096;
+
+    private final RequestLogProperties properties;
+    private final AccessLogRingBuffer<AccessLogRecord> buffer;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final Map<String, Double> sampleRateCache = new ConcurrentHashMap<>();
+    private final Map<String, Integer> bodySizeCache = new ConcurrentHashMap<>();
+
+    private final LongAdder acceptedCount = new LongAdder();
+    private final LongAdder droppedCount = new LongAdder();
+    private final LongAdder sampledOutCount = new LongAdder();
+
+    /**
+     * 按接口路由统计的耗时，由请求线程写入，输出汇总时整体替换
+     */
+    private volatile Map<String, LatencyStat> latencyStats = new ConcurrentHashMap<>();
+    private volatile Map<String, Map<String, Object>> lastSummary = new LinkedHashMap<>();
+    private volatile boolean running;
+    private Thread writerThread;
+
+    public AccessLogWriter(RequestLogProperties properties) {
+        this.properties = properties;
+        this.buffer = new AccessLogRingBuffer<>(properties.getBufferSize());
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        writerThread = new Thread(this::writeLoop, "access-log-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(writerThread);
+        writerThread.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    /**
+     * 是否记录该请求
+     */
+    public boolean isSampled(String uri) {
+        double rate = sampleRateCache.containsKey(uri) ? sampleRateCache.get(uri) : matchSampleRate(uri);
+        if (rate >= 1 || ThreadLocalRandom.current().nextDouble() < rate) {
+            return true;
+        }
+        sampledOutCount.increment();
+        return false;
+    }
+
+    /**
+     * 该地址日志中请求体最多打印的字节数
+     */
+    public int getBodySize(String uri) {
+        Integer size = bodySizeCache.get(uri);
+        return size != null ? size : matchBodySize(uri);
+    }
+
+    /**
+     * 记录请求耗时，所有请求都参与统计，不受采样影响
+     *
+     * @param route         请求方式 + 匹配到的接口路由，路由数量有限，避免按原始地址统计时 key 无限增长
+     * @param latencyMicros 耗时，单位：微秒
+     */
+    public void recordLatency(String route, long latencyMicros) {
+        latencyStats.computeIfAbsent(route, k -> new LatencyStat()).add(latencyMicros);
+    }
+
+    /**
+     * 放入队列，队列满时直接丢弃
+     */
+    public void append(AccessLogRecord record) {
+        if (buffer.offer(record)) {
+            acceptedCount.increment();
+        } else {
+            droppedCount.increment();
+        }
+    }
+
+    /**
+     * 统计信息
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("capacity", buffer.capacity());
+        stats.put("pending", buffer.size());
+        stats.put("acceptedCount", acceptedCount.sum());
+        stats.put("droppedCount", droppedCount.sum());
+        stats.put("sampledOutCount", sampledOutCount.sum());
+        stats.put("latencySummary", lastSummary);
+        return stats;
+    }
+
+    private void writeLoop() {
+        int batchSize = properties.getBatchSize();
+        long summaryInterval = TimeUnit.SECONDS.toNanos(properties.getSummaryInterval());
+        long nextSummary = System.nanoTime() + summaryInterval;
+        StringBuilder sb = new StringBuilder();
+        while (running || buffer.size() > 0) {
+            int count = 0;
+            AccessLogRecord record;
+            while (count < batchSize && (record = buffer.poll()) != null) {
+                if (count > 0) {
+                    sb.append('\n');
+                }
+                sb.append(record);
+                count++;
+            }
+            if (count > 0) {
+                try {
+                    ACCESS_LOG.info(sb.toString());
+                } catch (Exception e) {
+                    log.error("access log write exception", e);
+                }
+                sb.setLength(0);
+            }
+            if (System.nanoTime() - nextSummary >= 0) {
+                writeSummary();
+                nextSummary = System.nanoTime() + summaryInterval;
+            }
+            if (count < batchSize) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(properties.getFlushInterval()));
+            }
+        }
+    }
+
+    /**
+     * 输出并重置按接口路由统计的耗时
+     */
+    private void writeSummary() {
+        if (latencyStats.isEmpty()) {
+            return;
+        }
+        Map<String, LatencyStat> stats = latencyStats;
+        latencyStats = new ConcurrentHashMap<>();
+        Map<String, Map<String, Object>> summary = new LinkedHashMap<>();
+        List<Map.Entry<String, LatencyStat>> entries = new ArrayList<>(stats.entrySet());
+        entries.sort((a, b) -> Long.compare(b.getValue().total.sum(), a.getValue().total.sum()));
+        StringBuilder sb = new StringBuilder("access latency summary:");
+        for (Map.Entry<String, LatencyStat> entry : entries) {
+            LatencyStat stat = entry.getValue();
+            long count = stat.count.sum();
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("count", count);
+            item.put("avgMs", count == 0 ? 0 : stat.total.sum() / count / 1000.0);
+            item.put("maxMs", stat.max.get() / 1000.0);
+            summary.put(entry.getKey(), item);
+            sb.append('\n').append(entry.getKey()).append(' ').append(item);
+        }
+        ACCESS_LOG.info(sb.toString());
+        lastSummary = summary;
+    }
+
+    private double matchSampleRate(String uri) {
+        double rate = properties.getSampleRate();
+        for (String rule : properties.getSampleRates()) {
+            int index = rule.lastIndexOf('=');
+            if (index > 0 && pathMatcher.match(rule.substring(0, index).trim(), uri)) {
+                rate = Double.parseDouble(rule.substring(index + 1).trim());
+                break;
+            }
+        }
+        if (sampleRateCache.size() < RULE_CACHE_SIZE) {
+            sampleRateCache.put(uri, rate);
+        }
+        return rate;
+    }
+
+    private int matchBodySize(String uri) {
+        int size = properties.getLogBodySize();
+        for (String rule : properties.getBodySizes()) {
+            int index = rule.lastIndexOf('=');
+            if (index > 0 && pathMatcher.match(rule.substring(0, index).trim(), uri)) {
+                size = Integer.parseInt(rule.substring(index + 1).trim());
+                break;
+            }
+        }
+        if (bodySizeCache.size() < RULE_CACHE_SIZE) {
+            bodySizeCache.put(uri, size);
+        }
+        return size;
+    }
+
+    private static class LatencyStat {
+        final LongAdder count = new LongAdder();
+        final LongAdder total = new LongAdder();
+        final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+        void add(long latency) {
+            count.increment();
+            total.add(latency);
+            max.accumulate(latency);
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package com.crm.common.mail;
+
+import com.crm.entity.MailOutbox;
+import com.crm.enums.MailOutboxStatusEnum;
+import com.crm.mapper.MailOutboxMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.internet.AddressException;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 发件箱投递
+ * 调度线程按批领取到期的邮件，每封邮件交给一个虚拟线程发送，实际并发由 SMTP 连接池限制；
+ * 失败后按指数退避重试，超过最大次数或收件人无效时转为死信
+ * 领取时设置租约，节点宕机后未完成的邮件在租约到期后由其他节点重新领取，因此投递语义为至少一次，
+ * 重复投递使用相同的 Message-ID
+ *
+ * @author crm
+ */
+@Slf4j
+@Component
+public class MailDeliveryWorker {
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    @Resource
+    private MailOutboxMapper mailOutboxMapper;
+    @Resource
+    private SmtpConnectionPool smtpConnectionPool;
+
+    /**
+     * 是否启动投递
+     */
+    @Value("${mail-outbox.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 同时处理中的最大邮件数，也是每次领取的最大条数
+     */
+    @Value("${mail-outbox.batch-size:50}")
+    private int batchSize;
+
+    /**
+     * 没有到期邮件时的轮询间隔，单位：毫秒，新邮件提交后会立即唤醒
+     */
+    @Value("${mail-outbox.poll-interval:5000}")
+    private long pollInterval;
+
+    /**
+     * 最大尝试次数，超过后转为死信
+     */
+    @Value("${mail-outbox.max-attempts:6}")
+    private int maxAttempts;
+
+    /**
+     * 首次重试间隔，单位：秒，之后每次翻倍
+     */
+    @Value("${mail-outbox.backoff-base:30}")
+    private long backoffBase;
+
+    /**
+     * 最大重试间隔，单位：秒
+     */
+    @Value("${mail-outbox.backoff-max:3600}")
+    private long backoffMax;
+
+    /**
+     * 领取租约，单位：秒，需大于一批邮件的发送时间
+     */
+    @Value("${mail-outbox.lease:300}")
+    private int lease;
+
+    private Semaphore inFlight;
+    private ExecutorService executor;
+    private Thread dispatcherThread;
+    private volatile boolean running;
+
+    private final LongAdder sentCount = new LongAdder();
+    private final LongAdder retryCount = new LongAdder();
+    private final LongAdder deadCount = new LongAdder();
+    private final LongAdder lostClaimCount = new LongAdder();
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            log.info("发件箱投递未启用");
+            return;
+        }
+        inFlight = new Semaphore(batchSize);
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        running = true;
+        dispatcherThread = Thread.ofVirtual().name("mail-outbox-dispatcher").start(this::dispatchLoop);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (!running) {
+            return;
+        }
+        running = false;
+        // 调度线程可能阻塞在 inFlight.acquire()，补足空位将其唤醒；不使用中断，避免中断正在执行的数据库操作
+        inFlight.release(batchSize);
+        LockSupport.unpark(dispatcherThread);
+        dispatcherThread.join(TimeUnit.SECONDS.toMillis(5));
+        executor.shutdown();
+        // 未完成的邮件在租约到期后重新投递
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 有新邮件提交，立即唤醒调度线程
+     */
+    public void wakeUp() {
+        if (running) {
+            LockSupport.unpark(dispatcherThread);
+        }
+    }
+
+    /**
+     * 投递统计信息
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", running);
+        stats.put("inFlight", inFlight == null ? 0 : batchSize - inFlight.availablePermits());
+        stats.put("sentCount", sentCount.sum());
+        stats.put("retryCount", retryCount.sum());
+        stats.put("deadCount", deadCount.sum());
+        stats.put("lostClaimCount", lostClaimCount.sum());
+        Map<String, Object> outbox = new LinkedHashMap<>();
+        for (Map<String, Object> row : mailOutboxMapper.countByStatus()) {
+            int status = ((Number) row.get("status")).intValue();
+            outbox.put(MailOutboxStatusEnum.getNameByValue(status), row.get("count"));
+        }
+        stats.put("outbox", outbox);
+        stats.put("connectionPool", smtpConnectionPool.stats());
+        return stats;
+    }
+
+    private void dispatchLoop() {
+        while (running) {
+            int claimed = 0;
+            try {
+                // 至少有一个空位时才领取，领取数量不超过空位数
+                inFlight.acquire();
+                if (!running) {
+                    return;
+                }
+                int limit = 1 + inFlight.drainPermits();
+                claimed = dispatch(limit);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("发件箱领取邮件失败", e);
+            }
+            if (claimed == 0) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(pollInterval));
+            }
+        }
+    }
+
+    /**
+     * 领取并提交发送，未用到的空位归还
+     *
+     * @return 领取的条数
+     */
+    private int dispatch(int limit) {
+        List<MailOutbox> claimed = List.of();
+        try {
+            String claimToken = UUID.randomUUID().toString();
+            if (mailOutboxMapper.claim(claimToken, limit, lease) > 0) {
+                claimed = mailOutboxMapper.selectClaimed(claimToken);
+            }
+            for (MailOutbox outbox : claimed) {
+                executor.execute(() -> {
+                    try {
+                        deliver(outbox);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+            return claimed.size();
+        } finally {
+            inFlight.release(limit - claimed.size());
+        }
+    }
+
+    private void deliver(MailOutbox outbox) {
+        try {
+            MimeMessage message = smtpConnectionPool.createMessage(messageId(outbox.getBizKey()));
+            message.setRecipients(MimeMessage.RecipientType.TO, InternetAddress.parse(outbox.getToAddress(), true));
+            message.setSubject(outbox.getSubject(), StandardCharsets.UTF_8.name());
+            message.setText(outbox.getContent(), StandardCharsets.UTF_8.name());
+            smtpConnectionPool.send(message);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (Exception e) {
+            failed(outbox, e);
+            return;
+        }
+        if (mailOutboxMapper.markSent(outbox.getId(), outbox.getClaimToken()) > 0) {
+            sentCount.increment();
+        } else {
+            // 租约已过期并被其他批次领取，可能重复投递
+            lostClaimCount.increment();
+            log.warn("发件箱邮件[{}]发送完成时租约已失效", outbox.getBizKey());
+        }
+    }
+
+    private void failed(MailOutbox outbox, Exception e) {
+        String error = e.getClass().getSimpleName() + ": " + e.getMessage();
+        if (error.length() > MAX_ERROR_LENGTH) {
+            error = error.substring(0, MAX_ERROR_LENGTH);
+        }
+        boolean dead = isPermanent(e) || outbox.getAttempts() >= maxAttempts;
+        LocalDateTime nextAttemptTime = dead ? LocalDateTime.now() : LocalDateTime.now().plusSeconds(backoff(outbox.getAttempts()));
+        int status = dead ? MailOutboxStatusEnum.DEAD.getValue() : MailOutboxStatusEnum.PENDING.getValue();
+        if (mailOutboxMapper.markFailed(outbox.getId(), outbox.getClaimToken(), status, nextAttemptTime, error) == 0) {
+            // 租约已过期并被其他批次领取，本次失败不再记录，由新的领取者决定重试或转为死信
+            lostClaimCount.increment();
+            log.warn("发件箱邮件[{}]发送失败时租约已失效：{}", outbox.getBizKey(), error);
+            return;
+        }
+        if (dead) {
+            deadCount.increment();
+            log.error("发件箱邮件[{}]第{}次发送失败，转为死信", outbox.getBizKey(), outbox.getAttempts(), e);
+        } else {
+            retryCount.increment();
+            log.warn("发件箱邮件[{}]第{}次发送失败，{}后重试：{}", outbox.getBizKey(), outbox.getAttempts(), nextAttemptTime, error);
+        }
+    }
+
+    /**
+     * 第 n 次失败后的重试间隔，指数增长并加入随机抖动，避免大量邮件同时重试
+     */
+    private long backoff(int attempts) {
+        long delay = backoffBase << Math.min(Math.max(attempts - 1, 0), 20);
+        delay = Math.min(delay, backoffMax);
+        return delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+    }
+
+    /**
+     * 收件人地址无效，重试也不会成功
+     */
+    private static boolean isPermanent(Exception e) {
+        if (e instanceof AddressException) {
+            return true;
+        }
+        return e instanceof SendFailedException sendFailed
+                && sendFailed.getInvalidAddresses() != null
+                && sendFailed.getInvalidAddresses().length > 0;
+    }
+
+    private static String messageId(String bizKey) {
+        return "<" + UUID.nameUUIDFromBytes(bizKey.getBytes(StandardCharsets.UTF_8)) + "@crm-outbox>";
+    }
+}
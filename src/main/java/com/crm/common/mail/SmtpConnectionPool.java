@@ -0,0 +1,162 @@
+package com.crm.common.mail;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.mail.MailProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * SMTP 连接池
+ * JavaMailSender 每次发送都会重新建立连接并完成 TLS 握手和认证，这里复用已认证的连接，
+ * 连接数同时限制了对邮件服务器的并发发送数
+ *
+ * @author crm
+ */
+@Slf4j
+@Component
+public class SmtpConnectionPool {
+    @Resource
+    private MailProperties mailProperties;
+
+    /**
+     * 最大连接数
+     */
+    @Value("${mail-outbox.concurrency:4}")
+    private int maxSize;
+
+    /**
+     * 连接最长空闲时间，单位：毫秒，超过后关闭重连，避免使用已被服务器断开的连接
+     */
+    @Value("${mail-outbox.connection-idle-timeout:60000}")
+    private long idleTimeout;
+
+    private Session session;
+    private Semaphore permits;
+    private final BlockingDeque<PooledTransport> idle = new LinkedBlockingDeque<>();
+
+    private final LongAdder createdCount = new LongAdder();
+    private final LongAdder reusedCount = new LongAdder();
+    private final LongAdder discardedCount = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        Properties properties = new Properties();
+        properties.putAll(mailProperties.getProperties());
+        session = Session.getInstance(properties);
+        permits = new Semaphore(maxSize, true);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        PooledTransport transport;
+        while ((transport = idle.pollFirst()) != null) {
+            close(transport.transport);
+        }
+    }
+
+    /**
+     * 创建邮件
+     *
+     * @param messageId 固定的 Message-ID，重复投递时收件服务器可据此去重
+     */
+    public MimeMessage createMessage(String messageId) throws MessagingException {
+        MimeMessage message = new MimeMessage(session) {
+            @Override
+            protected void updateMessageID() throws MessagingException {
+                setHeader("Message-ID", messageId);
+            }
+        };
+        message.setFrom(mailProperties.getUsername());
+        return message;
+    }
+
+    /**
+     * 借用连接发送，连接数已满时等待；发送失败的连接直接关闭，不放回连接池
+     */
+    public void send(MimeMessage message) throws MessagingException, InterruptedException {
+        permits.acquire();
+        PooledTransport pooled = null;
+        try {
+            pooled = borrow();
+            message.saveChanges();
+            pooled.transport.sendMessage(message, message.getAllRecipients());
+            pooled.lastUsed = System.currentTimeMillis();
+            idle.offerFirst(pooled);
+            pooled = null;
+        } finally {
+            if (pooled != null) {
+                close(pooled.transport);
+            }
+            permits.release();
+        }
+    }
+
+    /**
+     * 连接池统计信息
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("maxSize", maxSize);
+        stats.put("idle", idle.size());
+        stats.put("active", maxSize - permits.availablePermits());
+        stats.put("createdCount", createdCount.sum());
+        stats.put("reusedCount", reusedCount.sum());
+        stats.put("discardedCount", discardedCount.sum());
+        return stats;
+    }
+
+    /**
+     * 优先使用最近归还的连接，空闲过久或已断开的连接关闭后重新建立
+     */
+    private PooledTransport borrow() throws MessagingException {
+        long now = System.currentTimeMillis();
+        PooledTransport pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            if (now - pooled.lastUsed < idleTimeout && pooled.transport.isConnected()) {
+                reusedCount.increment();
+                return pooled;
+            }
+            close(pooled.transport);
+        }
+        Transport transport = session.getTransport(mailProperties.getProtocol());
+        transport.connect(mailProperties.getHost(),
+                mailProperties.getPort() == null ? -1 : mailProperties.getPort(),
+                mailProperties.getUsername(), mailProperties.getPassword());
+        createdCount.increment();
+        return new PooledTransport(transport, now);
+    }
+
+    private void close(Transport transport) {
+        discardedCount.increment();
+        try {
+            transport.close();
+        } catch (MessagingException e) {
+            log.debug("关闭 SMTP 连接失败", e);
+        }
+    }
+
+    private static class PooledTransport {
+        private final Transport transport;
+        private long lastUsed;
+
+        PooledTransport(Transport transport, long lastUsed) {
+            this.transport = transport;
+            this.lastUsed = lastUsed;
+        }
+    }
+}
@@ -11,9 +11,12 @@ import org.hibernate.validator.constraints.Range;
  */
 @Data
 public class Query {
+    /**
+     * 页码，游标分页时无需传入
+     */
     @NotNull(message = "页码不能为空")
     @Min(value = 1, message = "页码最小值为 1")
-    Integer page;
+    Integer page = 1;
 
     @NotNull(message = "每页条数不能为空")
     @Range(min = 1, max = 100, message = "每页条数，取值范围 1-100")
@@ -22,4 +25,17 @@ public class Query {
     String order;
 
     boolean asc;
+
+    /**
+     * 分页游标，不为 null 时按游标分页，不统计总数
+     * 第一页传空字符串，之后传上一页返回的 nextCursor
+     */
+    String cursor;
+
+    /**
+     * 是否为游标分页
+     */
+    public boolean isCursorMode() {
+        return cursor != null;
+    }
 }
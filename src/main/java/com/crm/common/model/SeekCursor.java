@@ -0,0 +1,113 @@
+package com.crm.common.model;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.toolkit.support.SFunction;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.crm.common.exception.ServerException;
+import com.crm.common.result.PageResult;
+import com.github.yulichang.wrapper.MPJLambdaWrapper;
+import org.apache.commons.lang3.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 游标分页的续读位置，对应排序键 (create_time, id)
+ * 对外以 Base64 编码的不透明字符串传递，前端原样回传即可
+ * 排序时间允许为空，MySQL 降序排序时 NULL 排在最后，续读条件需与之一致：时间非空时空值记录都在后面，时间为空时只比较主键
+ *
+ * @param time 上一页最后一条记录的排序时间，可能为空
+ * @param id   上一页最后一条记录的主键
+ * @author crm
+ */
+public record SeekCursor(LocalDateTime time, long id) {
+    private static final char SEPARATOR = '|';
+
+    public String encode() {
+        // 时间为空时编码为空字符串
+        String raw = (time == null ? "" : time.toString()) + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析游标，为空表示从第一页开始，返回 null
+     */
+    public static SeekCursor decode(String token) {
+        if (StringUtils.isBlank(token)) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int index = raw.lastIndexOf(SEPARATOR);
+            String time = raw.substring(0, index);
+            return new SeekCursor(time.isEmpty() ? null : LocalDateTime.parse(time), Long.parseLong(raw.substring(index + 1)));
+        } catch (RuntimeException e) {
+            throw new ServerException("分页游标无效");
+        }
+    }
+
+    /**
+     * 解析游标，加上续读条件并追加主键降序，调用前查询条件需已按排序时间降序
+     * 时间非空时取更早的记录、同一时间主键更小的记录和时间为空的记录；时间为空时只在时间为空的记录中按主键续读
+     *
+     * @param wrapper 查询条件
+     * @param time    排序时间列
+     * @param id      主键列
+     * @param token   前端回传的游标，为空表示第一页
+     */
+    public static <T> void apply(LambdaQueryWrapper<T> wrapper, SFunction<T, LocalDateTime> time, SFunction<T, ?> id, String token) {
+        SeekCursor cursor = decode(token);
+        if (cursor != null && cursor.time() == null) {
+            wrapper.isNull(time).lt(id, cursor.id());
+        } else if (cursor != null) {
+            wrapper.and(w -> w.lt(time, cursor.time())
+                    .or(o -> o.eq(time, cursor.time()).lt(id, cursor.id()))
+                    .or().isNull(time));
+        }
+        wrapper.orderByDesc(id);
+    }
+
+    /**
+     * 同 {@link #apply(LambdaQueryWrapper, SFunction, SFunction, String)}，用于联表查询
+     */
+    public static <T> void apply(MPJLambdaWrapper<T> wrapper, SFunction<T, LocalDateTime> time, SFunction<T, ?> id, String token) {
+        SeekCursor cursor = decode(token);
+        if (cursor != null && cursor.time() == null) {
+            wrapper.isNull(time).lt(id, cursor.id());
+        } else if (cursor != null) {
+            wrapper.and(w -> w.lt(time, cursor.time())
+                    .or(o -> o.eq(time, cursor.time()).lt(id, cursor.id()))
+                    .or().isNull(time));
+        }
+        wrapper.orderByDesc(id);
+    }
+
+    /**
+     * 游标分页对象，不执行 COUNT，多取一条用于判断是否还有下一页
+     */
+    public static <T> Page<T> page(Query query) {
+        return new Page<>(1, query.getLimit() + 1, false);
+    }
+
+    /**
+     * 截掉多取的一条，并以本页最后一条记录生成下一页游标，没有下一页时游标为 null
+     *
+     * @param records 查询结果，最多 limit + 1 条
+     * @param limit   每页条数
+     * @param time    排序时间
+     * @param id      主键
+     */
+    public static <T> PageResult<T> result(List<T> records, int limit,
+                                           Function<T, LocalDateTime> time, Function<T, ? extends Number> id) {
+        if (records.size() <= limit) {
+            return new PageResult<>(records, null);
+        }
+        List<T> list = new ArrayList<>(records.subList(0, limit));
+        T last = list.get(limit - 1);
+        return new PageResult<>(list, new SeekCursor(time.apply(last), id.apply(last).longValue()).encode());
+    }
+}
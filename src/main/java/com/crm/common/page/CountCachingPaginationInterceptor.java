@@ -0,0 +1,135 @@
+package com.crm.common.page;
+
+import com.baomidou.mybatisplus.annotation.DbType;
+import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.baomidou.mybatisplus.core.toolkit.ParameterUtils;
+import com.baomidou.mybatisplus.core.toolkit.PluginUtils;
+import com.baomidou.mybatisplus.extension.plugins.inner.PaginationInnerInterceptor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.ParameterMode;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.scripting.defaults.DefaultParameterHandler;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.type.TypeHandlerRegistry;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * 带总数缓存的分页插件
+ * <p>
+ * 查询签名由 MappedStatement ID、SQL 和全部参数值组成，数据权限条件（如 owner_id）作为参数天然包含在内，
+ * 翻页时签名不变，COUNT 只在第一次或相关表变更后执行。开启估算后先 EXPLAIN 查询语句，
+ * 估算行数不低于阈值时直接返回估算值；多表关联时 EXPLAIN 的各行无法换算为结果行数，只对单表查询估算。
+ * 写操作的失效由 {@link PageCountInvalidationInterceptor} 在语句执行后处理。
+ *
+ * @author crm
+ */
+@Slf4j
+public class CountCachingPaginationInterceptor extends PaginationInnerInterceptor {
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final PageCountCache pageCountCache;
+
+    public CountCachingPaginationInterceptor(DbType dbType, PageCountCache pageCountCache) {
+        super(dbType);
+        this.pageCountCache = pageCountCache;
+    }
+
+    @Override
+    public boolean willDoQuery(Executor executor, MappedStatement ms, Object parameter, RowBounds rowBounds,
+                               ResultHandler resultHandler, BoundSql boundSql) throws SQLException {
+        IPage<?> page = ParameterUtils.findPage(parameter).orElse(null);
+        if (page == null || page.getSize() < 0 || !page.searchCount() || resultHandler != Executor.NO_RESULT_HANDLER
+                || !pageCountCache.isEnabled()) {
+            return super.willDoQuery(executor, ms, parameter, rowBounds, resultHandler, boundSql);
+        }
+        List<String> tables = pageCountCache.tables(boundSql.getSql());
+        if (tables.isEmpty()) {
+            return super.willDoQuery(executor, ms, parameter, rowBounds, resultHandler, boundSql);
+        }
+        String key = signature(ms, parameter, boundSql);
+        Long total = pageCountCache.get(key);
+        if (total != null) {
+            page.setTotal(total);
+            return continuePage(page);
+        }
+        // 先读取版本号，COUNT 期间有写入时缓存会在下次访问时失效
+        long[] versions = pageCountCache.versions(tables);
+        Long estimate = pageCountCache.isApproximate() && tables.size() == 1 ? estimate(executor, ms, parameter, boundSql) : null;
+        boolean result;
+        if (estimate != null && estimate >= pageCountCache.getApproximateThreshold()) {
+            pageCountCache.recordApproximate();
+            page.setTotal(estimate);
+            result = continuePage(page);
+        } else {
+            result = super.willDoQuery(executor, ms, parameter, rowBounds, resultHandler, boundSql);
+        }
+        pageCountCache.put(key, page.getTotal(), tables, versions);
+        return result;
+    }
+
+    /**
+     * 查询签名，与页码、每页条数无关
+     */
+    private String signature(MappedStatement ms, Object parameter, BoundSql boundSql) {
+        StringBuilder key = new StringBuilder(ms.getId()).append('\n')
+                .append(WHITESPACE.matcher(boundSql.getSql()).replaceAll(" "));
+        Configuration configuration = ms.getConfiguration();
+        TypeHandlerRegistry typeHandlerRegistry = configuration.getTypeHandlerRegistry();
+        MetaObject metaObject = null;
+        // 与 DefaultParameterHandler 取参数值的方式一致
+        for (ParameterMapping mapping : boundSql.getParameterMappings()) {
+            if (mapping.getMode() == ParameterMode.OUT) {
+                continue;
+            }
+            String property = mapping.getProperty();
+            Object value;
+            if (boundSql.hasAdditionalParameter(property)) {
+                value = boundSql.getAdditionalParameter(property);
+            } else if (parameter == null) {
+                value = null;
+            } else if (typeHandlerRegistry.hasTypeHandler(parameter.getClass())) {
+                value = parameter;
+            } else {
+                if (metaObject == null) {
+                    metaObject = configuration.newMetaObject(parameter);
+                }
+                value = metaObject.getValue(property);
+            }
+            key.append('\n').append(value);
+        }
+        return key.toString();
+    }
+
+    /**
+     * EXPLAIN 查询语句，以 rows * filtered 作为估算行数；失败或 EXPLAIN 不止一行（子查询、派生表）时返回 null
+     */
+    private Long estimate(Executor executor, MappedStatement ms, Object parameter, BoundSql boundSql) {
+        BoundSql explainSql = new BoundSql(ms.getConfiguration(), "EXPLAIN " + boundSql.getSql(),
+                boundSql.getParameterMappings(), parameter);
+        PluginUtils.mpBoundSql(boundSql).additionalParameters().forEach(explainSql::setAdditionalParameter);
+        try (PreparedStatement statement = executor.getTransaction().getConnection().prepareStatement(explainSql.getSql())) {
+            new DefaultParameterHandler(ms, parameter, explainSql).setParameters(statement);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (!resultSet.next()) {
+                    return null;
+                }
+                long estimate = (long) (resultSet.getLong("rows") * resultSet.getDouble("filtered") / 100);
+                return resultSet.next() ? null : estimate;
+            }
+        } catch (SQLException e) {
+            log.warn("估算分页总数失败，改为精确统计：{}", e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.crm.common.page;
+
+import com.crm.utils.TransactionUtils;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+import net.sf.jsqlparser.util.TablesNamesFinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 分页总数本地缓存，按查询签名（语句 + SQL + 参数值）缓存 COUNT 结果
+ * <p>
+ * 每张表维护一个版本号，经 Mapper 执行的写操作执行后递增所涉及表的版本号，缓存条目记录 COUNT 之前读取的版本号，版本变化即失效。
+ * 其他节点的写入不会通知本节点，由过期时间兜底。
+ *
+ * @author crm
+ */
+@Slf4j
+@Component
+public class PageCountCache {
+    private final Map<String, Entry> cache = new ConcurrentHashMap<>();
+    /**
+     * 查询 SQL 涉及的表，SQL 文本相同时只解析一次
+     */
+    private final Map<String, List<String>> sqlTables = new ConcurrentHashMap<>();
+    /**
+     * 写语句涉及的表，按 MappedStatement ID 缓存
+     */
+    private final Map<String, List<String>> statementTables = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> tableVersions = new ConcurrentHashMap<>();
+    /**
+     * 无法解析写语句涉及的表时递增，使全部缓存失效
+     */
+    private final AtomicLong globalVersion = new AtomicLong();
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder approximateCount = new LongAdder();
+    private final LongAdder invalidateCount = new LongAdder();
+
+    /**
+     * 是否启用总数缓存
+     */
+    @Getter
+    @Value("${page-count.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 最长缓存时间，单位：秒
+     */
+    @Value("${page-count.ttl:60}")
+    private long ttl;
+
+    /**
+     * 最大缓存条数
+     */
+    @Value("${page-count.capacity:10000}")
+    private int capacity;
+
+    /**
+     * 是否启用估算总数
+     */
+    @Getter
+    @Value("${page-count.approximate:false}")
+    private boolean approximate;
+
+    /**
+     * 估算行数不低于该值时返回估算值，否则执行精确 COUNT
+     */
+    @Getter
+    @Value("${page-count.approximate-threshold:100000}")
+    private long approximateThreshold;
+
+    /**
+     * 获取缓存的总数，不存在、已过期或相关表已变更时返回 null
+     */
+    public Long get(String key) {
+        Entry entry = cache.get(key);
+        if (entry == null || entry.isExpired(System.currentTimeMillis()) || !Arrays.equals(entry.versions, versions(entry.tables))) {
+            missCount.increment();
+            return null;
+        }
+        hitCount.increment();
+        return entry.total;
+    }
+
+    /**
+     * 写入缓存
+     *
+     * @param key      查询签名
+     * @param total    总数
+     * @param tables   查询涉及的表
+     * @param versions 执行 COUNT 之前读取的版本号，COUNT 期间有写入时该条目直接失效
+     */
+    public void put(String key, long total, List<String> tables, long[] versions) {
+        if (cache.size() >= capacity) {
+            prune();
+        }
+        cache.put(key, new Entry(total, tables, versions, System.currentTimeMillis() + ttl * 1000));
+    }
+
+    /**
+     * 当前版本号，第一位为全局版本号
+     */
+    public long[] versions(List<String> tables) {
+        long[] versions = new long[tables.size() + 1];
+        versions[0] = globalVersion.get();
+        for (int i = 0; i < tables.size(); i++) {
+            AtomicLong version = tableVersions.get(tables.get(i));
+            versions[i + 1] = version == null ? 0 : version.get();
+        }
+        return versions;
+    }
+
+    /**
+     * 查询 SQL 涉及的表，无法解析时返回空列表，不缓存该查询
+     */
+    public List<String> tables(String sql) {
+        List<String> tables = sqlTables.get(sql);
+        if (tables == null) {
+            if (sqlTables.size() >= capacity) {
+                sqlTables.clear();
+            }
+            tables = parse(sql);
+            sqlTables.put(sql, tables);
+        }
+        return tables;
+    }
+
+    /**
+     * 写语句执行后失效相关表的缓存，立即递增一次；在事务中时，提交或回滚后再递增一次，
+     * 避免其他事务在提交前读到旧数据、或本事务读到未提交数据的 COUNT 被缓存
+     *
+     * @param statementId MappedStatement ID
+     * @param sql         写语句，只在第一次执行该语句时解析
+     */
+    public void invalidate(String statementId, Supplier<String> sql) {
+        List<String> tables = statementTables.computeIfAbsent(statementId, id -> parse(sql.get()));
+        invalidate(tables);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionUtils.afterCommit(() -> invalidate(tables));
+            TransactionUtils.afterRollback(() -> invalidate(tables));
+        }
+    }
+
+    public void recordApproximate() {
+        approximateCount.increment();
+    }
+
+    /**
+     * 缓存统计信息
+     */
+    public Map<String, Object> stats() {
+        long hits = hitCount.sum();
+        long misses = missCount.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("size", cache.size());
+        stats.put("capacity", capacity);
+        stats.put("hitCount", hits);
+        stats.put("missCount", misses);
+        stats.put("hitRate", hits + misses == 0 ? 0 : (double) hits / (hits + misses));
+        stats.put("approximate", approximate);
+        stats.put("approximateCount", approximateCount.sum());
+        stats.put("invalidateCount", invalidateCount.sum());
+        stats.put("globalVersion", globalVersion.get());
+        Map<String, Long> versions = new LinkedHashMap<>();
+        tableVersions.forEach((table, version) -> versions.put(table, version.get()));
+        stats.put("tableVersions", versions);
+        return stats;
+    }
+
+    private void invalidate(List<String> tables) {
+        invalidateCount.increment();
+        if (tables.isEmpty()) {
+            globalVersion.incrementAndGet();
+            return;
+        }
+        tables.forEach(table -> tableVersions.computeIfAbsent(table, t -> new AtomicLong()).incrementAndGet());
+    }
+
+    private List<String> parse(String sql) {
+        try {
+            return new TablesNamesFinder().getTableList(CCJSqlParserUtil.parse(sql)).stream()
+                    .map(PageCountCache::normalize).distinct().sorted().toList();
+        } catch (Exception e) {
+            log.warn("解析 SQL 涉及的表失败：{}", e.getMessage());
+            return List.of();
+        }
+    }
+
+    /**
+     * 去掉库名和反引号，统一小写
+     */
+    private static String normalize(String table) {
+        String name = table.substring(table.lastIndexOf('.') + 1).replace("`", "");
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 容量已满时先清理过期数据，仍然超出则淘汰一批数据
+     */
+    private void prune() {
+        long now = System.currentTimeMillis();
+        cache.values().removeIf(entry -> entry.isExpired(now));
+        Iterator<Entry> iterator = cache.values().iterator();
+        // 每次至少腾出 1/16 的空间，避免满容量时每次写入都触发清理
+        int overflow = cache.size() - capacity + Math.max(1, capacity / 16);
+        while (overflow > 0 && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+            overflow--;
+        }
+    }
+
+    private record Entry(long total, List<String> tables, long[] versions, long expireAt) {
+        boolean isExpired(long now) {
+            return now >= expireAt;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.crm.common.page;
+
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+
+/**
+ * 写语句执行后失效分页总数缓存
+ * <p>
+ * 版本号必须在语句执行之后递增：执行前递增时，执行期间开始的 COUNT 读到旧数据却记录了新版本号，缓存不会失效。
+ * 语句失败时同样递增，多失效一次没有影响。
+ *
+ * @author crm
+ */
+@Intercepts(@Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class}))
+public class PageCountInvalidationInterceptor implements Interceptor {
+    private final PageCountCache pageCountCache;
+
+    public PageCountInvalidationInterceptor(PageCountCache pageCountCache) {
+        this.pageCountCache = pageCountCache;
+    }
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        MappedStatement ms = (MappedStatement) invocation.getArgs()[0];
+        Object parameter = invocation.getArgs()[1];
+        try {
+            return invocation.proceed();
+        } finally {
+            pageCountCache.invalidate(ms.getId(), () -> ms.getBoundSql(parameter).getSql());
+        }
+    }
+}
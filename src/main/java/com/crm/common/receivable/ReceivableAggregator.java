@@ -0,0 +1,53 @@
+package com.crm.common.receivable;
+
+import com.crm.mapper.ReceivableMapper;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * 合同、客户已收款汇总
+ * 监听在发布事件的事务中同步执行，汇总与回款变更一起提交或回滚；对账任务修复偏差
+ *
+ * @author crm
+ */
+@Slf4j
+@Component
+public class ReceivableAggregator {
+    @Resource
+    private ReceivableMapper receivableMapper;
+
+    @EventListener
+    public void onReceivedAmountChanged(ReceivedAmountChangedEvent event) {
+        if (event.deltaCents() == 0) {
+            return;
+        }
+        BigDecimal delta = BigDecimal.valueOf(event.deltaCents(), 2);
+        if (event.contractId() != null) {
+            receivableMapper.addContractReceived(event.contractId(), delta);
+        }
+        if (event.customerId() != null) {
+            receivableMapper.addCustomerReceived(event.customerId(), delta);
+        }
+    }
+
+    /**
+     * 与回款表重新汇总的结果比较，修复不一致的合同和客户
+     *
+     * @return 修复的合同数和客户数之和
+     */
+    public int reconcile() {
+        List<Integer> contractIds = receivableMapper.selectDriftedContractIds();
+        contractIds.forEach(receivableMapper::repairContractReceived);
+        List<Integer> customerIds = receivableMapper.selectDriftedCustomerIds();
+        customerIds.forEach(receivableMapper::repairCustomerReceived);
+        if (!contractIds.isEmpty() || !customerIds.isEmpty()) {
+            log.warn("已收款对账修复合同{}个：{}，客户{}个：{}", contractIds.size(), contractIds, customerIds.size(), customerIds);
+        }
+        return contractIds.size() + customerIds.size();
+    }
+}
@@ -0,0 +1,12 @@
+package com.crm.common.receivable;
+
+/**
+ * 已收款变化，回款审核状态或金额变化时发布
+ *
+ * @param contractId  合同ID
+ * @param customerId  客户ID
+ * @param deltaCents  已收款变化量，单位：分
+ * @author crm
+ */
+public record ReceivedAmountChangedEvent(Integer contractId, Integer customerId, long deltaCents) {
+}
@@ -14,12 +14,15 @@ import java.util.List;
 public class PageResult<T> implements Serializable {
     private static final long serialVersionUID = 1L;
 
-    @Schema(description = "总记录数")
+    @Schema(description = "总记录数，游标分页时为 -1")
     private int total;
 
     @Schema(description = "列表数据")
     private List<T> list;
 
+    @Schema(description = "下一页游标，游标分页时返回，为空表示没有下一页")
+    private String nextCursor;
+
     /**
      * 分页
      * @param list   列表数据
@@ -29,4 +32,15 @@ public class PageResult<T> implements Serializable {
         this.list = list;
         this.total = (int)total;
     }
+
+    /**
+     * 游标分页
+     * @param list        列表数据
+     * @param nextCursor  下一页游标，没有下一页时为 null
+     */
+    public PageResult(List<T> list, String nextCursor) {
+        this.list = list;
+        this.total = -1;
+        this.nextCursor = nextCursor;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,46 @@
+package com.crm.common.sequence;
+
+import com.crm.mapper.SequenceMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * 数据库号段来源，每个序列一行，租用号段时更新一次
+ * 在独立事务中执行，不受调用方事务回滚影响，也不会长时间持有序列行的锁
+ *
+ * @author crm
+ */
+@Component
+@ConditionalOnProperty(name = "sequence.store", havingValue = "db", matchIfMissing = true)
+public class DbSequenceSource implements SequenceSource {
+    @Resource
+    private SequenceMapper sequenceMapper;
+    @Resource
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @Override
+    public long allocate(String name, int size) {
+        Long max = transactionTemplate.execute(status -> {
+            if (sequenceMapper.increase(name, size) == 0) {
+                sequenceMapper.insertIgnore(name);
+                sequenceMapper.increase(name, size);
+            }
+            // LAST_INSERT_ID 按连接隔离，与 increase 在同一事务即同一连接中读取
+            return sequenceMapper.selectLastInsertId();
+        });
+        return max == null ? 0 : max;
+    }
+}
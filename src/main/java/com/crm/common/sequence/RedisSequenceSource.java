@@ -0,0 +1,26 @@
+package com.crm.common.sequence;
+
+import com.crm.common.cache.RedisKeys;
+import jakarta.annotation.Resource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Redis 号段来源，INCRBY 一次往返租用一个号段
+ * Redis 需开启持久化，计数丢失后号码会从头开始，与已有号码重复
+ *
+ * @author crm
+ */
+@Component
+@ConditionalOnProperty(name = "sequence.store", havingValue = "redis")
+public class RedisSequenceSource implements SequenceSource {
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Override
+    public long allocate(String name, int size) {
+        Long max = stringRedisTemplate.opsForValue().increment(RedisKeys.getSequenceKey(name), size);
+        return max == null ? 0 : max;
+    }
+}
@@ -0,0 +1,198 @@
+package com.crm.common.sequence;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 号段序列
+ * 每个节点从 SequenceSource 租用一段号码，在内存中用 CAS 依次分配，号段用掉 80% 时异步预取下一段，
+ * 只有切换号段时才加锁；预取赶不上消耗时号段大小翻倍，号段使用时间较长时减半，最小为初始大小
+ * 同一节点内号码严格递增；多个节点各自持有号段，号码唯一但不保证全局按时间递增；
+ * 重启后未用完的号段会被跳过
+ *
+ * @author crm
+ */
+@Slf4j
+public class SequenceGenerator {
+    /**
+     * 号段最多扩大的倍数
+     */
+    private static final int MAX_SEGMENT_SCALE = 64;
+    /**
+     * 号段使用超过该时间后缩小，单位：毫秒
+     */
+    private static final long SHRINK_AFTER_MILLIS = 60_000;
+
+    private final SequenceSource source;
+    private final int segmentSize;
+    private final int maxSegmentSize;
+    private final Executor prefetchExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<String, Buffer> buffers = new ConcurrentHashMap<>();
+
+    private final LongAdder allocatedCount = new LongAdder();
+    private final LongAdder segmentCount = new LongAdder();
+    private final LongAdder waitCount = new LongAdder();
+
+    public SequenceGenerator(SequenceSource source, int segmentSize) {
+        this.source = source;
+        this.segmentSize = segmentSize;
+        this.maxSegmentSize = segmentSize * MAX_SEGMENT_SCALE;
+    }
+
+    /**
+     * 下一个号码
+     */
+    public long next(String name) {
+        Buffer buffer = buffers.computeIfAbsent(name, Buffer::new);
+        for (;;) {
+            Segment segment = buffer.current;
+            long value = segment.cursor.getAndIncrement();
+            if (value < segment.end) {
+                if (value == segment.prefetchAt) {
+                    buffer.prefetch();
+                }
+                allocatedCount.increment();
+                return value;
+            }
+            buffer.switchSegment(segment);
+        }
+    }
+
+    /**
+     * 批量分配，用于批量导入
+     * 数量较大时直接租用一个专用号段，返回的号码连续；否则从当前号段中分配，跨号段时可能不连续
+     */
+    public long[] next(String name, int count) {
+        long[] values = new long[count];
+        if (count >= segmentSize / 2) {
+            long start = source.allocate(name, count) - count + 1;
+            segmentCount.increment();
+            for (int i = 0; i < count; i++) {
+                values[i] = start + i;
+            }
+            allocatedCount.add(count);
+            return values;
+        }
+        Buffer buffer = buffers.computeIfAbsent(name, Buffer::new);
+        int filled = 0;
+        while (filled < count) {
+            Segment segment = buffer.current;
+            int need = count - filled;
+            long value = segment.cursor.getAndAdd(need);
+            long end = Math.min(value + need, segment.end);
+            for (long v = value; v < end; v++) {
+                values[filled++] = v;
+            }
+            if (value <= segment.prefetchAt && segment.prefetchAt < value + need) {
+                buffer.prefetch();
+            }
+            if (filled < count) {
+                buffer.switchSegment(segment);
+            }
+        }
+        allocatedCount.add(count);
+        return values;
+    }
+
+    /**
+     * 统计信息
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("segmentSize", segmentSize);
+        stats.put("allocatedCount", allocatedCount.sum());
+        stats.put("segmentCount", segmentCount.sum());
+        stats.put("waitCount", waitCount.sum());
+        Map<String, Object> sequences = new LinkedHashMap<>();
+        buffers.forEach((name, buffer) -> {
+            Segment segment = buffer.current;
+            Map<String, Object> sequence = new LinkedHashMap<>();
+            sequence.put("step", buffer.step);
+            sequence.put("remaining", Math.max(0, segment.end - segment.cursor.get()));
+            sequences.put(name, sequence);
+        });
+        stats.put("sequences", sequences);
+        return stats;
+    }
+
+    private Segment load(String name, int size) {
+        long max = source.allocate(name, size);
+        segmentCount.increment();
+        return new Segment(max - size + 1, max + 1);
+    }
+
+    /**
+     * 号段 [start, end)
+     */
+    private static class Segment {
+        private static final Segment EMPTY = new Segment(0, 0);
+
+        private final long end;
+        private final long prefetchAt;
+        private final AtomicLong cursor;
+
+        Segment(long start, long end) {
+            this.end = end;
+            this.prefetchAt = start + (end - start) * 4 / 5;
+            this.cursor = new AtomicLong(start);
+        }
+    }
+
+    /**
+     * 当前号段和预取的下一个号段
+     */
+    private class Buffer {
+        private final String name;
+        private volatile Segment current = Segment.EMPTY;
+        private CompletableFuture<Segment> next;
+        private volatile int step = segmentSize;
+        private long switchTime;
+
+        Buffer(String name) {
+            this.name = name;
+        }
+
+        synchronized void prefetch() {
+            if (next == null) {
+                int size = step;
+                next = CompletableFuture.supplyAsync(() -> load(name, size), prefetchExecutor);
+            }
+        }
+
+        /**
+         * 当前号段用完后切换，其他线程已经切换过时直接返回
+         */
+        synchronized void switchSegment(Segment exhausted) {
+            if (current != exhausted) {
+                return;
+            }
+            boolean waited = next == null || !next.isDone();
+            Segment segment = null;
+            if (next != null) {
+                try {
+                    segment = next.join();
+                } catch (Exception e) {
+                    log.warn("序列[{}]预取号段失败，重新租用", name, e);
+                }
+                next = null;
+            }
+            long now = System.currentTimeMillis();
+            if (waited && exhausted != Segment.EMPTY) {
+                waitCount.increment();
+                step = Math.min(step * 2, maxSegmentSize);
+            } else if (now - switchTime > SHRINK_AFTER_MILLIS) {
+                step = Math.max(step / 2, segmentSize);
+            }
+            switchTime = now;
+            current = segment != null ? segment : load(name, step);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.crm.common.sequence;
+
+/**
+ * 号段来源，计数只增不减，重启后继续递增
+ *
+ * @author crm
+ */
+public interface SequenceSource {
+
+    /**
+     * 租用一个号段
+     *
+     * @param name 序列名
+     * @param size 号段大小
+     * @return 号段的最大值（包含），号段为 [返回值 - size + 1, 返回值]
+     */
+    long allocate(String name, int size);
+}
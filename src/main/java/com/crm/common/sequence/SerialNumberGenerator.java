@@ -0,0 +1,94 @@
+package com.crm.common.sequence;
+
+import com.crm.enums.SerialNumberTypeEnum;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 业务编号生成，格式：前缀 + yyyyMMdd + 至少 6 位序号，如 HT20251012000001
+ * 序号全局递增，不按天重置，保证重启和跨天后都不会重复
+ *
+ * @author crm
+ */
+@Component
+public class SerialNumberGenerator {
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.BASIC_ISO_DATE;
+    private static final int SEQUENCE_DIGITS = 6;
+
+    @Resource
+    private SequenceSource sequenceSource;
+
+    /**
+     * 每次租用的号段大小
+     */
+    @Value("${sequence.segment-size:1000}")
+    private int segmentSize;
+
+    private SequenceGenerator sequenceGenerator;
+    /**
+     * 当天的日期前缀，跨天时替换
+     */
+    private volatile DatePrefix datePrefix = new DatePrefix(0, "");
+
+    @PostConstruct
+    public void init() {
+        sequenceGenerator = new SequenceGenerator(sequenceSource, segmentSize);
+    }
+
+    /**
+     * 生成一个编号
+     */
+    public String next(SerialNumberTypeEnum type) {
+        return format(type, sequenceGenerator.next(type.getSequence()));
+    }
+
+    /**
+     * 批量生成编号，用于批量导入
+     */
+    public List<String> next(SerialNumberTypeEnum type, int count) {
+        List<String> numbers = new ArrayList<>(count);
+        for (long value : sequenceGenerator.next(type.getSequence(), count)) {
+            numbers.add(format(type, value));
+        }
+        return numbers;
+    }
+
+    /**
+     * 统计信息
+     */
+    public Map<String, Object> stats() {
+        return sequenceGenerator.stats();
+    }
+
+    private String format(SerialNumberTypeEnum type, long value) {
+        String date = currentDate();
+        String sequence = Long.toString(value);
+        StringBuilder sb = new StringBuilder(type.getPrefix().length() + date.length() + Math.max(SEQUENCE_DIGITS, sequence.length()));
+        sb.append(type.getPrefix()).append(date);
+        for (int i = sequence.length(); i < SEQUENCE_DIGITS; i++) {
+            sb.append('0');
+        }
+        return sb.append(sequence).toString();
+    }
+
+    private String currentDate() {
+        LocalDate today = LocalDate.now();
+        DatePrefix prefix = datePrefix;
+        if (prefix.epochDay != today.toEpochDay()) {
+            prefix = new DatePrefix(today.toEpochDay(), today.format(DATE_FORMATTER));
+            datePrefix = prefix;
+        }
+        return prefix.text;
+    }
+
+    private record DatePrefix(long epochDay, String text) {
+    }
+}
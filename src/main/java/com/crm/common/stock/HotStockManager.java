@@ -0,0 +1,296 @@
+package com.crm.common.stock;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.crm.common.exception.ServerException;
+import com.crm.entity.Product;
+import com.crm.mapper.ProductMapper;
+import com.crm.utils.TransactionUtils;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 热点商品库存
+ * 热点商品的扣减只在计数器上完成，不再锁定 t_product 中的同一行；扣减量由定时任务批量写回数据库
+ * 写回前的一个刷新周期内，t_product 中的库存可能落后于计数器
+ *
+ * @author crm
+ */
+@Slf4j
+@Component
+public class HotStockManager {
+    /**
+     * 批次取出后超过该时间仍未删除，视为写回期间节点宕机遗留，单位：毫秒
+     */
+    private static final long PROCESSING_TIMEOUT = 30_000;
+
+    @Resource
+    private HotStockStore hotStockStore;
+    @Resource
+    private ProductMapper productMapper;
+
+    /**
+     * 启动时标记为热点的商品ID
+     */
+    @Value("${product.hot-stock.product-ids:}")
+    private List<Integer> configuredProductIds;
+
+    private final LongAdder appliedCount = new LongAdder();
+    private final LongAdder rejectedCount = new LongAdder();
+    private final LongAdder compensatedCount = new LongAdder();
+    private final LongAdder flushCount = new LongAdder();
+    private final LongAdder flushFailedCount = new LongAdder();
+    private final AtomicLong lastFlushTime = new AtomicLong();
+    private final LongAdder driftCount = new LongAdder();
+    private final AtomicLong lastReconcileTime = new AtomicLong();
+    /**
+     * 上一次对账发现的偏差，商品ID -> 偏差
+     * 对账读取计数器和数据库不是原子的，并发写回或库存修改可能造成一次性的假偏差，连续两次相同才修正
+     */
+    private final Map<Integer, Integer> suspectedDrifts = new ConcurrentHashMap<>();
+
+    /**
+     * 启动时对账，先写回宕机遗留的批次；计数器丢失的热点商品先写回未同步的增量，再从数据库加载库存，其余商品由定时对账比较
+     */
+    @PostConstruct
+    public void init() {
+        try {
+            recoverPending();
+            configuredProductIds.forEach(this::enable);
+            Set<Integer> hotProductIds = hotStockStore.getHotProductIds();
+            List<Integer> missing = hotProductIds.stream().filter(id -> hotStockStore.getStock(id) == null).toList();
+            if (!missing.isEmpty()) {
+                flush();
+                missing.forEach(id -> hotStockStore.setStock(id, loadStock(id)));
+                log.warn("热点商品库存计数器丢失，已从数据库重新加载：{}", missing);
+            }
+        } catch (Exception e) {
+            log.error("热点商品库存初始化失败", e);
+        }
+    }
+
+    /**
+     * 停机前写回未同步的增量
+     */
+    @PreDestroy
+    public void destroy() {
+        flush();
+    }
+
+    /**
+     * 从扣减明细中取出热点商品
+     *
+     * @param deltas 商品ID -> 扣减数量，热点商品会从中移除
+     * @return 热点商品的扣减明细
+     */
+    public Map<Integer, Integer> extract(Map<Integer, Integer> deltas) {
+        Set<Integer> hotProductIds = hotStockStore.getHotProductIds();
+        Map<Integer, Integer> hotDeltas = new HashMap<>();
+        if (hotProductIds.isEmpty()) {
+            return hotDeltas;
+        }
+        deltas.entrySet().removeIf(entry -> {
+            if (!hotProductIds.contains(entry.getKey())) {
+                return false;
+            }
+            hotDeltas.put(entry.getKey(), entry.getValue());
+            return true;
+        });
+        return hotDeltas;
+    }
+
+    /**
+     * 在计数器上扣减热点商品库存，全部充足时才扣减，事务回滚时自动补偿
+     *
+     * @param hotDeltas 热点商品ID -> 扣减数量，负数表示退回
+     * @return 库存不足的商品ID -> 剩余库存，计数器不存在时为 -1；全部成功返回空 Map
+     */
+    public Map<Integer, Integer> apply(Map<Integer, Integer> hotDeltas) {
+        if (hotDeltas.isEmpty()) {
+            return Map.of();
+        }
+        Map<Integer, Integer> failed = hotStockStore.tryApply(hotDeltas);
+        if (!failed.isEmpty()) {
+            rejectedCount.increment();
+            return failed;
+        }
+        appliedCount.increment();
+        // 计数器不参与数据库事务，回滚时反向调整
+        Map<Integer, Integer> compensation = new HashMap<>();
+        hotDeltas.forEach((productId, count) -> compensation.put(productId, -count));
+        TransactionUtils.afterRollback(() -> {
+            hotStockStore.forceApply(compensation);
+            compensatedCount.increment();
+        });
+        return failed;
+    }
+
+    /**
+     * 定时对账：先写回待同步增量，再比较计数器与数据库库存
+     * 计数器应等于数据库库存减去尚未写回的扣减数量，偏差连续两次相同时按数据库修正计数器
+     */
+    @Scheduled(fixedDelayString = "${product.hot-stock.reconcile-interval:60000}")
+    public synchronized void reconcile() {
+        recoverPending();
+        flush();
+        Set<Integer> hotProductIds = hotStockStore.getHotProductIds();
+        suspectedDrifts.keySet().retainAll(hotProductIds);
+        for (Integer productId : hotProductIds) {
+            try {
+                HotStockStore.StockSnapshot snapshot = hotStockStore.snapshot(productId);
+                if (snapshot == null) {
+                    continue;
+                }
+                int drift = snapshot.stock() - (loadStock(productId) - snapshot.pending());
+                if (drift == 0) {
+                    suspectedDrifts.remove(productId);
+                    continue;
+                }
+                Integer previous = suspectedDrifts.put(productId, drift);
+                if (previous != null && previous == drift) {
+                    // 增量调整而不是覆盖，不会丢失对账期间的扣减
+                    hotStockStore.adjustStock(productId, -drift);
+                    suspectedDrifts.remove(productId);
+                    driftCount.increment();
+                    log.warn("热点商品[{}]库存计数器与数据库不一致，偏差 {}，已按数据库修正", productId, drift);
+                }
+            } catch (Exception e) {
+                log.error("热点商品[{}]库存对账失败", productId, e);
+            }
+        }
+        lastReconcileTime.set(System.currentTimeMillis());
+    }
+
+    /**
+     * 修改热点商品库存，按计数器当前值换算为增量，数据库和计数器同步调整，不直接覆盖数据库中的库存
+     * 计数器在事务提交后调整，回滚时不变
+     *
+     * @return 不是热点商品返回 false，由调用方直接更新数据库
+     */
+    public boolean updateStock(Integer productId, int stock) {
+        if (!hotStockStore.getHotProductIds().contains(productId)) {
+            return false;
+        }
+        Integer current = hotStockStore.getStock(productId);
+        if (current == null) {
+            throw new ServerException("商品库存暂不可用，请重试");
+        }
+        int delta = stock - current;
+        if (delta == 0) {
+            return true;
+        }
+        productMapper.adjustStock(productId, delta);
+        TransactionUtils.afterCommit(() -> hotStockStore.adjustStock(productId, delta));
+        return true;
+    }
+
+    /**
+     * 标记为热点商品，先从数据库加载库存
+     */
+    public synchronized void enable(Integer productId) {
+        if (hotStockStore.getHotProductIds().contains(productId)) {
+            return;
+        }
+        hotStockStore.enable(productId, loadStock(productId));
+    }
+
+    /**
+     * 取消热点标记，删除计数器后写回未同步的增量，此后的扣减回到数据库
+     */
+    public synchronized void disable(Integer productId) {
+        if (!hotStockStore.getHotProductIds().contains(productId)) {
+            return;
+        }
+        hotStockStore.disable(productId);
+        flush();
+    }
+
+    /**
+     * 定时写回热点商品的库存增量，写回失败时放回，下次重试
+     */
+    @Scheduled(fixedDelayString = "${product.hot-stock.flush-interval:1000}")
+    public synchronized void flush() {
+        HotStockStore.PendingBatch batch = hotStockStore.drainPending();
+        if (batch != null) {
+            flush(batch);
+        }
+    }
+
+    /**
+     * 写回一批增量，UPDATE 自动提交，返回后批次才从计数器存储中删除；写回失败时放回，下次重试
+     */
+    private void flush(HotStockStore.PendingBatch batch) {
+        Map<Integer, Integer> pending = new HashMap<>(batch.deltas());
+        pending.values().removeIf(count -> count == 0);
+        if (pending.isEmpty()) {
+            hotStockStore.ackPending(batch);
+            return;
+        }
+        try {
+            productMapper.flushStockDeltas(pending);
+        } catch (Exception e) {
+            flushFailedCount.increment();
+            hotStockStore.restorePending(batch);
+            log.error("热点商品库存写回失败，稍后重试：{}", pending, e);
+            return;
+        }
+        hotStockStore.ackPending(batch);
+        flushCount.increment();
+        lastFlushTime.set(System.currentTimeMillis());
+    }
+
+    /**
+     * 写回宕机节点遗留的批次
+     */
+    private synchronized void recoverPending() {
+        for (HotStockStore.PendingBatch batch : hotStockStore.reclaimPending(PROCESSING_TIMEOUT)) {
+            log.warn("回收遗留的热点商品库存增量批次[{}]：{}", batch.id(), batch.deltas());
+            flush(batch);
+        }
+    }
+
+    /**
+     * 热点库存统计信息
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stocks = new LinkedHashMap<>();
+        for (Integer productId : hotStockStore.getHotProductIds()) {
+            stocks.put(String.valueOf(productId), hotStockStore.getStock(productId));
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("store", hotStockStore.getClass().getSimpleName());
+        stats.put("stocks", stocks);
+        stats.put("appliedCount", appliedCount.sum());
+        stats.put("rejectedCount", rejectedCount.sum());
+        stats.put("compensatedCount", compensatedCount.sum());
+        stats.put("flushCount", flushCount.sum());
+        stats.put("flushFailedCount", flushFailedCount.sum());
+        stats.put("lastFlushTime", lastFlushTime.get());
+        stats.put("driftCount", driftCount.sum());
+        stats.put("lastReconcileTime", lastReconcileTime.get());
+        return stats;
+    }
+
+    private int loadStock(Integer productId) {
+        Product product = productMapper.selectOne(new LambdaQueryWrapper<Product>()
+                .select(Product::getId, Product::getStock)
+                .eq(Product::getId, productId));
+        if (product == null) {
+            throw new ServerException("商品不存在");
+        }
+        return product.getStock();
+    }
+}
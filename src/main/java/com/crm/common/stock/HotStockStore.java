@@ -0,0 +1,105 @@
+package com.crm.common.stock;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 热点商品库存计数器
+ * 热点商品的库存以计数器为准，扣减量同时记入待同步增量，由 HotStockManager 定期批量写回数据库
+ *
+ * @author crm
+ */
+public interface HotStockStore {
+
+    /**
+     * 热点商品ID
+     */
+    Set<Integer> getHotProductIds();
+
+    /**
+     * 标记为热点商品，并设置库存计数器
+     */
+    void enable(Integer productId, int stock);
+
+    /**
+     * 取消热点标记，删除库存计数器，调用前需先同步待写回的增量
+     */
+    void disable(Integer productId);
+
+    /**
+     * 当前库存计数器，不存在返回 null
+     */
+    Integer getStock(Integer productId);
+
+    /**
+     * 设置库存计数器，用于对账
+     */
+    void setStock(Integer productId, int stock);
+
+    /**
+     * 只调整库存计数器，不记录待写回增量，计数器不存在时不创建
+     *
+     * @param delta 调整数量，正数增加库存
+     */
+    void adjustStock(Integer productId, int delta);
+
+    /**
+     * 同时读取库存计数器和该商品待写回的增量，用于对账，计数器不存在返回 null
+     */
+    StockSnapshot snapshot(Integer productId);
+
+    /**
+     * 原子扣减，全部商品库存充足时才扣减
+     *
+     * @param deltas 商品ID -> 扣减数量，负数表示退回
+     * @return 失败的商品ID -> 剩余库存，计数器不存在时为 -1；全部成功返回空 Map
+     */
+    Map<Integer, Integer> tryApply(Map<Integer, Integer> deltas);
+
+    /**
+     * 不检查库存直接调整，用于事务回滚后的补偿
+     */
+    void forceApply(Map<Integer, Integer> deltas);
+
+    /**
+     * 取出待写回数据库的增量，取出后新的扣减记入下一批；没有增量时返回 null
+     * 取出的批次在写回成功后调用 ackPending 删除，失败时调用 restorePending 放回
+     */
+    PendingBatch drainPending();
+
+    /**
+     * 写回数据库成功后删除该批次
+     */
+    void ackPending(PendingBatch batch);
+
+    /**
+     * 写回失败时把该批次放回待写回的增量
+     */
+    void restorePending(PendingBatch batch);
+
+    /**
+     * 回收取出后超时仍未删除的批次（写回期间节点宕机遗留），由调用方重新写回
+     *
+     * @param timeoutMillis 取出后超过该时间视为遗留
+     */
+    List<PendingBatch> reclaimPending(long timeoutMillis);
+
+    /**
+     * 库存快照
+     *
+     * @param stock   库存计数器
+     * @param pending 待写回数据库的扣减数量
+     */
+    record StockSnapshot(int stock, int pending) {
+    }
+
+    /**
+     * 一批待写回的增量
+     *
+     * @param id     批次标识，本地计数器没有批次标识
+     * @param deltas 商品ID -> 扣减数量，负数表示退回
+     */
+    record PendingBatch(String id, Map<Integer, Integer> deltas) {
+    }
+}
@@ -0,0 +1,151 @@
+package com.crm.common.stock;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 本地热点库存计数器，只适用于单节点部署
+ *
+ * @author crm
+ */
+@Component
+@ConditionalOnProperty(name = "product.hot-stock.store", havingValue = "local")
+public class LocalHotStockStore implements HotStockStore {
+    private final Map<Integer, AtomicInteger> stocks = new ConcurrentHashMap<>();
+    /**
+     * 待写回增量，LongAdder 分段累加，高并发下不会在同一个变量上竞争
+     */
+    private final Map<Integer, LongAdder> pending = new ConcurrentHashMap<>();
+
+    @Override
+    public Set<Integer> getHotProductIds() {
+        return new HashSet<>(stocks.keySet());
+    }
+
+    @Override
+    public void enable(Integer productId, int stock) {
+        setStock(productId, stock);
+    }
+
+    @Override
+    public void disable(Integer productId) {
+        stocks.remove(productId);
+    }
+
+    @Override
+    public Integer getStock(Integer productId) {
+        AtomicInteger stock = stocks.get(productId);
+        return stock == null ? null : stock.get();
+    }
+
+    @Override
+    public void setStock(Integer productId, int stock) {
+        stocks.computeIfAbsent(productId, id -> new AtomicInteger()).set(stock);
+    }
+
+    @Override
+    public void adjustStock(Integer productId, int delta) {
+        AtomicInteger stock = stocks.get(productId);
+        if (stock != null) {
+            stock.addAndGet(delta);
+        }
+    }
+
+    @Override
+    public StockSnapshot snapshot(Integer productId) {
+        AtomicInteger stock = stocks.get(productId);
+        if (stock == null) {
+            return null;
+        }
+        LongAdder adder = pending.get(productId);
+        return new StockSnapshot(stock.get(), adder == null ? 0 : (int) adder.sum());
+    }
+
+    @Override
+    public Map<Integer, Integer> tryApply(Map<Integer, Integer> deltas) {
+        Map<Integer, Integer> failed = new HashMap<>();
+        List<Map.Entry<Integer, Integer>> applied = new ArrayList<>(deltas.size());
+        for (Map.Entry<Integer, Integer> entry : deltas.entrySet()) {
+            AtomicInteger stock = stocks.get(entry.getKey());
+            if (stock == null) {
+                failed.put(entry.getKey(), -1);
+                break;
+            }
+            int count = entry.getValue();
+            int current;
+            do {
+                current = stock.get();
+                if (count > 0 && current < count) {
+                    failed.put(entry.getKey(), current);
+                    break;
+                }
+            } while (!stock.compareAndSet(current, current - count));
+            if (!failed.isEmpty()) {
+                break;
+            }
+            applied.add(entry);
+        }
+        if (!failed.isEmpty()) {
+            // 部分扣减失败，退回已扣减的商品
+            applied.forEach(entry -> stocks.get(entry.getKey()).addAndGet(entry.getValue()));
+            return failed;
+        }
+        applied.forEach(entry -> addPending(entry.getKey(), entry.getValue()));
+        return failed;
+    }
+
+    @Override
+    public void forceApply(Map<Integer, Integer> deltas) {
+        deltas.forEach((productId, count) -> {
+            AtomicInteger stock = stocks.get(productId);
+            if (stock != null) {
+                stock.addAndGet(-count);
+            }
+            addPending(productId, count);
+        });
+    }
+
+    @Override
+    public PendingBatch drainPending() {
+        Map<Integer, Integer> drained = new HashMap<>();
+        pending.forEach((productId, adder) -> {
+            // 减去已取出的部分，而不是 reset，避免丢失并发写入的增量
+            int count = (int) adder.sum();
+            if (count != 0) {
+                adder.add(-count);
+                drained.put(productId, count);
+            }
+        });
+        return drained.isEmpty() ? null : new PendingBatch(null, drained);
+    }
+
+    @Override
+    public void ackPending(PendingBatch batch) {
+        // 已在取出时从待写回增量中减去
+    }
+
+    @Override
+    public void restorePending(PendingBatch batch) {
+        batch.deltas().forEach(this::addPending);
+    }
+
+    @Override
+    public List<PendingBatch> reclaimPending(long timeoutMillis) {
+        // 计数器与进程共存亡，不存在遗留批次
+        return List.of();
+    }
+
+    private void addPending(Integer productId, int count) {
+        pending.computeIfAbsent(productId, id -> new LongAdder()).add(count);
+    }
+}
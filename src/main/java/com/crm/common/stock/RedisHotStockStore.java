@@ -0,0 +1,270 @@
+package com.crm.common.stock;
+
+import com.crm.common.cache.RedisKeys;
+import jakarta.annotation.Resource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Redis 热点库存计数器，多节点共享
+ * 使用 StringRedisTemplate，计数器以数字字符串保存，便于 Lua 脚本直接运算
+ *
+ * @author crm
+ */
+@Component
+@ConditionalOnProperty(name = "product.hot-stock.store", havingValue = "redis", matchIfMissing = true)
+public class RedisHotStockStore implements HotStockStore {
+    /**
+     * KEYS：库存计数器...，待写回增量 Hash；ARGV：扣减数量...，商品ID...
+     * 先检查全部商品，全部充足时再扣减并累加待写回增量
+     */
+    private static final DefaultRedisScript<List> TRY_APPLY_SCRIPT = new DefaultRedisScript<>("""
+            local n = #KEYS - 1
+            local failed = {}
+            for i = 1, n do
+                local stock = tonumber(redis.call('GET', KEYS[i]))
+                local delta = tonumber(ARGV[i])
+                if stock == nil then
+                    table.insert(failed, tonumber(ARGV[n + i]))
+                    table.insert(failed, -1)
+                elseif delta > 0 and stock < delta then
+                    table.insert(failed, tonumber(ARGV[n + i]))
+                    table.insert(failed, stock)
+                end
+            end
+            if #failed > 0 then
+                return failed
+            end
+            for i = 1, n do
+                redis.call('DECRBY', KEYS[i], ARGV[i])
+                redis.call('HINCRBY', KEYS[n + 1], ARGV[n + i], ARGV[i])
+            end
+            return failed
+            """, List.class);
+
+    /**
+     * KEYS：库存计数器...，待写回增量 Hash；ARGV：调整数量...，商品ID...
+     * 计数器已删除的商品只记录待写回增量，不重新创建计数器
+     */
+    private static final DefaultRedisScript<Long> FORCE_APPLY_SCRIPT = new DefaultRedisScript<>("""
+            local n = #KEYS - 1
+            for i = 1, n do
+                if redis.call('EXISTS', KEYS[i]) == 1 then
+                    redis.call('DECRBY', KEYS[i], ARGV[i])
+                end
+                redis.call('HINCRBY', KEYS[n + 1], ARGV[n + i], ARGV[i])
+            end
+            return n
+            """, Long.class);
+
+    /**
+     * KEYS：库存计数器；ARGV：调整数量
+     */
+    private static final DefaultRedisScript<Long> ADJUST_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('EXISTS', KEYS[1]) == 1 then
+                return redis.call('INCRBY', KEYS[1], ARGV[1])
+            end
+            return nil
+            """, Long.class);
+
+    /**
+     * KEYS：库存计数器，待写回增量 Hash；ARGV：商品ID
+     * 在同一个脚本中读取，两者之间不会插入扣减
+     */
+    private static final DefaultRedisScript<List> SNAPSHOT_SCRIPT = new DefaultRedisScript<>("""
+            local stock = redis.call('GET', KEYS[1])
+            if not stock then
+                return nil
+            end
+            local pending = redis.call('HGET', KEYS[2], ARGV[1])
+            return {tonumber(stock), tonumber(pending or '0')}
+            """, List.class);
+
+    /**
+     * KEYS：待写回增量 Hash，批次 Hash，批次集合；ARGV：当前时间
+     * 待写回增量改名为批次，写回数据库成功后才删除，期间宕机由其他节点回收
+     */
+    private static final DefaultRedisScript<List> DRAIN_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('EXISTS', KEYS[1]) == 0 then
+                return {}
+            end
+            redis.call('RENAME', KEYS[1], KEYS[2])
+            redis.call('ZADD', KEYS[3], ARGV[1], KEYS[2])
+            return redis.call('HGETALL', KEYS[2])
+            """, List.class);
+
+    /**
+     * KEYS：批次 Hash，批次集合
+     */
+    private static final DefaultRedisScript<Long> ACK_SCRIPT = new DefaultRedisScript<>("""
+            redis.call('ZREM', KEYS[2], KEYS[1])
+            return redis.call('DEL', KEYS[1])
+            """, Long.class);
+
+    /**
+     * KEYS：批次 Hash，待写回增量 Hash，批次集合
+     * 批次已被回收时不再放回，避免重复写回
+     */
+    private static final DefaultRedisScript<Long> RESTORE_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('ZREM', KEYS[3], KEYS[1]) == 0 then
+                return 0
+            end
+            local entries = redis.call('HGETALL', KEYS[1])
+            for i = 1, #entries, 2 do
+                redis.call('HINCRBY', KEYS[2], entries[i], entries[i + 1])
+            end
+            redis.call('DEL', KEYS[1])
+            return 1
+            """, Long.class);
+
+    /**
+     * KEYS：批次集合；ARGV：超时时间点，当前时间
+     * 取出超时的批次并刷新取出时间，多个节点同时回收时只有一个节点拿到
+     */
+    private static final DefaultRedisScript<List> RECLAIM_SCRIPT = new DefaultRedisScript<>("""
+            local batches = redis.call('ZRANGEBYSCORE', KEYS[1], '-inf', ARGV[1])
+            for _, batch in ipairs(batches) do
+                redis.call('ZADD', KEYS[1], ARGV[2], batch)
+            end
+            return batches
+            """, List.class);
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Override
+    public Set<Integer> getHotProductIds() {
+        Set<String> members = stringRedisTemplate.opsForSet().members(RedisKeys.getHotStockIdsKey());
+        Set<Integer> ids = new HashSet<>();
+        if (members != null) {
+            members.forEach(id -> ids.add(Integer.valueOf(id)));
+        }
+        return ids;
+    }
+
+    @Override
+    public void enable(Integer productId, int stock) {
+        setStock(productId, stock);
+        stringRedisTemplate.opsForSet().add(RedisKeys.getHotStockIdsKey(), String.valueOf(productId));
+    }
+
+    @Override
+    public void disable(Integer productId) {
+        stringRedisTemplate.opsForSet().remove(RedisKeys.getHotStockIdsKey(), String.valueOf(productId));
+        stringRedisTemplate.delete(RedisKeys.getHotStockKey(productId));
+    }
+
+    @Override
+    public Integer getStock(Integer productId) {
+        String value = stringRedisTemplate.opsForValue().get(RedisKeys.getHotStockKey(productId));
+        return value == null ? null : Integer.valueOf(value);
+    }
+
+    @Override
+    public void setStock(Integer productId, int stock) {
+        stringRedisTemplate.opsForValue().set(RedisKeys.getHotStockKey(productId), String.valueOf(stock));
+    }
+
+    @Override
+    public void adjustStock(Integer productId, int delta) {
+        stringRedisTemplate.execute(ADJUST_SCRIPT, List.of(RedisKeys.getHotStockKey(productId)), String.valueOf(delta));
+    }
+
+    @Override
+    public StockSnapshot snapshot(Integer productId) {
+        List<?> values = stringRedisTemplate.execute(SNAPSHOT_SCRIPT,
+                List.of(RedisKeys.getHotStockKey(productId), RedisKeys.getHotStockPendingKey()), String.valueOf(productId));
+        if (values == null || values.size() < 2) {
+            return null;
+        }
+        return new StockSnapshot(Integer.parseInt(String.valueOf(values.get(0))), Integer.parseInt(String.valueOf(values.get(1))));
+    }
+
+    @Override
+    public Map<Integer, Integer> tryApply(Map<Integer, Integer> deltas) {
+        List<?> failed = execute(TRY_APPLY_SCRIPT, deltas);
+        return toMap(failed);
+    }
+
+    @Override
+    public void forceApply(Map<Integer, Integer> deltas) {
+        execute(FORCE_APPLY_SCRIPT, deltas);
+    }
+
+    @Override
+    public PendingBatch drainPending() {
+        String key = RedisKeys.getHotStockProcessingKey(UUID.randomUUID().toString());
+        List<?> pending = stringRedisTemplate.execute(DRAIN_SCRIPT,
+                List.of(RedisKeys.getHotStockPendingKey(), key, RedisKeys.getHotStockProcessingSetKey()),
+                String.valueOf(System.currentTimeMillis()));
+        return pending == null || pending.isEmpty() ? null : new PendingBatch(key, toMap(pending));
+    }
+
+    @Override
+    public void ackPending(PendingBatch batch) {
+        stringRedisTemplate.execute(ACK_SCRIPT, List.of(batch.id(), RedisKeys.getHotStockProcessingSetKey()));
+    }
+
+    @Override
+    public void restorePending(PendingBatch batch) {
+        stringRedisTemplate.execute(RESTORE_SCRIPT,
+                List.of(batch.id(), RedisKeys.getHotStockPendingKey(), RedisKeys.getHotStockProcessingSetKey()));
+    }
+
+    @Override
+    public List<PendingBatch> reclaimPending(long timeoutMillis) {
+        long now = System.currentTimeMillis();
+        List<?> keys = stringRedisTemplate.execute(RECLAIM_SCRIPT, List.of(RedisKeys.getHotStockProcessingSetKey()),
+                String.valueOf(now - timeoutMillis), String.valueOf(now));
+        List<PendingBatch> batches = new ArrayList<>();
+        if (keys == null) {
+            return batches;
+        }
+        for (Object key : keys) {
+            Map<Object, Object> entries = stringRedisTemplate.opsForHash().entries(String.valueOf(key));
+            Map<Integer, Integer> deltas = new HashMap<>();
+            entries.forEach((productId, count) -> deltas.put(Integer.valueOf(String.valueOf(productId)), Integer.valueOf(String.valueOf(count))));
+            batches.add(new PendingBatch(String.valueOf(key), deltas));
+        }
+        return batches;
+    }
+
+    /**
+     * 按脚本约定组装参数：KEYS 为各商品的计数器和待写回增量 Hash，ARGV 为各商品的数量和商品ID
+     */
+    private <T> T execute(DefaultRedisScript<T> script, Map<Integer, Integer> deltas) {
+        List<String> keys = new ArrayList<>(deltas.size() + 1);
+        List<String> args = new ArrayList<>(deltas.size() * 2);
+        deltas.forEach((productId, count) -> {
+            keys.add(RedisKeys.getHotStockKey(productId));
+            args.add(String.valueOf(count));
+        });
+        deltas.keySet().forEach(productId -> args.add(String.valueOf(productId)));
+        keys.add(RedisKeys.getHotStockPendingKey());
+        return stringRedisTemplate.execute(script, keys, args.toArray());
+    }
+
+    /**
+     * [key1, value1, key2, value2...] 转为 Map
+     */
+    private static Map<Integer, Integer> toMap(List<?> list) {
+        Map<Integer, Integer> map = new HashMap<>();
+        if (list == null) {
+            return map;
+        }
+        for (int i = 0; i + 1 < list.size(); i += 2) {
+            map.merge(Integer.valueOf(String.valueOf(list.get(i))), Integer.valueOf(String.valueOf(list.get(i + 1))), Integer::sum);
+        }
+        return map;
+    }
+}
@@ -6,9 +6,11 @@ import com.crm.common.result.Result;
 import com.crm.enums.BusinessType;
 import com.crm.enums.ContractStatusEnum;
 import com.crm.query.ApprovalQuery;
+import com.crm.query.ContractBatchApprovalQuery;
 import com.crm.query.ContractQuery;
 import com.crm.query.IdQuery;
 import com.crm.service.ContractService;
+import com.crm.vo.ContractApprovalResultVO;
 import com.crm.vo.ContractTrendPieVO;
 import com.crm.vo.ContractVO;
 import io.swagger.v3.oas.annotations.Operation;
@@ -76,4 +78,11 @@ public class ContractController {
         contractService.approvalContract(query);
         return Result.ok();
     }
+
+    @PostMapping("/batchApprovalContract")
+    @Operation(summary = "合同批量审批")
+    @Log(title = "合同批量审批", businessType = BusinessType.INSERT_OR_UPDATE)
+    public Result<List<ContractApprovalResultVO>> batchApprovalContract(@RequestBody @Validated ContractBatchApprovalQuery query) {
+        return Result.ok(contractService.batchApprovalContract(query));
+    }
 }
\ No newline at end of file
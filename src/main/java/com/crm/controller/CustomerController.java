@@ -15,6 +15,7 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.AllArgsConstructor;
+import org.springframework.web.multipart.MultipartFile;
 
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
@@ -70,6 +71,19 @@ public class CustomerController {
         customerService.exportCustomer(query, response);
     }
 
+    @PostMapping("exportAsync")
+    @Operation(summary = "客户列表-异步导出，返回导出任务ID")
+    @Log(title = "客户列表-异步导出参数", businessType = BusinessType.EXPORT)
+    public Result<String> exportCustomerAsync(@RequestBody CustomerQuery query) {
+        return Result.ok(customerService.submitExport(query));
+    }
+
+    @PostMapping("import")
+    @Operation(summary = "客户导入，返回导入任务ID，完成后可下载错误报告")
+    public Result<String> importCustomer(@RequestParam("file") MultipartFile file) {
+        return Result.ok(customerService.submitImport(file));
+    }
+
     @PostMapping("saveOrUpdate")
     @Operation(summary = "保存或更新客户")
     @Log(title = "保存或更新客户参数", businessType = BusinessType.INSERT)
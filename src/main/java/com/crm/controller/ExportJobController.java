@@ -0,0 +1,44 @@
+package com.crm.controller;
+
+import com.crm.common.export.ExportJobManager;
+import com.crm.common.result.Result;
+import com.crm.query.ExportJobQuery;
+import com.crm.vo.ExportJobVO;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.AllArgsConstructor;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * <p>
+ * 异步导出任务 前端控制器
+ * </p>
+ *
+ * @author crm
+ */
+@Tag(name = "导出任务")
+@RestController
+@RequestMapping("export/job")
+@AllArgsConstructor
+public class ExportJobController {
+    private final ExportJobManager exportJobManager;
+
+    @GetMapping("progress")
+    @Operation(summary = "导出任务进度")
+    public Result<ExportJobVO> progress(@ModelAttribute @Validated ExportJobQuery query) {
+        return Result.ok(exportJobManager.get(query.getJobId()).toVO());
+    }
+
+    @GetMapping("download")
+    @Operation(summary = "下载导出文件")
+    public void download(@ModelAttribute @Validated ExportJobQuery query, HttpServletRequest request,
+                         HttpServletResponse response) throws Exception {
+        exportJobManager.download(query.getJobId(), request, response);
+    }
+}
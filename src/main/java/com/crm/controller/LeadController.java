@@ -16,7 +16,9 @@ import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
 
 /**
  * 线索管理
@@ -61,4 +63,10 @@ public class LeadController {
         return Result.ok();
     }
 
+    @PostMapping("import")
+    @Operation(summary = "线索导入，返回导入任务ID，完成后可下载错误报告")
+    public Result<String> importLead(@RequestParam("file") MultipartFile file) {
+        return Result.ok(leadService.submitImport(file));
+    }
+
 }
\ No newline at end of file
@@ -4,6 +4,8 @@ import com.crm.common.aop.Log;
 import com.crm.common.result.Result;
 import com.crm.enums.BusinessType;
 import com.crm.query.PaymentApprovalQuery;
+import com.crm.query.PaymentBatchReviewQuery;
+import com.crm.query.PaymentPendingQuery;
 import com.crm.query.PaymentQuery;
 import com.crm.service.PaymentService;
 import com.crm.vo.PaymentVO;
@@ -32,15 +34,30 @@ public class PaymentController {
     private static final Logger log = LoggerFactory.getLogger(PaymentController.class);
 
     /**
-     * 查询待审核回款列表
+     * 查询待审核回款列表，按支付时间顺序翻页，传入上一页最后一条的支付时间和ID获取下一页
      * 对应前端：/approval/payment/pending（GET 方法）
      */
     @GetMapping("/pending")
     @Operation(summary = "待审核回款列表") // 接口文档摘要
     @Log(title = "待审核回款查询", businessType = BusinessType.SELECT) // 日志注解，对齐合同管理
-    public Result<?> listPendingApproval() {
-        log.info("查询待审核回款列表");
-        return Result.ok(paymentService.listPendingApproval());
+    public Result<?> listPendingApproval(@ModelAttribute @Validated PaymentPendingQuery query) {
+        log.info("查询待审核回款列表：afterPaymentTime={}, afterId={}, limit={}",
+                query.getAfterPaymentTime(), query.getAfterId(), query.getLimit());
+        return Result.ok(paymentService.listPendingApproval(query));
+    }
+
+    /**
+     * 回款批量审核，每条回款携带查询时的版本号，已被修改或已审核的回款返回失败原因
+     * 对应前端：/approval/payment/batchReview（POST 方法）
+     */
+    @PostMapping("/batchReview")
+    @Operation(summary = "回款批量审核（通过/驳回）")
+    @Log(title = "回款批量审核", businessType = BusinessType.INSERT_OR_UPDATE)
+    public Result<?> batchReview(
+            @Parameter(description = "回款批量审核参数")
+            @RequestBody @Validated PaymentBatchReviewQuery query) {
+        log.info("回款批量审核：{} 条", query.getItems().size());
+        return Result.ok(paymentService.batchReview(query));
     }
 
     /**
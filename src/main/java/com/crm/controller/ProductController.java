@@ -3,8 +3,10 @@ package com.crm.controller;
 import com.crm.common.aop.Log;
 import com.crm.common.result.PageResult;
 import com.crm.common.result.Result;
+import com.crm.common.stock.HotStockManager;
 import com.crm.entity.Product;
 import com.crm.enums.BusinessType;
+import com.crm.query.IdQuery;
 import com.crm.query.ProductQuery;
 import com.crm.service.ProductService;
 import io.swagger.annotations.Api;
@@ -27,6 +29,7 @@ import org.springframework.web.bind.annotation.*;
 @AllArgsConstructor
 public class ProductController {
     private final ProductService productService;
+    private final HotStockManager hotStockManager;
 
     @PostMapping("page")
     @Operation(summary = "分⻚查询")
@@ -41,4 +44,20 @@ public class ProductController {
         productService.saveOrEdit(product);
         return Result.ok();
     }
+
+    @PostMapping("hotStock/enable")
+    @Operation(summary = "标记为热点商品")
+    @Log(title = "商品管理", businessType = BusinessType.UPDATE)
+    public Result<Void> enableHotStock(@RequestBody @Validated IdQuery query) {
+        hotStockManager.enable(query.getId());
+        return Result.ok();
+    }
+
+    @PostMapping("hotStock/disable")
+    @Operation(summary = "取消热点商品")
+    @Log(title = "商品管理", businessType = BusinessType.UPDATE)
+    public Result<Void> disableHotStock(@RequestBody @Validated IdQuery query) {
+        hotStockManager.disable(query.getId());
+        return Result.ok();
+    }
 }
@@ -14,6 +14,8 @@ import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -39,9 +41,12 @@ public class SysMenuController {
 
     @PostMapping("nav")
     @Operation(summary = "用户菜单")
-    public Result<List<SysMenuVO>> nav() {
+    public ResponseEntity<byte[]> nav() {
         ManagerDetail manager = SecurityUser.getManager();
-        return Result.ok(sysMenuService.getManagerMenuList(manager, MenuTypeEnum.BUTTON.name()));
+        // 直接返回缓存的 JSON，跳过树构建和序列化
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(sysMenuService.getManagerMenuJson(manager, MenuTypeEnum.BUTTON.name()));
     }
 
     @PostMapping("button")
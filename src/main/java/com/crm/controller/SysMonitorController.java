@@ -0,0 +1,87 @@
+package com.crm.controller;
+
+import com.crm.common.cache.MenuTreeCache;
+import com.crm.common.export.ExportJobManager;
+import com.crm.common.log.AccessLogWriter;
+import com.crm.common.mail.MailDeliveryWorker;
+import com.crm.common.page.PageCountCache;
+import com.crm.common.result.Result;
+import com.crm.common.sequence.SerialNumberGenerator;
+import com.crm.common.stock.HotStockManager;
+import com.crm.security.cache.LocalTokenCache;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.AllArgsConstructor;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * <p>
+ * 系统监控 前端控制器
+ * </p>
+ */
+@Tag(name = "系统监控")
+@RestController
+@RequestMapping("/sys/monitor")
+@AllArgsConstructor
+public class SysMonitorController {
+    private final LocalTokenCache localTokenCache;
+    private final AccessLogWriter accessLogWriter;
+    private final MenuTreeCache menuTreeCache;
+    private final HotStockManager hotStockManager;
+    private final MailDeliveryWorker mailDeliveryWorker;
+    private final SerialNumberGenerator serialNumberGenerator;
+    private final ExportJobManager exportJobManager;
+    private final PageCountCache pageCountCache;
+
+    @PostMapping("tokenCache")
+    @Operation(summary = "登录用户本地缓存统计")
+    public Result<Map<String, Object>> tokenCache() {
+        return Result.ok(localTokenCache.stats());
+    }
+
+    @PostMapping("accessLog")
+    @Operation(summary = "访问日志统计")
+    public Result<Map<String, Object>> accessLog() {
+        return Result.ok(accessLogWriter.stats());
+    }
+
+    @PostMapping("menuCache")
+    @Operation(summary = "用户菜单缓存统计")
+    public Result<Map<String, Object>> menuCache() {
+        return Result.ok(menuTreeCache.stats());
+    }
+
+    @PostMapping("hotStock")
+    @Operation(summary = "热点商品库存统计")
+    public Result<Map<String, Object>> hotStock() {
+        return Result.ok(hotStockManager.stats());
+    }
+
+    @PostMapping("mailOutbox")
+    @Operation(summary = "邮件发件箱统计")
+    public Result<Map<String, Object>> mailOutbox() {
+        return Result.ok(mailDeliveryWorker.stats());
+    }
+
+    @PostMapping("sequence")
+    @Operation(summary = "业务编号号段统计")
+    public Result<Map<String, Object>> sequence() {
+        return Result.ok(serialNumberGenerator.stats());
+    }
+
+    @PostMapping("exportJob")
+    @Operation(summary = "异步导出任务统计")
+    public Result<Map<String, Object>> exportJob() {
+        return Result.ok(exportJobManager.stats());
+    }
+
+    @PostMapping("pageCount")
+    @Operation(summary = "分页总数缓存统计")
+    public Result<Map<String, Object>> pageCount() {
+        return Result.ok(pageCountCache.stats());
+    }
+}
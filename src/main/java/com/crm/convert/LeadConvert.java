@@ -0,0 +1,14 @@
+package com.crm.convert;
+
+import com.crm.entity.Lead;
+import com.crm.vo.LeadImportVO;
+
+import org.mapstruct.Mapper;
+import org.mapstruct.factory.Mappers;
+
+@Mapper
+public interface LeadConvert {
+    LeadConvert INSTANCE = Mappers.getMapper(LeadConvert.class);
+
+    Lead convert(LeadImportVO leadImportVO);
+}
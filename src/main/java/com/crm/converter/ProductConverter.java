@@ -20,8 +20,16 @@ public class ProductConverter implements Converter<Integer> {
 
     @Override
     public Integer convertToJavaData(com.alibaba.excel.metadata.data.ReadCellData<?> cellData, ExcelContentProperty contentProperty, GlobalConfiguration globalConfiguration) {
-        // 可根据实际需求实现读取转换逻辑
-        return null;
+        String statusText = cellData.getStringValue();
+        if (statusText == null) {
+            return null;
+        }
+        switch (statusText.trim()) {
+            case "下架": return 0;
+            case "上架": return 1;
+            case "预售": return 2;
+            default: return null;
+        }
     }
 
     @Override
@@ -0,0 +1,34 @@
+package com.crm.entity;
+
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableName;
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * <p>
+ * 合同状态计数
+ * </p>
+ *
+ * @author crm
+ */
+@Getter
+@Setter
+@TableName("t_contract_status_count")
+@ApiModel(value = "ContractStatusCount对象", description = "合同状态计数")
+public class ContractStatusCount {
+
+    @ApiModelProperty("负责人ID")
+    @TableField("owner_id")
+    private Integer ownerId;
+
+    @ApiModelProperty("合同状态")
+    @TableField("status")
+    private Integer status;
+
+    @ApiModelProperty("合同数量")
+    @TableField("count")
+    private Integer count;
+}
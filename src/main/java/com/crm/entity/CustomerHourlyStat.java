@@ -0,0 +1,44 @@
+package com.crm.entity;
+
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableName;
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * <p>
+ * 客户新增小时汇总
+ * </p>
+ *
+ * @author crm
+ */
+@Getter
+@Setter
+@TableName("t_customer_hourly_stat")
+@ApiModel(value = "CustomerHourlyStat对象", description = "客户新增小时汇总")
+public class CustomerHourlyStat {
+
+    @ApiModelProperty("创建时间所在小时")
+    @TableField("stat_hour")
+    private LocalDateTime statHour;
+
+    @ApiModelProperty("负责人ID，无负责人为 0")
+    @TableField("owner_id")
+    private Integer ownerId;
+
+    @ApiModelProperty("客户来源，未填写为 -1")
+    @TableField("source")
+    private Integer source;
+
+    @ApiModelProperty("客户级别，未填写为 -1")
+    @TableField("level")
+    private Integer level;
+
+    @ApiModelProperty("客户数量")
+    @TableField("create_count")
+    private Integer createCount;
+}
@@ -0,0 +1,37 @@
+package com.crm.entity;
+
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * <p>
+ * 增量任务水位
+ * </p>
+ *
+ * @author crm
+ */
+@Getter
+@Setter
+@TableName("t_job_watermark")
+@ApiModel(value = "JobWatermark对象", description = "增量任务水位")
+public class JobWatermark {
+
+    @ApiModelProperty("任务名")
+    @TableId("job_name")
+    private String jobName;
+
+    @ApiModelProperty("已处理数据的最大时间")
+    @TableField("last_time")
+    private LocalDateTime lastTime;
+
+    @ApiModelProperty("同一时间下已处理数据的最大ID")
+    @TableField("last_id")
+    private Long lastId;
+}
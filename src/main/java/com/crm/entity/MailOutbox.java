@@ -0,0 +1,79 @@
+package com.crm.entity;
+
+import com.baomidou.mybatisplus.annotation.FieldFill;
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * <p>
+ * 邮件发件箱
+ * </p>
+ *
+ * @author crm
+ */
+@Getter
+@Setter
+@TableName("t_mail_outbox")
+@ApiModel(value = "MailOutbox对象", description = "邮件发件箱")
+public class MailOutbox {
+
+    @ApiModelProperty("主键")
+    @TableId(value = "id", type = IdType.AUTO)
+    private Long id;
+
+    @ApiModelProperty("业务唯一标识")
+    @TableField("biz_key")
+    private String bizKey;
+
+    @ApiModelProperty("收件人")
+    @TableField("to_address")
+    private String toAddress;
+
+    @ApiModelProperty("主题")
+    @TableField("subject")
+    private String subject;
+
+    @ApiModelProperty("正文")
+    @TableField("content")
+    private String content;
+
+    @ApiModelProperty("0-待发送，1-发送中，2-已发送，3-死信")
+    @TableField("status")
+    private Integer status;
+
+    @ApiModelProperty("已尝试次数")
+    @TableField("attempts")
+    private Integer attempts;
+
+    @ApiModelProperty("下次尝试时间")
+    @TableField("next_attempt_time")
+    private LocalDateTime nextAttemptTime;
+
+    @ApiModelProperty("领取批次标识")
+    @TableField("claim_token")
+    private String claimToken;
+
+    @ApiModelProperty("最后一次失败原因")
+    @TableField("last_error")
+    private String lastError;
+
+    @ApiModelProperty("发送成功时间")
+    @TableField("sent_time")
+    private LocalDateTime sentTime;
+
+    @ApiModelProperty("创建时间")
+    @TableField(value = "create_time", fill = FieldFill.INSERT)
+    private LocalDateTime createTime;
+
+    @ApiModelProperty("更新时间")
+    @TableField(value = "update_time", fill = FieldFill.INSERT_UPDATE)
+    private LocalDateTime updateTime;
+}
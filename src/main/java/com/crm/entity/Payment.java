@@ -66,6 +66,10 @@ public class Payment {
     @TableField("payment_time")
     private LocalDateTime paymentTime;
 
+    @ApiModelProperty("版本号，每次修改加 1")
+    @TableField("version")
+    private Integer version;
+
     @ApiModelProperty("逻辑删除 0-未删除，1-已删除")
     @TableField(value = "delete_flag", fill = FieldFill.INSERT)
     @TableLogic
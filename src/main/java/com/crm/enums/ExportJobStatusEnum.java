@@ -0,0 +1,33 @@
+package com.crm.enums;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 导出任务状态
+ *
+ * @author crm
+ */
+@Getter
+@AllArgsConstructor
+public enum ExportJobStatusEnum {
+    /**
+     * 排队中
+     */
+    WAITING(0, "排队中"),
+    /**
+     * 导出中
+     */
+    RUNNING(1, "导出中"),
+    /**
+     * 已完成，可下载
+     */
+    SUCCESS(2, "已完成"),
+    /**
+     * 导出失败
+     */
+    FAILED(3, "失败");
+
+    private final int value;
+    private final String name;
+}
@@ -0,0 +1,42 @@
+package com.crm.enums;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 发件箱邮件状态
+ *
+ * @author crm
+ */
+@Getter
+@AllArgsConstructor
+public enum MailOutboxStatusEnum {
+    /**
+     * 待发送
+     */
+    PENDING(0, "待发送"),
+    /**
+     * 发送中
+     */
+    SENDING(1, "发送中"),
+    /**
+     * 已发送
+     */
+    SENT(2, "已发送"),
+    /**
+     * 超过重试次数或收件人无效，不再发送
+     */
+    DEAD(3, "死信");
+
+    private final int value;
+    private final String name;
+
+    public static String getNameByValue(int value) {
+        for (MailOutboxStatusEnum s : MailOutboxStatusEnum.values()) {
+            if (s.getValue() == value) {
+                return s.getName();
+            }
+        }
+        return "";
+    }
+}
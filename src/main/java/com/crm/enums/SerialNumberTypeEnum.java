@@ -0,0 +1,27 @@
+package com.crm.enums;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 业务编号类型
+ *
+ * @author crm
+ */
+@Getter
+@AllArgsConstructor
+public enum SerialNumberTypeEnum {
+    /**
+     * 合同编号
+     */
+    CONTRACT("contract", "HT");
+
+    /**
+     * 序列名
+     */
+    private final String sequence;
+    /**
+     * 编号前缀
+     */
+    private final String prefix;
+}
@@ -2,6 +2,9 @@ package com.crm.mapper;
 
 import com.crm.entity.Approval;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
 
 /**
  * <p>
@@ -12,5 +15,8 @@ import com.baomidou.mybatisplus.core.mapper.BaseMapper;
  * @since 2025-10-12
  */
 public interface ApprovalMapper extends BaseMapper<Approval> {
-
+    /**
+     * 多行插入审核记录，回填主键
+     */
+    int insertBatch(@Param("list") List<Approval> list);
 }
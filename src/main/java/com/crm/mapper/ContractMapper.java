@@ -1,13 +1,14 @@
 package com.crm.mapper;
 
 import com.crm.entity.Contract;
-import com.crm.vo.ContractTrendPieVO;
 import com.github.yulichang.base.MPJBaseMapper;
 import org.apache.ibatis.annotations.Param;
-import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.cursor.Cursor;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -20,15 +21,22 @@ import java.util.List;
  */
 public interface ContractMapper extends MPJBaseMapper<Contract> {
     /**
-     * 统计合同金额与回款金额（饼图数据）
+     * 流式读取水位之后、上限时间之前更新过的合同，按 (update_time, id) 排序
+     *
+     * @param afterTime  水位时间
+     * @param afterId    水位时间下已处理的最大合同ID
+     * @param beforeTime 上限时间，留出未提交事务的时间差
      */
-    List<ContractTrendPieVO> countByStatus(@Param("managerId") Integer managerId);
-
+    Cursor<Contract> selectPaymentCandidates(@Param("afterTime") LocalDateTime afterTime, @Param("afterId") Long afterId,
+                                             @Param("beforeTime") LocalDateTime beforeTime);
 
     /**
-     * 查询未生成回款的合同
+     * 批量审核，只更新仍处于审核中的合同
+     *
+     * @return 实际更新的合同数量
      */
-    @Select("SELECT * FROM t_contract WHERE delete_flag = 0 AND id NOT IN (SELECT contract_id FROM t_payment WHERE delete_flag = 0)")
-    List<Contract> selectUnGeneratedPaymentContracts();
+    int batchApprove(@Param("ids") Collection<Integer> ids, @Param("fromStatus") Integer fromStatus,
+                     @Param("toStatus") Integer toStatus, @Param("approvalContent") String approvalContent,
+                     @Param("approverId") Integer approverId, @Param("approvalTime") LocalDateTime approvalTime);
 
 }
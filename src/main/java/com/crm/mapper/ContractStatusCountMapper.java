@@ -0,0 +1,69 @@
+package com.crm.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.crm.entity.ContractStatusCount;
+import com.crm.vo.ContractTrendPieVO;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * <p>
+ * 合同状态计数 Mapper 接口
+ * </p>
+ *
+ * @author crm
+ */
+public interface ContractStatusCountMapper extends BaseMapper<ContractStatusCount> {
+    /**
+     * 锁定合同行，变更前调用，保证读取到的负责人和状态在事务提交前不被其他事务修改
+     */
+    List<Integer> lockContract(@Param("contractId") Integer contractId);
+
+    /**
+     * 按主键顺序锁定多个合同行，避免并发批量变更相互死锁
+     */
+    List<Integer> lockContracts(@Param("contractIds") Collection<Integer> contractIds);
+
+    /**
+     * 按合同当前的负责人和状态调整计数，合同已删除或缺少负责人、状态时不调整
+     *
+     * @param contractId 合同ID
+     * @param delta      调整数量，变更前传 -1，变更后传 1
+     */
+    int adjustByContract(@Param("contractId") Integer contractId, @Param("delta") int delta);
+
+    /**
+     * 按合同当前的负责人和状态批量调整计数，一条语句完成
+     *
+     * @param contractIds 合同ID
+     * @param delta       每个合同的调整数量，变更前传 -1，变更后传 1
+     */
+    int adjustByContracts(@Param("contractIds") Collection<Integer> contractIds, @Param("delta") int delta);
+
+    /**
+     * 负责人的合同状态分布
+     */
+    List<ContractTrendPieVO> selectPieData(@Param("ownerId") Integer ownerId);
+
+    /**
+     * 从合同表重新统计全部负责人的计数
+     */
+    List<ContractStatusCount> countFromContracts();
+
+    /**
+     * 锁定负责人的计数行，阻止并发的状态变更
+     */
+    List<ContractStatusCount> selectByOwnerForUpdate(@Param("ownerId") Integer ownerId);
+
+    /**
+     * 从合同表重新统计负责人的计数，读取最新提交的数据
+     */
+    List<ContractStatusCount> countFromContractsByOwner(@Param("ownerId") Integer ownerId);
+
+    /**
+     * 覆盖计数
+     */
+    int upsert(@Param("ownerId") Integer ownerId, @Param("status") Integer status, @Param("count") int count);
+}
@@ -0,0 +1,53 @@
+package com.crm.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.crm.entity.CustomerHourlyStat;
+import org.apache.ibatis.annotations.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * <p>
+ * 客户新增小时汇总 Mapper 接口
+ * </p>
+ *
+ * @author crm
+ */
+public interface CustomerHourlyStatMapper extends BaseMapper<CustomerHourlyStat> {
+    /**
+     * 按客户当前的创建时间、负责人、来源、级别批量调整汇总，一条语句完成，已删除的客户不调整
+     *
+     * @param customerIds 客户ID
+     * @param delta       调整数量，变更前传 -1，变更后传 1
+     */
+    int adjustByCustomers(@Param("customerIds") Collection<Integer> customerIds, @Param("delta") int delta);
+
+    /**
+     * 按小时汇总，只返回 statHour 和 createCount
+     */
+    List<CustomerHourlyStat> selectHourlyTrend(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    /**
+     * 按天汇总，statHour 为当天零点，只返回 statHour 和 createCount
+     */
+    List<CustomerHourlyStat> selectDailyTrend(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    /**
+     * 锁定时间范围内的汇总行
+     */
+    List<CustomerHourlyStat> selectRangeForUpdate(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    /**
+     * 以加锁读取从客户表重新统计时间范围内的汇总
+     */
+    List<CustomerHourlyStat> countFromCustomers(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    /**
+     * 最早的客户创建时间
+     */
+    LocalDateTime selectMinCreateTime();
+
+    int upsert(CustomerHourlyStat stat);
+}
@@ -2,12 +2,14 @@ package com.crm.mapper;
 
 import com.crm.entity.Customer;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
-import com.crm.query.CustomerTrendQuery;
-import com.crm.vo.CustomerTrendVO;
+import com.crm.query.CustomerQuery;
+import com.crm.vo.CustomerVO;
 import com.github.yulichang.base.MPJBaseMapper;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.cursor.Cursor;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -19,9 +21,26 @@ import java.util.List;
  * @since 2025-10-12
  */
 public interface CustomerMapper extends MPJBaseMapper<Customer> {
-    List<CustomerTrendVO> getTradeStatistics(@Param("query")CustomerTrendQuery  query);
-    List<CustomerTrendVO> getTradeStatisticsByDay(@Param("query")CustomerTrendQuery  query);
-    List<CustomerTrendVO> getTradeStatisticsByWeek(@Param("query")CustomerTrendQuery  query);
     int countByCreateDate(@Param("date") LocalDate date);
 
+    /**
+     * 流式读取导出的客户，条件与分页查询一致
+     */
+    Cursor<CustomerVO> selectExportCursor(@Param("query") CustomerQuery query);
+
+    /**
+     * 导出的客户数
+     */
+    long countExport(@Param("query") CustomerQuery query);
+
+    /**
+     * 已存在的手机号
+     */
+    List<String> selectExistingPhones(@Param("phones") Collection<String> phones);
+
+    /**
+     * 批量写入，一批一条 INSERT，手机号已存在时整条语句失败
+     */
+    int insertBatch(@Param("list") List<Customer> list);
+
 }
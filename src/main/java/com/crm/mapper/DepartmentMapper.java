@@ -2,6 +2,10 @@ package com.crm.mapper;
 
 import com.crm.entity.Department;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.Collection;
+import java.util.List;
 
 /**
  * <p>
@@ -12,5 +16,70 @@ import com.baomidou.mybatisplus.core.mapper.BaseMapper;
  * @since 2025-10-12
  */
 public interface DepartmentMapper extends BaseMapper<Department> {
+    /**
+     * 新增部门的闭包关系：复制上级部门的所有祖先，再加上自身
+     *
+     * @param id       部门ID
+     * @param parentId 上级部门ID，没有上级时只写入自身
+     */
+    int insertClosure(@Param("id") Integer id, @Param("parentId") Integer parentId);
+
+    /**
+     * 删除子树与子树外祖先之间的关系，用于移动子树
+     *
+     * @param id 子树根部门ID
+     */
+    int deleteClosureLinks(@Param("id") Integer id);
+
+    /**
+     * 建立子树与新上级部门及其祖先之间的关系，用于移动子树
+     *
+     * @param id       子树根部门ID
+     * @param parentId 新上级部门ID
+     */
+    int insertClosureLinks(@Param("id") Integer id, @Param("parentId") Integer parentId);
+
+    /**
+     * 删除部门的所有闭包关系
+     *
+     * @param idList 部门ID列表
+     */
+    int deleteClosure(@Param("idList") Collection<Integer> idList);
+
+    /**
+     * 查询子树中的部门ID，包含自身
+     *
+     * @param id 部门ID
+     */
+    List<Integer> selectSubtreeIds(@Param("id") Integer id);
+
+    /**
+     * 查询所有祖先部门ID，从直接上级到根部门
+     *
+     * @param id 部门ID
+     */
+    List<Integer> selectAncestorIds(@Param("id") Integer id);
+
+    /**
+     * 查询多个子树中的部门，不包含根部门自身
+     *
+     * @param rootIdList 根部门ID列表
+     * @param name       部门名称，为空时不过滤
+     */
+    List<Department> selectSubtrees(@Param("rootIdList") Collection<Integer> rootIdList, @Param("name") String name);
+
+    /**
+     * 子树中后代部门的层级整体调整
+     *
+     * @param id    子树根部门ID
+     * @param delta 层级变化量
+     */
+    int updateSubtreeLevel(@Param("id") Integer id, @Param("delta") int delta);
 
+    /**
+     * 根据闭包表重新生成子树中部门的 parent_ids
+     *
+     * @param id 子树根部门ID
+     */
+    int updateSubtreeParentIds(@Param("id") Integer id);
 }
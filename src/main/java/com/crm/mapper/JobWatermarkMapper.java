@@ -0,0 +1,31 @@
+package com.crm.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.crm.entity.JobWatermark;
+import org.apache.ibatis.annotations.Param;
+
+import java.time.LocalDateTime;
+
+/**
+ * <p>
+ * 增量任务水位 Mapper 接口
+ * </p>
+ *
+ * @author crm
+ */
+public interface JobWatermarkMapper extends BaseMapper<JobWatermark> {
+    /**
+     * 创建水位，已存在时忽略
+     */
+    int insertIgnore(@Param("jobName") String jobName, @Param("lastTime") LocalDateTime lastTime);
+
+    /**
+     * 锁定并读取水位，同一任务的多个执行者在此排队
+     */
+    JobWatermark selectForUpdate(@Param("jobName") String jobName);
+
+    /**
+     * 推进水位
+     */
+    int advance(@Param("jobName") String jobName, @Param("lastTime") LocalDateTime lastTime, @Param("lastId") Long lastId);
+}
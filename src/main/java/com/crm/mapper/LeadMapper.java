@@ -2,9 +2,11 @@ package com.crm.mapper;
 
 import com.crm.entity.Lead;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
-import io.lettuce.core.dynamic.annotation.Param;
+import org.apache.ibatis.annotations.Param;
 
 import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
 
 /**
  * <p>
@@ -17,4 +19,19 @@ import java.time.LocalDate;
 public interface LeadMapper extends BaseMapper<Lead> {
     int countByCreateDate(@Param("date") LocalDate date);
 
+    /**
+     * 已存在的线索名称
+     */
+    List<String> selectExistingNames(@Param("names") Collection<String> names);
+
+    /**
+     * 已存在的手机号
+     */
+    List<String> selectExistingPhones(@Param("phones") Collection<String> phones);
+
+    /**
+     * 批量写入，一批一条 INSERT
+     */
+    int insertBatch(@Param("list") List<Lead> list);
+
 }
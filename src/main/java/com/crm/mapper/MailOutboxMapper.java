@@ -0,0 +1,56 @@
+package com.crm.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.crm.entity.MailOutbox;
+import org.apache.ibatis.annotations.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>
+ * 邮件发件箱 Mapper 接口
+ * </p>
+ *
+ * @author crm
+ */
+public interface MailOutboxMapper extends BaseMapper<MailOutbox> {
+    /**
+     * 写入发件箱，biz_key 已存在时忽略
+     *
+     * @return 实际写入的条数
+     */
+    int insertIgnore(MailOutbox outbox);
+
+    /**
+     * 领取到期的邮件，同时领取租约已过期的发送中邮件，领取即计入一次尝试
+     *
+     * @param claimToken   领取批次标识
+     * @param limit        最多领取条数
+     * @param leaseSeconds 租约时长，超时未完成的邮件可被再次领取
+     * @return 领取的条数
+     */
+    int claim(@Param("claimToken") String claimToken, @Param("limit") int limit, @Param("leaseSeconds") int leaseSeconds);
+
+    /**
+     * 查询本批次领取的邮件
+     */
+    List<MailOutbox> selectClaimed(@Param("claimToken") String claimToken);
+
+    /**
+     * 标记发送成功，只更新本批次仍持有的邮件
+     */
+    int markSent(@Param("id") Long id, @Param("claimToken") String claimToken);
+
+    /**
+     * 标记发送失败，进入重试或死信
+     */
+    int markFailed(@Param("id") Long id, @Param("claimToken") String claimToken, @Param("status") int status,
+                   @Param("nextAttemptTime") LocalDateTime nextAttemptTime, @Param("lastError") String lastError);
+
+    /**
+     * 按状态统计条数
+     */
+    List<Map<String, Object>> countByStatus();
+}
@@ -1,10 +1,13 @@
 package com.crm.mapper;
 
 import com.crm.entity.Payment;
+import com.crm.query.PaymentBatchReviewQuery.PaymentReviewItem;
+import com.crm.query.PaymentPendingQuery;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.github.yulichang.base.MPJBaseMapper;
-import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -16,7 +19,23 @@ import java.util.List;
  * @since 2025-10-12
  */
 public interface PaymentMapper extends MPJBaseMapper<Payment> {
-    @Select("select * from t_payment where status =0 AND delete_flag=0")
-    List<Payment> selectPendingApproval();
+    /**
+     * 待审核回款，按 (payment_time, id) 翻页
+     */
+    List<Payment> selectPendingQueue(@Param("query") PaymentPendingQuery query);
+
+    /**
+     * 批量审核，以待审核状态和版本号为条件
+     *
+     * @param status 审核状态 1-通过，2-驳回
+     * @param items  回款ID和审核时的版本号
+     * @return 实际更新的回款数量
+     */
+    int batchReview(@Param("status") Integer status, @Param("items") List<PaymentReviewItem> items);
+
+    /**
+     * 已有回款的合同ID
+     */
+    List<Integer> selectContractIdsWithPayment(@Param("contractIds") Collection<Integer> contractIds);
 
 }
@@ -3,6 +3,9 @@ package com.crm.mapper;
 import com.crm.entity.Product;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.github.yulichang.base.MPJBaseMapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.Map;
 
 /**
  * <p>
@@ -13,5 +16,25 @@ import com.github.yulichang.base.MPJBaseMapper;
  * @since 2025-10-12
  */
 public interface ProductMapper extends MPJBaseMapper<Product> {
+    /**
+     * 批量调整库存，一条语句完成，库存不足的商品不更新
+     *
+     * @param deltas 商品ID -> 扣减数量，负数表示退回
+     * @return 实际更新的商品数量
+     */
+    int applyStockDeltas(@Param("deltas") Map<Integer, Integer> deltas);
+
+    /**
+     * 热点商品库存增量写回，库存已在计数器中校验过，这里不再检查
+     *
+     * @param deltas 商品ID -> 扣减数量，负数表示退回
+     */
+    int flushStockDeltas(@Param("deltas") Map<Integer, Integer> deltas);
 
+    /**
+     * 按增量修改库存，不影响销量，用于热点商品的库存编辑
+     *
+     * @param delta 调整数量，正数增加库存
+     */
+    int adjustStock(@Param("productId") Integer productId, @Param("delta") int delta);
 }
@@ -0,0 +1,45 @@
+package com.crm.mapper;
+
+import org.apache.ibatis.annotations.Param;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * <p>
+ * 已收款汇总 Mapper 接口
+ * </p>
+ *
+ * @author crm
+ */
+public interface ReceivableMapper {
+    /**
+     * 调整合同已收款，不修改 update_time，避免触发按更新时间的增量任务
+     */
+    int addContractReceived(@Param("contractId") Integer contractId, @Param("delta") BigDecimal delta);
+
+    /**
+     * 调整客户已收款
+     */
+    int addCustomerReceived(@Param("customerId") Integer customerId, @Param("delta") BigDecimal delta);
+
+    /**
+     * 已收款与回款汇总不一致的合同
+     */
+    List<Integer> selectDriftedContractIds();
+
+    /**
+     * 已收款与回款汇总不一致的客户
+     */
+    List<Integer> selectDriftedCustomerIds();
+
+    /**
+     * 按回款重新汇总合同已收款
+     */
+    int repairContractReceived(@Param("contractId") Integer contractId);
+
+    /**
+     * 按回款重新汇总客户已收款
+     */
+    int repairCustomerReceived(@Param("customerId") Integer customerId);
+}
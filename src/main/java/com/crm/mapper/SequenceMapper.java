@@ -0,0 +1,29 @@
+package com.crm.mapper;
+
+import org.apache.ibatis.annotations.Param;
+
+/**
+ * <p>
+ * 号段序列 Mapper 接口
+ * </p>
+ *
+ * @author crm
+ */
+public interface SequenceMapper {
+    /**
+     * 序列值增加 size，并通过 LAST_INSERT_ID 记录增加后的值
+     *
+     * @return 更新的行数，序列不存在时为 0
+     */
+    int increase(@Param("name") String name, @Param("size") int size);
+
+    /**
+     * 创建序列，已存在时忽略
+     */
+    int insertIgnore(@Param("name") String name);
+
+    /**
+     * 当前连接最近一次 increase 后的序列值
+     */
+    Long selectLastInsertId();
+}
@@ -4,6 +4,7 @@ import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.crm.entity.SysMenu;
 import org.apache.ibatis.annotations.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -30,10 +31,12 @@ public interface SysMenuMapper extends BaseMapper<SysMenu> {
     List<SysMenu> getManagerMenuList(@Param("managerId") Integer managerId, @Param("type") String type ,@Param("isEq") boolean isEq);
 
     /**
-     * 查询管理员权限列表
-     * @param managerId  管理员ID
+     * 查询角色菜单列表
+     *
+     * @param roleIdList 角色ID列表
+     * @param type 菜单类型
      */
-    List<String> getManagerAuthorityList(@Param("managerId") Integer managerId);
+    List<SysMenu> getRoleMenuList(@Param("roleIdList") Collection<Integer> roleIdList, @Param("type") String type, @Param("isEq") boolean isEq);
 
     /**
      * 查询所有权限列表
@@ -0,0 +1,31 @@
+package com.crm.query;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 合同批量审核
+ *
+ * @author crm
+ */
+@Data
+@Schema(description = "合同批量审核参数")
+public class ContractBatchApprovalQuery {
+
+    @Schema(description = "合同ID")
+    @NotEmpty(message = "合同ID不能为空")
+    @Size(max = 1000, message = "一次最多审核1000个合同")
+    private List<Integer> ids;
+
+    @Schema(description = "审核结果 0-通过，1-不通过")
+    @NotNull(message = "审核结果不能为空")
+    private Integer type;
+
+    @Schema(description = "审核意见")
+    private String approvalContent;
+}
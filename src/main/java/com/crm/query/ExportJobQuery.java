@@ -0,0 +1,19 @@
+package com.crm.query;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+
+/**
+ * 导出任务查询参数
+ *
+ * @author crm
+ */
+@Data
+@Schema(description = "导出任务查询参数")
+public class ExportJobQuery {
+
+    @Schema(description = "任务ID")
+    @NotBlank(message = "任务ID不能为空")
+    private String jobId;
+}
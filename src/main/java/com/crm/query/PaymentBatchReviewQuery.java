@@ -0,0 +1,43 @@
+package com.crm.query;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 回款批量审核
+ *
+ * @author crm
+ */
+@Data
+@Schema(description = "回款批量审核参数")
+public class PaymentBatchReviewQuery {
+
+    @Schema(description = "审核明细")
+    @Valid
+    @NotEmpty(message = "审核明细不能为空")
+    @Size(max = 5000, message = "一次最多审核5000条回款")
+    private List<PaymentReviewItem> items;
+
+    @Data
+    @Schema(description = "回款审核明细")
+    public static class PaymentReviewItem {
+
+        @Schema(description = "回款ID")
+        @NotNull(message = "回款ID不能为空")
+        private Integer id;
+
+        @Schema(description = "查询时的版本号")
+        @NotNull(message = "版本号不能为空")
+        private Integer version;
+
+        @Schema(description = "审核状态 1-通过，2-驳回")
+        @NotNull(message = "审核状态不能为空")
+        private Integer status;
+    }
+}
@@ -0,0 +1,31 @@
+package com.crm.query;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDateTime;
+
+/**
+ * 待审核回款队列，按支付时间顺序翻页，传入上一页最后一条的支付时间和ID获取下一页
+ *
+ * @author crm
+ */
+@Data
+@Schema(description = "待审核回款队列参数")
+public class PaymentPendingQuery {
+
+    @Schema(description = "上一页最后一条的支付时间")
+    @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime afterPaymentTime;
+
+    @Schema(description = "上一页最后一条的ID，为空时从头查询")
+    private Integer afterId;
+
+    @Schema(description = "每页条数")
+    @Min(value = 1, message = "每页条数最小值为 1")
+    @Max(value = 1000, message = "每页条数最大值为 1000")
+    private Integer limit = 100;
+}
@@ -1,5 +1,8 @@
 package com.crm.schedule;
 
+import com.crm.common.receivable.ReceivableAggregator;
+import com.crm.service.ContractStatusCountService;
+import com.crm.service.CustomerHourlyStatService;
 import com.crm.service.ProductService;
 import lombok.AllArgsConstructor;
 import org.springframework.scheduling.annotation.Scheduled;
@@ -9,10 +12,37 @@ import org.springframework.stereotype.Component;
 @AllArgsConstructor
 public class TimerJob {
     private final ProductService productService;
+    private final ContractStatusCountService contractStatusCountService;
+    private final ReceivableAggregator receivableAggregator;
+    private final CustomerHourlyStatService customerHourlyStatService;
 
     @Scheduled(fixedRate = 1000 *60)
     public void batchUpdateStatus() {
         System.out.println("==========定时任务开始执行=========");
         productService.batchUpdateProductStatus();
     }
+
+    /**
+     * 校验合同状态计数，修复与合同表不一致的数据
+     */
+    @Scheduled(fixedDelayString = "${contract.status-count.verify-interval:600000}", initialDelay = 1000 * 60)
+    public void verifyContractStatusCount() {
+        contractStatusCountService.verify();
+    }
+
+    /**
+     * 核对合同、客户已收款，修复与回款表不一致的数据
+     */
+    @Scheduled(fixedDelayString = "${payment.receivable.reconcile-interval:3600000}", initialDelay = 1000 * 60)
+    public void reconcileReceivable() {
+        receivableAggregator.reconcile();
+    }
+
+    /**
+     * 重新统计最近几天的客户新增小时汇总，汇总表为空时补齐历史数据
+     */
+    @Scheduled(cron = "${customer.hourly-stat.rebuild-cron:0 30 3 * * ?}")
+    public void rebuildCustomerHourlyStat() {
+        customerHourlyStatService.rebuildRecent();
+    }
 }
@@ -0,0 +1,167 @@
+package com.crm.security.cache;
+
+import com.crm.security.user.ManagerDetail;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 登录用户本地一级缓存，位于 Redis 之前
+ * key 为 accessToken 对应的 Redis Key，过期时间不超过 Redis 中剩余的过期时间
+ * 每个 key 按哈希槽维护失效代数，读取 Redis 期间收到失效通知时不写入本地缓存
+ *
+ * @author crm
+ */
+@Component
+public class LocalTokenCache {
+    private static final int GENERATION_SLOTS = 1024;
+
+    private final Map<String, Entry> cache = new ConcurrentHashMap<>();
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_SLOTS);
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+    private final LongAdder invalidateCount = new LongAdder();
+
+    /**
+     * 最大缓存条数
+     */
+    @Value("${token.local-cache.capacity:10000}")
+    private int capacity;
+
+    /**
+     * 本地缓存最长存活时间，单位：秒
+     */
+    @Value("${token.local-cache.ttl:300}")
+    private long maxTtl;
+
+    public ManagerDetail get(String key) {
+        Entry entry = cache.get(key);
+        if (entry == null) {
+            missCount.increment();
+            return null;
+        }
+        if (entry.isExpired(System.currentTimeMillis())) {
+            if (cache.remove(key, entry)) {
+                evictionCount.increment();
+            }
+            missCount.increment();
+            return null;
+        }
+        hitCount.increment();
+        return entry.value;
+    }
+
+    /**
+     * key 当前的失效代数，读取 Redis 之前获取，写入本地缓存时传回
+     */
+    public long generation(String key) {
+        return generations.get(slot(key));
+    }
+
+    /**
+     * 写入本地缓存，读取 Redis 之后 key 已失效时不写入
+     *
+     * @param key        accessToken Key
+     * @param value      登录用户
+     * @param redisTtl   Redis 中剩余过期时间，单位：秒，小于 0 表示不过期
+     * @param generation 读取 Redis 之前获取的失效代数
+     */
+    public void put(String key, ManagerDetail value, long redisTtl, long generation) {
+        long ttl = redisTtl < 0 ? maxTtl : Math.min(redisTtl, maxTtl);
+        if (value == null || ttl <= 0) {
+            return;
+        }
+        int slot = slot(key);
+        if (generations.get(slot) != generation) {
+            return;
+        }
+        if (cache.size() >= capacity) {
+            prune();
+        }
+        Entry entry = new Entry(value, System.currentTimeMillis() + ttl * 1000);
+        cache.put(key, entry);
+        // 写入时恰好收到失效通知，撤销本次写入
+        if (generations.get(slot) != generation) {
+            cache.remove(key, entry);
+        }
+    }
+
+    /**
+     * 先递增失效代数再删除，保证并发的写入要么被跳过，要么被撤销
+     */
+    public void invalidate(String key) {
+        generations.incrementAndGet(slot(key));
+        if (cache.remove(key) != null) {
+            invalidateCount.increment();
+        }
+    }
+
+    public void invalidateAll(Collection<String> keys) {
+        keys.forEach(this::invalidate);
+    }
+
+    /**
+     * 缓存统计信息
+     */
+    public Map<String, Object> stats() {
+        long hits = hitCount.sum();
+        long misses = missCount.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", cache.size());
+        stats.put("capacity", capacity);
+        stats.put("hitCount", hits);
+        stats.put("missCount", misses);
+        stats.put("hitRate", hits + misses == 0 ? 0 : (double) hits / (hits + misses));
+        stats.put("evictionCount", evictionCount.sum());
+        stats.put("invalidateCount", invalidateCount.sum());
+        return stats;
+    }
+
+    /**
+     * 容量已满时先清理过期数据，仍然超出则淘汰最早过期的一批数据
+     */
+    private void prune() {
+        long now = System.currentTimeMillis();
+        cache.entrySet().removeIf(e -> {
+            boolean expired = e.getValue().isExpired(now);
+            if (expired) {
+                evictionCount.increment();
+            }
+            return expired;
+        });
+        // 每次至少腾出 1/16 的空间，避免满容量时每次写入都触发清理
+        int overflow = cache.size() - capacity + Math.max(1, capacity / 16);
+        if (overflow <= 0) {
+            return;
+        }
+        List<Map.Entry<String, Entry>> entries = new ArrayList<>(cache.entrySet());
+        entries.sort(Comparator.comparingLong(e -> e.getValue().expireAt()));
+        for (int i = 0; i < overflow && i < entries.size(); i++) {
+            Map.Entry<String, Entry> e = entries.get(i);
+            if (cache.remove(e.getKey(), e.getValue())) {
+                evictionCount.increment();
+            }
+        }
+    }
+
+    private static int slot(String key) {
+        return (key.hashCode() & Integer.MAX_VALUE) % GENERATION_SLOTS;
+    }
+
+    private record Entry(ManagerDetail value, long expireAt) {
+        boolean isExpired(long now) {
+            return now >= expireAt;
+        }
+    }
+}
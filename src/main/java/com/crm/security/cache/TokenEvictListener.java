@@ -0,0 +1,52 @@
+package com.crm.security.cache;
+
+import com.crm.common.cache.RedisKeys;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 订阅 token 失效广播，清理本节点的本地缓存
+ *
+ * @author crm
+ */
+@Slf4j
+@Component
+public class TokenEvictListener implements MessageListener {
+    @Resource
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+    /**
+     * 广播消息中 token Key 的分隔符
+     */
+    public static final String SEPARATOR = ",";
+
+    @Resource
+    private LocalTokenCache localTokenCache;
+
+    @PostConstruct
+    public void subscribe() {
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(RedisKeys.getTokenEvictChannel()));
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        // 消息为逗号分隔的纯文本，直接按 UTF-8 解析
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        if (body.isBlank()) {
+            log.warn("收到空的 token 失效消息");
+            return;
+        }
+        for (String key : body.split(SEPARATOR)) {
+            if (!key.isBlank()) {
+                localTokenCache.invalidate(key.trim());
+            }
+        }
+    }
+}
@@ -5,10 +5,15 @@ import com.crm.common.cache.RedisCache;
 import com.crm.common.cache.RedisKeys;
 import com.crm.security.user.ManagerDetail;
 import lombok.AllArgsConstructor;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @author crm
@@ -17,40 +22,141 @@ import java.util.List;
 @AllArgsConstructor
 public class TokenStoreCache {
     private final RedisCache redisCache;
+    private final LocalTokenCache localTokenCache;
+    private final StringRedisTemplate stringRedisTemplate;
 
+    /**
+     * 登录，第一次往返写入新 token 并取回旧 token，存在旧 token 时第二次往返删除并广播
+     */
     public void saveUser(String accessToken, ManagerDetail user) {
         String accessTokenKey = RedisKeys.getAccessTokenKey(accessToken);
         String managerIdKey = RedisKeys.getManagerIdKey(user.getId());
-        if (redisCache.get(managerIdKey) != null) {
-            redisCache.delete(String.valueOf(redisCache.get(managerIdKey)));
+        List<Object> results = redisCache.pipeline(operations -> {
+            operations.opsForValue().getAndSet(managerIdKey, accessTokenKey);
+            operations.expire(managerIdKey, RedisCache.DEFAULT_EXPIRE, TimeUnit.SECONDS);
+            operations.opsForValue().set(accessTokenKey, user, RedisCache.DEFAULT_EXPIRE, TimeUnit.SECONDS);
+        });
+        Object oldAccessTokenKey = results.get(0);
+        if (oldAccessTokenKey != null && !accessTokenKey.equals(String.valueOf(oldAccessTokenKey))) {
+            deleteAndEvict(List.of(String.valueOf(oldAccessTokenKey)));
         }
-        redisCache.set(managerIdKey, accessTokenKey);
-        redisCache.set(accessTokenKey, user);
     }
 
     public ManagerDetail getUser(String accessToken) {
         String key = RedisKeys.getAccessTokenKey(accessToken);
-        return JSON.to(ManagerDetail.class, redisCache.get(key));
+        // 先查本地缓存
+        ManagerDetail user = localTokenCache.get(key);
+        if (user != null) {
+            return user;
+        }
+        // 读取 Redis 之前记录失效代数，读取期间收到失效通知时不写入本地缓存
+        long generation = localTokenCache.generation(key);
+        // 一次往返同时取回用户和剩余过期时间
+        List<Object> results = redisCache.pipeline(operations -> {
+            operations.opsForValue().get(key);
+            operations.getExpire(key, TimeUnit.SECONDS);
+        });
+        user = JSON.to(ManagerDetail.class, results.get(0));
+        if (user != null) {
+            // 本地缓存的过期时间与 Redis 对齐
+            Object ttl = results.get(1);
+            localTokenCache.put(key, user, ttl instanceof Long seconds ? seconds : RedisCache.NOT_EXPIRE, generation);
+        }
+        return user;
     }
 
     public void deleteUser(String accessToken) {
-        String key = RedisKeys.getAccessTokenKey(accessToken);
-        redisCache.delete(key);
+        deleteAndEvict(List.of(RedisKeys.getAccessTokenKey(accessToken)));
     }
 
     public void deleteUserById(Integer id) {
-        String managerIdKey = RedisKeys.getManagerIdKey(id);
-        String key = String.valueOf(redisCache.get(managerIdKey));
-        redisCache.delete(key);
+        deleteUserByIds(List.of(id));
     }
 
+    /**
+     * 批量下线，一次 MGET 取回所有 token，再一次往返删除并广播
+     */
     public void deleteUserByIds(List<Integer> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return;
+        }
+        List<Object> values = redisCache.multiGet(ids.stream().map(RedisKeys::getManagerIdKey).toList());
         List<String> keys = new ArrayList<>();
-        for (Integer id : ids) {
-            String managerIdKey = RedisKeys.getManagerIdKey(id);
-            String key = String.valueOf(redisCache.get(managerIdKey));
-            keys.add(key);
+        for (Object key : values) {
+            if (key != null) {
+                keys.add(String.valueOf(key));
+            }
         }
-        redisCache.delete(keys);
+        if (keys.isEmpty()) {
+            return;
+        }
+        deleteAndEvict(keys);
+    }
+
+    /**
+     * 管理员角色变化后更新已登录 token 中的角色列表，保留剩余过期时间
+     * 只覆盖仍然存在的 token（SET XX），避免恢复已下线的 token，写入后清理各节点的本地缓存
+     *
+     * @param roleIdLists 管理员ID -> 新的角色ID列表
+     */
+    public void updateRoleIdList(Map<Integer, List<Integer>> roleIdLists) {
+        if (roleIdLists.isEmpty()) {
+            return;
+        }
+        List<Integer> ids = new ArrayList<>(roleIdLists.keySet());
+        List<Object> values = redisCache.multiGet(ids.stream().map(RedisKeys::getManagerIdKey).toList());
+        List<String> keys = new ArrayList<>();
+        List<Integer> managerIds = new ArrayList<>();
+        for (int i = 0; i < values.size(); i++) {
+            if (values.get(i) != null) {
+                keys.add(String.valueOf(values.get(i)));
+                managerIds.add(ids.get(i));
+            }
+        }
+        if (keys.isEmpty()) {
+            return;
+        }
+        // 一次往返取回所有用户和剩余过期时间，再一次往返写回
+        List<Object> results = redisCache.pipeline(operations -> keys.forEach(key -> {
+            operations.opsForValue().get(key);
+            operations.getExpire(key, TimeUnit.SECONDS);
+        }));
+        redisCache.pipeline(operations -> {
+            for (int i = 0; i < keys.size(); i++) {
+                ManagerDetail user = JSON.to(ManagerDetail.class, results.get(2 * i));
+                Object ttl = results.get(2 * i + 1);
+                if (user == null || !(ttl instanceof Long seconds) || seconds == 0 || seconds < RedisCache.NOT_EXPIRE) {
+                    continue;
+                }
+                user.setRoleIdList(roleIdLists.get(managerIds.get(i)));
+                if (seconds == RedisCache.NOT_EXPIRE) {
+                    operations.opsForValue().setIfPresent(keys.get(i), user);
+                } else {
+                    operations.opsForValue().setIfPresent(keys.get(i), user, seconds, TimeUnit.SECONDS);
+                }
+            }
+        });
+        localTokenCache.invalidateAll(keys);
+        stringRedisTemplate.convertAndSend(RedisKeys.getTokenEvictChannel(), String.join(TokenEvictListener.SEPARATOR, keys));
+    }
+
+    /**
+     * 删除 token 并广播给其他节点，删除和广播在同一次往返中完成，之后再清理本节点缓存
+     * 先删除 Redis 再清理本地，并发的 getUser 要么读不到 token，要么因失效代数变化而放弃写入本地缓存
+     * 广播消息为逗号分隔的纯文本，使用 String 序列化，不受 Redis 值序列化方式影响
+     */
+    private void deleteAndEvict(List<String> keys) {
+        String message = String.join(TokenEvictListener.SEPARATOR, keys);
+        stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, String> stringOperations = (RedisOperations<String, String>) operations;
+                stringOperations.delete(keys);
+                stringOperations.convertAndSend(RedisKeys.getTokenEvictChannel(), message);
+                return null;
+            }
+        });
+        localTokenCache.invalidateAll(keys);
     }
 }
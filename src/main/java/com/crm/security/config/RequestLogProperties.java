@@ -0,0 +1,68 @@
+package com.crm.security.config;
+
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * 请求日志配置
+ *
+ * @author crm
+ */
+@Getter
+@Component
+public class RequestLogProperties {
+    /**
+     * 请求体缓存上限，单位：字节，超出后不再缓存，直接透传
+     */
+    @Value("${request-log.max-body-size:1048576}")
+    private int maxBodySize;
+
+    /**
+     * 日志中请求体最多打印的字节数
+     */
+    @Value("${request-log.log-body-size:2048}")
+    private int logBodySize;
+
+    /**
+     * 按地址配置请求体打印上限，格式：地址=字节数，如 /common/upload/**=0
+     */
+    @Value("${request-log.body-sizes:}")
+    private String[] bodySizes;
+
+    /**
+     * 默认采样率，取值 0-1
+     */
+    @Value("${request-log.sample-rate:1}")
+    private double sampleRate;
+
+    /**
+     * 按地址配置采样率，格式：地址=采样率，如 /customer/page=0.1
+     */
+    @Value("${request-log.sample-rates:}")
+    private String[] sampleRates;
+
+    /**
+     * 日志队列容量，队列满时丢弃日志
+     */
+    @Value("${request-log.buffer-size:8192}")
+    private int bufferSize;
+
+    /**
+     * 每批写入的最大条数
+     */
+    @Value("${request-log.batch-size:256}")
+    private int batchSize;
+
+    /**
+     * 队列为空时的等待时间，单位：毫秒
+     */
+    @Value("${request-log.flush-interval:200}")
+    private long flushInterval;
+
+    /**
+     * 按接口路由输出耗时汇总的间隔，单位：秒
+     */
+    @Value("${request-log.summary-interval:60}")
+    private long summaryInterval;
+}
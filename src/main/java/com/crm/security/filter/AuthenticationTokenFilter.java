@@ -1,9 +1,14 @@
 package com.crm.security.filter;
 
 import com.crm.common.exception.ServerException;
+import com.crm.common.log.AccessLogRecord;
+import com.crm.common.log.AccessLogWriter;
 import com.crm.security.cache.TokenStoreCache;
+import com.crm.security.permission.PermissionIndex;
+import com.crm.security.config.RequestLogProperties;
 import com.crm.security.user.ManagerDetail;
 import com.crm.security.utils.TokenUtils;
+import com.crm.service.SysManagerRoleService;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -17,88 +22,84 @@ import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
 
 
-import java.io.BufferedReader;
 import java.io.IOException;
+import java.util.List;
+import java.util.Map;
 
 @Component
 @AllArgsConstructor
 @Slf4j
 public class AuthenticationTokenFilter extends OncePerRequestFilter {
+    private static final String UNMATCHED_ROUTE = "<unmatched>";
+
     private final TokenStoreCache tokenStoreCache;
+    private final PermissionIndex permissionIndex;
+    private final RequestLogProperties requestLogProperties;
+    private final AccessLogWriter accessLogWriter;
+    private final SysManagerRoleService sysManagerRoleService;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain) throws ServletException, IOException {
-
+        long startTime = System.nanoTime();
         MyRequestWrapper myRequestWrapper = null;
         // 获取请求body
         try {
-            myRequestWrapper = new MyRequestWrapper(request);
+            myRequestWrapper = new MyRequestWrapper(request, requestLogProperties.getMaxBodySize());
         } catch (IOException e) {
             log.error("get request body exception", e);
             throw new ServerException("参数异常");
         }
-        logger.info(getIp(myRequestWrapper) + myRequestWrapper.getRequestURI() + readAsChars(myRequestWrapper));
-        String accessToken = TokenUtils.getAccessToken(myRequestWrapper);
-        // accessToken为空，表示未登录
-        if (StringUtils.isBlank(accessToken)) {
-            chain.doFilter(myRequestWrapper, response);
-            return;
-        }
-
-        // 获取登录用户信息
-        ManagerDetail manager = tokenStoreCache.getUser(accessToken);
-        if (manager == null) {
-            chain.doFilter(myRequestWrapper, response);
-            return;
-        }
-
-        // 用户存在
-        Authentication authentication = new UsernamePasswordAuthenticationToken(manager, null, manager.getAuthorities());
+        CountingResponseWrapper responseWrapper = new CountingResponseWrapper(response);
+        ManagerDetail manager = null;
+        try {
+            String accessToken = TokenUtils.getAccessToken(myRequestWrapper);
+            // accessToken为空，表示未登录
+            ManagerDetail cached = null;
+            if (StringUtils.isNotBlank(accessToken)) {
+                // 获取登录用户信息
+                cached = tokenStoreCache.getUser(accessToken);
+            }
+            if (cached != null) {
+                List<Integer> roleIdList = cached.getRoleIdList();
+                if (roleIdList == null) {
+                    // 早于角色列表写入 token 之前签发的 token，从数据库加载角色并写回 token，只加载一次
+                    roleIdList = sysManagerRoleService.getRoleIdList(cached.getId());
+                    tokenStoreCache.updateRoleIdList(Map.of(cached.getId(), roleIdList));
+                }
+                // 用户存在，按角色实时解析权限，角色权限变化后无需重新登录；缓存中的实例共享，权限放在请求内的副本上
+                manager = cached.withPermissions(roleIdList, permissionIndex.resolve(roleIdList));
+                Authentication authentication = new UsernamePasswordAuthenticationToken(manager, null, manager.getAuthorities());
 
-        // 新建 SecurityContext
-        SecurityContext context = SecurityContextHolder.createEmptyContext();
-        context.setAuthentication(authentication);
-        SecurityContextHolder.setContext(context);
+                // 新建 SecurityContext
+                SecurityContext context = SecurityContextHolder.createEmptyContext();
+                context.setAuthentication(authentication);
+                SecurityContextHolder.setContext(context);
+            }
 
-        chain.doFilter(myRequestWrapper, response);
+            chain.doFilter(myRequestWrapper, responseWrapper);
+        } finally {
+            accessLog(myRequestWrapper, responseWrapper, manager, startTime);
+        }
     }
 
-    public static String readAsChars(HttpServletRequest request)
-    {
-
-        BufferedReader br = null;
-        StringBuilder sb = new StringBuilder("");
-        try
-        {
-            br = request.getReader();
-            String str;
-            while ((str = br.readLine()) != null)
-            {
-                sb.append(str);
-            }
-            br.close();
-        }
-        catch (IOException e)
-        {
-            e.printStackTrace();
-        }
-        finally
-        {
-            if (null != br)
-            {
-                try
-                {
-                    br.close();
-                }
-                catch (IOException e)
-                {
-                    e.printStackTrace();
-                }
-            }
+    /**
+     * 记录访问日志，只放入队列，由后台线程写出
+     * 耗时统计在采样之前完成，按匹配到的接口路由汇总，未匹配到接口的请求归为一类
+     */
+    private void accessLog(MyRequestWrapper request, CountingResponseWrapper response, ManagerDetail manager, long startTime) {
+        long latency = (System.nanoTime() - startTime) / 1000;
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        accessLogWriter.recordLatency(request.getMethod() + " " + (pattern == null ? UNMATCHED_ROUTE : pattern), latency);
+        String uri = request.getRequestURI().substring(request.getContextPath().length());
+        if (!accessLogWriter.isSampled(uri)) {
+            return;
         }
-        return sb.toString();
+        accessLogWriter.append(new AccessLogRecord(request.getMethod(), uri, getIp(request), response.getStatus(), latency,
+                manager == null ? null : manager.getId(), request.getBodyLength(), response.getCount(),
+                request.getBodyPreview(accessLogWriter.getBodySize(uri))));
     }
 
     public static String getIp(HttpServletRequest request) {
@@ -1,7 +1,6 @@
 package com.crm.security.filter;
 
 
-
 import jakarta.servlet.ReadListener;
 import jakarta.servlet.ServletInputStream;
 import jakarta.servlet.http.HttpServletRequest;
@@ -9,64 +8,185 @@ import jakarta.servlet.http.HttpServletRequestWrapper;
 import org.apache.commons.fileupload2.jakarta.JakartaServletFileUpload;
 
 import java.io.BufferedReader;
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 
+/**
+ * 可重复读取请求体的 Request 包装类
+ * 请求体只读取一次，超过上限的请求体不缓存，已读取的部分与剩余部分一起透传给后续处理
+ */
 public class MyRequestWrapper extends HttpServletRequestWrapper {
+    private static final int INITIAL_BUFFER_SIZE = 8 * 1024;
 
+    /**
+     * 已读取的请求体，有效长度为 length
+     */
     private byte[] body;
+    private int length;
+    /**
+     * 请求体是否已完整缓存
+     */
+    private boolean cached;
+    /**
+     * 透传时的原始输入流
+     */
+    private ServletInputStream rawInputStream;
 
-    public MyRequestWrapper(HttpServletRequest request) throws IOException {
+    public MyRequestWrapper(HttpServletRequest request, int maxBodySize) throws IOException {
         super(request);
         if (JakartaServletFileUpload.isMultipartContent(request)) {
             return;
         }
-        StringBuilder sb = new StringBuilder();
-        String line;
-        BufferedReader reader = new BufferedReader(new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8));
-        while ((line = reader.readLine()) != null) {
-            sb.append(line);
+        long contentLength = request.getContentLengthLong();
+        if (contentLength > maxBodySize) {
+            return;
+        }
+        if (contentLength == 0 || (contentLength < 0 && request.getHeader("Transfer-Encoding") == null)) {
+            // 没有请求体（如 GET），不分配缓冲区
+            cached = true;
+            return;
+        }
+        ServletInputStream in = request.getInputStream();
+        if (contentLength >= 0) {
+            // 长度已知，按实际长度一次分配
+            body = new byte[(int) contentLength];
+            length = in.readNBytes(body, 0, body.length);
+            cached = true;
+            return;
+        }
+        // 长度未知（chunked），按需扩容，最多读取 maxBodySize + 1 个字节用于判断是否超限
+        body = new byte[Math.min(INITIAL_BUFFER_SIZE, maxBodySize + 1)];
+        int n;
+        while ((n = in.read(body, length, body.length - length)) != -1) {
+            length += n;
+            if (length == body.length) {
+                if (length > maxBodySize) {
+                    rawInputStream = in;
+                    return;
+                }
+                body = Arrays.copyOf(body, Math.min(body.length * 2, maxBodySize + 1));
+            }
         }
-        String body = sb.toString();
-        this.body = body.getBytes(StandardCharsets.UTF_8);
+        cached = true;
+    }
+
+    /**
+     * 请求体是否已完整缓存
+     */
+    public boolean isCached() {
+        return cached;
+    }
+
+    /**
+     * 请求体字节数，未完整缓存时返回 -1
+     */
+    public int getBodyLength() {
+        return cached ? length : -1;
     }
 
     public String getBody() {
-        return new String(this.body, StandardCharsets.UTF_8);
+        return body == null ? "" : new String(body, 0, length, getCharset());
+    }
+
+    /**
+     * 获取截断后的请求体，用于日志打印，只拷贝前 maxBytes 个字节
+     */
+    public String getBodyPreview(int maxBytes) {
+        if (body == null) {
+            return "";
+        }
+        int size = Math.min(length, maxBytes);
+        String preview = new String(body, 0, size, getCharset());
+        return size < length || !cached ? preview + "..." : preview;
     }
 
     @Override
-    public ServletInputStream getInputStream() {
+    public ServletInputStream getInputStream() throws IOException {
         if (body == null) {
-            body = "{}".getBytes();
+            return super.getInputStream();
         }
-        final ByteArrayInputStream bais = new ByteArrayInputStream(body);
-        return new ServletInputStream() {
-            @Override
-            public boolean isFinished() {
-                return false;
-            }
+        return new BodyInputStream(body, length, cached ? null : rawInputStream);
+    }
 
-            @Override
-            public boolean isReady() {
-                return false;
-            }
+    @Override
+    public BufferedReader getReader() throws IOException {
+        return new BufferedReader(new InputStreamReader(getInputStream(), getCharset()));
+    }
+
+    private Charset getCharset() {
+        String encoding = getCharacterEncoding();
+        return encoding == null ? StandardCharsets.UTF_8 : Charset.forName(encoding);
+    }
+
+    /**
+     * 先读取缓存的字节，再读取原始输入流中剩余的部分
+     */
+    private static class BodyInputStream extends ServletInputStream {
+        private final byte[] buffer;
+        private final int length;
+        private final ServletInputStream remaining;
+        private int pos;
+
+        BodyInputStream(byte[] buffer, int length, ServletInputStream remaining) {
+            this.buffer = buffer;
+            this.length = length;
+            this.remaining = remaining;
+        }
 
-            @Override
-            public void setReadListener(ReadListener readListener) {
+        @Override
+        public int read() throws IOException {
+            if (pos < length) {
+                return buffer[pos++] & 0xff;
             }
+            return remaining == null ? -1 : remaining.read();
+        }
 
-            @Override
-            public int read() {
-                return bais.read();
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
             }
-        };
-    }
+            if (pos < length) {
+                int n = Math.min(len, length - pos);
+                System.arraycopy(buffer, pos, b, off, n);
+                pos += n;
+                return n;
+            }
+            return remaining == null ? -1 : remaining.read(b, off, len);
+        }
 
-    @Override
-    public BufferedReader getReader() {
-        return new BufferedReader(new InputStreamReader(this.getInputStream()));
+        @Override
+        public int available() throws IOException {
+            return length - pos + (remaining == null ? 0 : remaining.available());
+        }
+
+        @Override
+        public boolean isFinished() {
+            return pos >= length && (remaining == null || remaining.isFinished());
+        }
+
+        @Override
+        public boolean isReady() {
+            return pos < length || remaining == null || remaining.isReady();
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            if (remaining != null) {
+                // 剩余数据由容器回调
+                remaining.setReadListener(readListener);
+                return;
+            }
+            // 数据已全部在内存中，直接回调
+            try {
+                readListener.onDataAvailable();
+                readListener.onAllDataRead();
+            } catch (IOException e) {
+                readListener.onError(e);
+            }
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,63 @@
+package com.crm.security.permission;
+
+import com.crm.common.cache.RedisKeys;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 订阅权限变化广播，重建本节点的权限索引
+ *
+ * @author crm
+ */
+@Slf4j
+@Component
+public class PermissionChangeListener implements MessageListener {
+    @Resource
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+    @Resource
+    private RedisTemplate<String, Object> redisTemplate;
+    @Resource
+    private PermissionIndex permissionIndex;
+
+    @PostConstruct
+    public void subscribe() {
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(RedisKeys.getPermissionChannel()));
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        Object body = redisTemplate.getValueSerializer().deserialize(message.getBody());
+        if (!(body instanceof Map<?, ?> map)) {
+            log.warn("无法识别的权限变化消息：{}", body);
+            return;
+        }
+        try {
+            permissionIndex.refreshRoles(toIds(map.get("roleIds")));
+            permissionIndex.refreshMenus(toIds(map.get("menuIds")));
+        } catch (Exception e) {
+            // 增量重建失败时全量重建，避免权限长期不一致
+            log.error("权限索引增量重建失败，重新加载", e);
+            permissionIndex.reload();
+        }
+    }
+
+    private static List<Integer> toIds(Object value) {
+        List<Integer> ids = new ArrayList<>();
+        if (value instanceof Collection<?> collection) {
+            collection.forEach(id -> ids.add(Integer.valueOf(String.valueOf(id))));
+        }
+        return ids;
+    }
+}
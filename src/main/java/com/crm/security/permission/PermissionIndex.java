@@ -0,0 +1,240 @@
+package com.crm.security.permission;
+
+import cn.hutool.core.util.StrUtil;
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.crm.common.cache.RedisCache;
+import com.crm.common.cache.RedisKeys;
+import com.crm.entity.SysMenu;
+import com.crm.entity.SysRoleMenu;
+import com.crm.enums.MenuTypeEnum;
+import com.crm.mapper.SysMenuMapper;
+import com.crm.mapper.SysRoleMenuMapper;
+import com.crm.utils.TransactionUtils;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 角色权限位图索引
+ * <p>
+ * 每个权限标识分配一个整数 id，按角色维护权限位图，用户权限为所属角色位图的并集。
+ * 角色菜单关系或按钮权限变化时，只重建受影响角色的位图，并通过 Redis 广播通知其他节点，
+ * 已登录用户在下次请求时即可获得新的权限。
+ *
+ * @author crm
+ */
+@Slf4j
+@Component
+public class PermissionIndex {
+    private static final String BUTTON = MenuTypeEnum.BUTTON.name().toLowerCase();
+
+    @Resource
+    private SysMenuMapper sysMenuMapper;
+    @Resource
+    private SysRoleMenuMapper sysRoleMenuMapper;
+    @Resource
+    private RedisCache redisCache;
+
+    /**
+     * 权限标识 -> 权限 id，只增不减
+     */
+    private final Map<String, Integer> authorityIds = new ConcurrentHashMap<>();
+    /**
+     * 权限 id -> 权限标识
+     */
+    private final List<String> authorityNames = new CopyOnWriteArrayList<>();
+    /**
+     * 按钮菜单 id -> 权限位图，只在加锁时访问
+     */
+    private final Map<Integer, BitSet> menuBits = new HashMap<>();
+    /**
+     * 角色 id -> 菜单 id 集合，只在加锁时访问
+     */
+    private final Map<Integer, Set<Integer>> roleMenus = new HashMap<>();
+    /**
+     * 角色 id -> 权限位图，写时复制，读取不加锁
+     */
+    private volatile Map<Integer, BitSet> roleBits = Map.of();
+    private volatile long version;
+    /**
+     * 角色组合 -> 权限集合，版本变化后失效
+     */
+    private final Map<String, PermissionSet> resolved = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public synchronized void reload() {
+        menuBits.clear();
+        roleMenus.clear();
+        for (SysMenu menu : sysMenuMapper.getMenuList(BUTTON, true)) {
+            menuBits.put(menu.getId(), toBits(menu.getAuth()));
+        }
+        List<SysRoleMenu> list = sysRoleMenuMapper.selectList(new LambdaQueryWrapper<SysRoleMenu>()
+                .select(SysRoleMenu::getRoleId, SysRoleMenu::getMenuId));
+        for (SysRoleMenu roleMenu : list) {
+            roleMenus.computeIfAbsent(roleMenu.getRoleId(), k -> new HashSet<>()).add(roleMenu.getMenuId());
+        }
+        Map<Integer, BitSet> bits = new HashMap<>();
+        roleMenus.forEach((roleId, menuIds) -> bits.put(roleId, unionOf(menuIds)));
+        publish(bits);
+        log.info("权限索引加载完成，角色数：{}，权限数：{}", bits.size(), authorityNames.size());
+    }
+
+    /**
+     * 获取角色组合对应的权限集合
+     */
+    public PermissionSet resolve(Collection<Integer> roleIds) {
+        if (roleIds == null || roleIds.isEmpty()) {
+            return PermissionSet.EMPTY;
+        }
+        String key = new TreeSet<>(roleIds).toString();
+        long current = version;
+        PermissionSet permissions = resolved.get(key);
+        if (permissions != null && permissions.getVersion() == current) {
+            return permissions;
+        }
+        Map<Integer, BitSet> snapshot = roleBits;
+        BitSet bits = new BitSet();
+        for (Integer roleId : roleIds) {
+            BitSet roleBitSet = snapshot.get(roleId);
+            if (roleBitSet != null) {
+                bits.or(roleBitSet);
+            }
+        }
+        permissions = new PermissionSet(bits, authorityIds, authorityNames, current);
+        resolved.put(key, permissions);
+        return permissions;
+    }
+
+    /**
+     * 角色菜单关系变化，事务提交后重建本节点索引并通知其他节点
+     */
+    public void roleChanged(Collection<Integer> roleIds) {
+        List<Integer> ids = new ArrayList<>(roleIds);
+        TransactionUtils.afterCommit(() -> {
+            refreshRoles(ids);
+            redisCache.publish(RedisKeys.getPermissionChannel(), message("roleIds", ids));
+        });
+    }
+
+    /**
+     * 菜单变化，事务提交后重建本节点索引并通知其他节点
+     */
+    public void menuChanged(Collection<Integer> menuIds) {
+        List<Integer> ids = new ArrayList<>(menuIds);
+        TransactionUtils.afterCommit(() -> {
+            refreshMenus(ids);
+            redisCache.publish(RedisKeys.getPermissionChannel(), message("menuIds", ids));
+        });
+    }
+
+    /**
+     * 重新加载角色的菜单关系，只重建这些角色的位图
+     */
+    public synchronized void refreshRoles(Collection<Integer> roleIds) {
+        if (roleIds.isEmpty()) {
+            return;
+        }
+        roleIds.forEach(roleMenus::remove);
+        List<SysRoleMenu> list = sysRoleMenuMapper.selectList(new LambdaQueryWrapper<SysRoleMenu>()
+                .select(SysRoleMenu::getRoleId, SysRoleMenu::getMenuId)
+                .in(SysRoleMenu::getRoleId, roleIds));
+        for (SysRoleMenu roleMenu : list) {
+            roleMenus.computeIfAbsent(roleMenu.getRoleId(), k -> new HashSet<>()).add(roleMenu.getMenuId());
+        }
+        Map<Integer, BitSet> bits = new HashMap<>(roleBits);
+        for (Integer roleId : roleIds) {
+            Set<Integer> menuIds = roleMenus.get(roleId);
+            if (menuIds == null) {
+                bits.remove(roleId);
+            } else {
+                bits.put(roleId, unionOf(menuIds));
+            }
+        }
+        publish(bits);
+    }
+
+    /**
+     * 重新加载菜单的权限标识，并重建包含这些菜单的角色
+     */
+    public synchronized void refreshMenus(Collection<Integer> menuIds) {
+        if (menuIds.isEmpty()) {
+            return;
+        }
+        menuIds.forEach(menuBits::remove);
+        for (SysMenu menu : sysMenuMapper.selectBatchIds(menuIds)) {
+            if (BUTTON.equals(menu.getType())) {
+                menuBits.put(menu.getId(), toBits(menu.getAuth()));
+            }
+        }
+        Set<Integer> roleIds = new HashSet<>();
+        roleMenus.forEach((roleId, roleMenuIds) -> {
+            for (Integer menuId : menuIds) {
+                if (roleMenuIds.contains(menuId)) {
+                    roleIds.add(roleId);
+                    break;
+                }
+            }
+        });
+        refreshRoles(roleIds);
+    }
+
+    private BitSet unionOf(Set<Integer> menuIds) {
+        BitSet bits = new BitSet();
+        for (Integer menuId : menuIds) {
+            BitSet menuBitSet = menuBits.get(menuId);
+            if (menuBitSet != null) {
+                bits.or(menuBitSet);
+            }
+        }
+        return bits;
+    }
+
+    /**
+     * 解析逗号分隔的权限标识，新的标识分配 id
+     */
+    private BitSet toBits(String auth) {
+        BitSet bits = new BitSet();
+        if (StrUtil.isBlank(auth)) {
+            return bits;
+        }
+        for (String authority : auth.split(",")) {
+            authority = authority.trim();
+            if (authority.isEmpty()) {
+                continue;
+            }
+            Integer id = authorityIds.get(authority);
+            if (id == null) {
+                id = authorityNames.size();
+                authorityNames.add(authority);
+                authorityIds.put(authority, id);
+            }
+            bits.set(id);
+        }
+        return bits;
+    }
+
+    private void publish(Map<Integer, BitSet> bits) {
+        roleBits = bits;
+        version++;
+        resolved.clear();
+    }
+
+    private static Map<String, Object> message(String type, List<Integer> ids) {
+        Map<String, Object> message = new HashMap<>();
+        message.put(type, ids);
+        return message;
+    }
+}
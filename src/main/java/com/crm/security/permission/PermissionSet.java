@@ -0,0 +1,65 @@
+package com.crm.security.permission;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 用户权限集合，按权限 id 存放在位图中，创建后不再修改
+ *
+ * @author crm
+ */
+public class PermissionSet {
+    public static final PermissionSet EMPTY = new PermissionSet(new BitSet(), Map.of(), List.of(), 0);
+
+    private final BitSet bits;
+    /**
+     * 权限标识到权限 id 的映射，由 PermissionIndex 维护，只增不减
+     */
+    private final Map<String, Integer> authorityIds;
+    private final Set<String> authoritySet;
+    private final Collection<GrantedAuthority> authorities;
+    private final long version;
+
+    PermissionSet(BitSet bits, Map<String, Integer> authorityIds, List<String> authorityNames, long version) {
+        this.bits = bits;
+        this.authorityIds = authorityIds;
+        this.version = version;
+        Set<String> names = new HashSet<>();
+        Set<GrantedAuthority> grantedAuthorities = new HashSet<>();
+        for (int id = bits.nextSetBit(0); id >= 0; id = bits.nextSetBit(id + 1)) {
+            String name = authorityNames.get(id);
+            names.add(name);
+            grantedAuthorities.add(new SimpleGrantedAuthority(name));
+        }
+        this.authoritySet = Collections.unmodifiableSet(names);
+        this.authorities = Collections.unmodifiableSet(grantedAuthorities);
+    }
+
+    /**
+     * 是否拥有权限
+     */
+    public boolean has(String authority) {
+        Integer id = authorityIds.get(authority);
+        return id != null && bits.get(id);
+    }
+
+    public Set<String> getAuthoritySet() {
+        return authoritySet;
+    }
+
+    public Collection<GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    long getVersion() {
+        return version;
+    }
+}
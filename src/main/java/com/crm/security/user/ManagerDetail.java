@@ -1,14 +1,14 @@
 package com.crm.security.user;
 
+import com.alibaba.fastjson2.annotation.JSONField;
+import com.crm.security.permission.PermissionSet;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import java.util.Collection;
-import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.List;
 
 @Data
 public class ManagerDetail implements UserDetails {
@@ -38,14 +38,44 @@ public class ManagerDetail implements UserDetails {
      */
     private boolean isEnabled = true;
     /**
-     * 拥有权限集合
+     * 角色ID列表，权限由角色在权限索引中实时解析
      */
-    private Set<String> authoritySet;
+    private List<Integer> roleIdList;
+    /**
+     * 拥有权限集合，不写入缓存
+     */
+    @JsonIgnore
+    @JSONField(serialize = false, deserialize = false)
+    private transient PermissionSet permissions;
+
+    /**
+     * 复制一份用于当前请求，token 缓存中的实例由并发请求共享，不能直接修改
+     *
+     * @param roleIdList  角色ID列表
+     * @param permissions 按角色解析出的权限
+     */
+    public ManagerDetail withPermissions(List<Integer> roleIdList, PermissionSet permissions) {
+        ManagerDetail copy = new ManagerDetail();
+        copy.setId(id);
+        copy.setAccount(account);
+        copy.setPassword(password);
+        copy.setRealName(realName);
+        copy.setStatus(status);
+        copy.setUsername(username);
+        copy.setAccountNonExpired(isAccountNonExpired);
+        copy.setAccountNonLocked(isAccountNonLocked);
+        copy.setCredentialsNonExpired(isCredentialsNonExpired);
+        copy.setEnabled(isEnabled);
+        copy.setRoleIdList(roleIdList);
+        copy.setPermissions(permissions);
+        return copy;
+    }
 
     @Override
     @JsonIgnore
+    @JSONField(serialize = false)
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        return authoritySet.stream().map(SimpleGrantedAuthority::new).collect(Collectors.toSet());
+        return permissions == null ? List.of() : permissions.getAuthorities();
     }
 
     @Override
@@ -4,8 +4,10 @@ import com.crm.common.result.PageResult;
 import com.crm.entity.Contract;
 import com.baomidou.mybatisplus.extension.service.IService;
 import com.crm.query.ApprovalQuery;
+import com.crm.query.ContractBatchApprovalQuery;
 import com.crm.query.ContractQuery;
 import com.crm.query.IdQuery;
+import com.crm.vo.ContractApprovalResultVO;
 import com.crm.vo.ContractTrendPieVO;
 import com.crm.vo.ContractVO;
 
@@ -43,4 +45,12 @@ public interface ContractService extends IService<Contract> {
     void startApproval(IdQuery idQuery) ;
     void approvalContract(ApprovalQuery query) ;
 
+    /**
+     * 批量审核合同
+     *
+     * @param query 合同ID、审核结果和审核意见
+     * @return 每个合同的审核结果
+     */
+    List<ContractApprovalResultVO> batchApprovalContract(ContractBatchApprovalQuery query);
+
 }
\ No newline at end of file
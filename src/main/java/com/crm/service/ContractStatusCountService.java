@@ -0,0 +1,50 @@
+package com.crm.service;
+
+import com.baomidou.mybatisplus.extension.service.IService;
+import com.crm.entity.ContractStatusCount;
+import com.crm.vo.ContractTrendPieVO;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * <p>
+ * 合同状态计数 服务类
+ * </p>
+ *
+ * @author crm
+ */
+public interface ContractStatusCountService extends IService<ContractStatusCount> {
+
+    /**
+     * 合同变更前调用，锁定合同行后按变更前的负责人和状态减少计数，需与合同变更在同一事务中
+     */
+    void beforeChange(Integer contractId);
+
+    /**
+     * 合同变更后调用，按变更后的负责人和状态增加计数，需与合同变更在同一事务中
+     */
+    void afterChange(Integer contractId);
+
+    /**
+     * 批量变更前调用
+     */
+    void beforeChange(Collection<Integer> contractIds);
+
+    /**
+     * 批量变更后调用
+     */
+    void afterChange(Collection<Integer> contractIds);
+
+    /**
+     * 负责人的合同状态分布，数量只与状态数有关，与合同数量无关
+     */
+    List<ContractTrendPieVO> getPieData(Integer ownerId);
+
+    /**
+     * 与合同表重新统计的结果比较，修复不一致的负责人
+     *
+     * @return 修复的负责人数量
+     */
+    int verify();
+}
@@ -0,0 +1,53 @@
+package com.crm.service;
+
+import com.baomidou.mybatisplus.extension.service.IService;
+import com.crm.entity.CustomerHourlyStat;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * <p>
+ * 客户新增小时汇总 服务类
+ * </p>
+ *
+ * @author crm
+ */
+public interface CustomerHourlyStatService extends IService<CustomerHourlyStat> {
+
+    /**
+     * 客户变更前调用，按变更前的创建时间、负责人、来源、级别减少汇总，需与客户变更在同一事务中
+     */
+    void beforeChange(Collection<Integer> customerIds);
+
+    /**
+     * 客户新增或变更后调用，按变更后的数据增加汇总，需与客户变更在同一事务中
+     */
+    void afterChange(Collection<Integer> customerIds);
+
+    /**
+     * 按小时汇总的客户新增数，时间范围两端包含
+     */
+    List<CustomerHourlyStat> getHourlyTrend(LocalDateTime start, LocalDateTime end);
+
+    /**
+     * 按天汇总的客户新增数，时间范围两端包含
+     */
+    List<CustomerHourlyStat> getDailyTrend(LocalDateTime start, LocalDateTime end);
+
+    /**
+     * 按天从客户表重新统计，修复不一致的汇总
+     *
+     * @return 修复的汇总行数
+     */
+    int rebuild(LocalDate from, LocalDate to);
+
+    /**
+     * 重新统计最近几天的汇总，汇总表为空时从最早的客户开始补齐
+     *
+     * @return 修复的汇总行数
+     */
+    int rebuildRecent();
+}
@@ -9,6 +9,7 @@ import com.crm.query.CustomerTrendQuery;
 import com.crm.query.IdQuery;
 import com.crm.vo.CustomerVO;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.multipart.MultipartFile;
 
 import java.net.http.HttpResponse;
 import java.rmi.ServerException;
@@ -28,6 +29,20 @@ public interface CustomerService extends IService<Customer> {
     PageResult<CustomerVO> getPage(CustomerQuery query);
     //导出
     void exportCustomer(CustomerQuery query, HttpServletResponse response);
+
+    /**
+     * 提交异步导出任务
+     *
+     * @return 导出任务ID
+     */
+    String submitExport(CustomerQuery query);
+
+    /**
+     * 提交导入任务，模板与导出文件一致
+     *
+     * @return 导入任务ID，完成后可下载错误报告
+     */
+    String submitImport(MultipartFile file);
     //新增或修改
     void saveOrUpdate(CustomerVO customerVO) throws ServerException;
     //删除客户信息
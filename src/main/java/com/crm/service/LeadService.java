@@ -6,6 +6,7 @@ import com.crm.entity.Lead;
 import com.baomidou.mybatisplus.extension.service.IService;
 import com.crm.query.IdQuery;
 import com.crm.query.LeadQuery;
+import org.springframework.web.multipart.MultipartFile;
 
 
 public interface LeadService extends IService<Lead> {
@@ -40,4 +41,12 @@ public interface LeadService extends IService<Lead> {
      */
     void followLead(FollowUp followUp);
 
+    /**
+     * 提交导入任务
+     *
+     * @param file 线索文件
+     * @return 导入任务ID，完成后可下载错误报告
+     */
+    String submitImport(MultipartFile file);
+
 }
\ No newline at end of file
@@ -0,0 +1,24 @@
+package com.crm.service;
+
+import com.baomidou.mybatisplus.extension.service.IService;
+import com.crm.entity.MailOutbox;
+
+/**
+ * <p>
+ * 邮件发件箱 服务类
+ * </p>
+ *
+ * @author crm
+ */
+public interface MailOutboxService extends IService<MailOutbox> {
+
+    /**
+     * 写入发件箱，与业务数据在同一事务中提交，提交后异步发送
+     *
+     * @param bizKey  业务唯一标识，同一标识只会发送一次
+     * @param to      收件人
+     * @param subject 主题
+     * @param content 正文
+     */
+    void enqueue(String bizKey, String to, String subject, String content);
+}
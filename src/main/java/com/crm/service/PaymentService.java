@@ -3,7 +3,10 @@ package com.crm.service;
 import com.crm.common.result.PageResult;
 import com.crm.entity.Payment;
 import com.baomidou.mybatisplus.extension.service.IService;
+import com.crm.query.PaymentBatchReviewQuery;
+import com.crm.query.PaymentPendingQuery;
 import com.crm.query.PaymentQuery;
+import com.crm.vo.PaymentReviewResultVO;
 import com.crm.vo.PaymentVO;
 
 import java.util.List;
@@ -23,8 +26,11 @@ public interface PaymentService extends IService<Payment> {
     // 回款审核（通过/驳回）
     boolean approvePayment(Integer id, Integer status, String remark);
 
-    // 查询待审核回款列表
-    List<Payment> listPendingApproval();
+    // 查询待审核回款列表，按支付时间顺序翻页
+    List<Payment> listPendingApproval(PaymentPendingQuery query);
+
+    // 回款批量审核，返回每条回款的审核结果
+    List<PaymentReviewResultVO> batchReview(PaymentBatchReviewQuery query);
 
     PageResult<PaymentVO> getPage(PaymentQuery query);
     PaymentVO getDetailById(Integer id);
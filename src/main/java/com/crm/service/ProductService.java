@@ -13,6 +13,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.rmi.ServerException;
 import java.util.List;
+import java.util.Map;
 
 /**
  * <p>
@@ -44,4 +45,11 @@ public interface ProductService extends IService<Product> {
     @Transactional(rollbackFor = Exception.class)
     void updateShelfTime(Long productId, String onShelfTime, String offShelfTime);
 
+    /**
+     * 批量扣减/退回库存，任一商品不存在或库存不足时抛出异常，异常信息中列出失败的商品和原因
+     *
+     * @param deltas 商品ID -> 扣减数量，负数表示退回
+     */
+    void applyStockDeltas(Map<Integer, Integer> deltas);
+
 }
@@ -37,4 +37,11 @@ public interface SysManagerRoleService extends IService<SysManagerRole> {
      * @return
      */
     SysManagerRole getByManagerId(Integer managerId);
+
+    /**
+     * 根据管理员ID 获取角色ID列表
+     * @param managerId 管理员ID
+     * @return 角色ID列表
+     */
+    List<Integer> getRoleIdList(Integer managerId);
 }
@@ -23,6 +23,13 @@ public interface SysMenuService extends IService<SysMenu> {
      */
     List<SysMenuVO> getManagerMenuList(ManagerDetail manager, String type);
 
+    /**
+     * 用户菜单列表，返回序列化后的响应 JSON，按角色组合缓存
+     *
+     * @param type 菜单类型
+     */
+    byte[] getManagerMenuJson(ManagerDetail manager, String type);
+
     Set<String> getManagerAuthority(ManagerDetail manager);
 
     /**
@@ -2,18 +2,28 @@ package com.crm.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.baomidou.mybatisplus.extension.toolkit.Db;
 import com.crm.common.exception.ServerException;
+import com.crm.common.model.SeekCursor;
 import com.crm.common.result.PageResult;
+import com.crm.common.sequence.SerialNumberGenerator;
 import com.crm.convert.ContractConvert;
 import com.crm.entity.*;
 import com.crm.enums.ContractStatusEnum;
+import com.crm.enums.SerialNumberTypeEnum;
 import com.crm.mapper.*;
 import com.crm.query.ApprovalQuery;
+import com.crm.query.ContractBatchApprovalQuery;
 import com.crm.query.ContractQuery;
 import com.crm.query.IdQuery;
 import com.crm.security.user.SecurityUser;
 import com.crm.service.ContractService;
+import com.crm.service.ContractStatusCountService;
+import com.crm.service.MailOutboxService;
+import com.crm.service.ProductService;
+import com.crm.utils.BatchLoader;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.crm.vo.ContractApprovalResultVO;
 import com.crm.vo.ContractTrendPieVO;
 import com.crm.vo.ContractVO;
 import com.crm.vo.ProductVO;
@@ -29,8 +39,13 @@ import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import static com.crm.utils.NumberUtils.generateContractNumber;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * <p>
@@ -46,13 +61,15 @@ import static com.crm.utils.NumberUtils.generateContractNumber;
 public class ContractServiceImpl extends ServiceImpl<ContractMapper, Contract> implements ContractService {
     private final ProductMapper productMapper;
     private final ContractProductMapper contractProductMapper;
+    private final ProductService productService;
+    private final SerialNumberGenerator serialNumberGenerator;
+    private final ContractStatusCountService contractStatusCountService;
     private final ContractMapper baseMapper;
     @Autowired
     private ApprovalMapper approvalMapper;
 
     @Override
     public PageResult<ContractVO> getPage(ContractQuery query) {
-        Page<ContractVO> page = new Page<>(query.getPage(), query.getLimit());
 //        条件查询
         MPJLambdaWrapper<Contract> wrapper = new MPJLambdaWrapper<>();
         if (StringUtils.isNotBlank(query.getName())) {
@@ -73,17 +90,30 @@ public class ContractServiceImpl extends ServiceImpl<ContractMapper, Contract> i
                 .selectAs(Customer::getName, ContractVO::getCustomerName)
                 .leftJoin(Customer.class, Customer::getId, Contract::getCustomerId)
                 .eq(Contract::getOwnerId, managerId).orderByDesc(Contract::getCreateTime);
-        Page<ContractVO> result = baseMapper.selectJoinPage(page, ContractVO.class, wrapper);
-//        查询合同签署的商品信息
-        if (!result.getRecords().isEmpty()) {
-            result.getRecords().forEach(contractVO -> {
-                List<ContractProduct> contractProducts = contractProductMapper.selectList(new LambdaQueryWrapper<ContractProduct>().eq(ContractProduct::getCId, contractVO.getId()));
-                contractVO.setProducts(ContractConvert.INSTANCE.toProductVOList(contractProducts));
-            });
+        if (query.isCursorMode()) {
+            // 游标分页：按 (create_time, id) 续读，不统计总数
+            SeekCursor.apply(wrapper, Contract::getCreateTime, Contract::getId, query.getCursor());
+            Page<ContractVO> result = baseMapper.selectJoinPage(SeekCursor.page(query), ContractVO.class, wrapper);
+            PageResult<ContractVO> pageResult = SeekCursor.result(result.getRecords(), query.getLimit(), ContractVO::getCreateTime, ContractVO::getId);
+            loadProducts(pageResult.getList());
+            return pageResult;
         }
+        Page<ContractVO> page = new Page<>(query.getPage(), query.getLimit());
+        Page<ContractVO> result = baseMapper.selectJoinPage(page, ContractVO.class, wrapper);
+        loadProducts(result.getRecords());
         return new PageResult<>(result.getRecords(), page.getTotal());
     }
 
+    /**
+     * 查询合同签署的商品信息，整页只执行一次查询
+     */
+    private void loadProducts(List<ContractVO> contracts) {
+        new BatchLoader().loadMany("contractProducts", contracts, ContractVO::getId,
+                ids -> contractProductMapper.selectList(new LambdaQueryWrapper<ContractProduct>().in(ContractProduct::getCId, ids)),
+                ContractProduct::getCId,
+                (contractVO, contractProducts) -> contractVO.setProducts(ContractConvert.INSTANCE.toProductVOList(contractProducts)));
+    }
+
 
     @Override
     @Transactional(rollbackFor = Exception.class)
@@ -101,13 +131,17 @@ public class ContractServiceImpl extends ServiceImpl<ContractMapper, Contract> i
         contract.setCreaterId(SecurityUser.getManagerId());
         contract.setOwnerId(SecurityUser.getManagerId());
         if (isNew) {
-            contract.setNumber(generateContractNumber());
+            contract.setNumber(serialNumberGenerator.next(SerialNumberTypeEnum.CONTRACT));
             baseMapper.insert(contract);
+            contractStatusCountService.afterChange(contract.getId());
         } else {
             Contract dbContract = baseMapper.selectById(contract.getId());
             if (dbContract == null) throw new ServerException("合同不存在");
             if (dbContract.getStatus() == 1) throw new ServerException("该合同已审核通过，请勿修改");
+            // 修改可能改变负责人和状态，按修改前后的数据调整计数
+            contractStatusCountService.beforeChange(contract.getId());
             baseMapper.updateById(contract);
+            contractStatusCountService.afterChange(contract.getId());
         }
 
 
@@ -120,8 +154,8 @@ public class ContractServiceImpl extends ServiceImpl<ContractMapper, Contract> i
     public List<ContractTrendPieVO> getContractStatusPieData() {
         // 获取当前登录用户ID，确保数据权限
         Integer managerId = SecurityUser.getManagerId();
-        // 调用Mapper方法按状态统计数量（传入用户ID）
-        List<ContractTrendPieVO> pieData = baseMapper.countByStatus(managerId);
+        // 读取按负责人维护的状态计数，不再扫描合同表
+        List<ContractTrendPieVO> pieData = contractStatusCountService.getPieData(managerId);
 
         // 计算总数量和占比（基于数量计算）
         int total = pieData.stream()
@@ -138,7 +172,7 @@ public class ContractServiceImpl extends ServiceImpl<ContractMapper, Contract> i
     @Autowired
     private SysManagerMapper sysManagerMapper;
     @Autowired
-    private EmailService emailService;
+    private MailOutboxService mailOutboxService;
 
     @Override
     @Transactional(rollbackFor = Exception.class)
@@ -174,7 +208,9 @@ public class ContractServiceImpl extends ServiceImpl<ContractMapper, Contract> i
         contract.setApprovalContent(approvalContent);
         contract.setApproverId(SecurityUser.getManagerId());
         contract.setApprovalTime(LocalDateTime.now());
+        contractStatusCountService.beforeChange(contract.getId());
         baseMapper.updateById(contract);
+        contractStatusCountService.afterChange(contract.getId());
 
         // 获取创建合同的销售ID（creater_id对应销售管理员ID）
         Integer salesId = contract.getCreaterId();
@@ -190,40 +226,132 @@ public class ContractServiceImpl extends ServiceImpl<ContractMapper, Contract> i
             return;
         }
 
-        // 发送邮件通知（同时支持通过和未通过）
-        try {
-            String emailSubject = "合同审核通知";
-            String emailContent;
-            if (query.getType() == 0) { // 0 表示审核通过
-                emailContent = String.format(
-                        "您好，%s！\n\n您创建的合同【%s】（编号：%s）已审核通过。\n审核意见：%s\n\n请及时跟进后续流程。",
-                        sales.getNickname(),
-                        contract.getName(),
-                        contract.getNumber(),
-                        query.getApprovalContent()
-                );
-            } else { // 非0 表示审核未通过
-                emailContent = String.format(
-                        "您好，%s！\n\n您创建的合同【%s】（编号：%s）审核未通过。\n审核意见：%s\n\n请查看并处理后重新提交。",
-                        sales.getNickname(),
-                        contract.getName(),
-                        contract.getNumber(),
-                        query.getApprovalContent()
-                );
+        // 邮件通知写入发件箱，随事务提交，由后台异步发送，审核不再等待邮件服务器
+        String emailSubject = "合同审核通知";
+        String emailContent;
+        if (query.getType() == 0) { // 0 表示审核通过
+            emailContent = String.format(
+                    "您好，%s！\n\n您创建的合同【%s】（编号：%s）已审核通过。\n审核意见：%s\n\n请及时跟进后续流程。",
+                    sales.getNickname(),
+                    contract.getName(),
+                    contract.getNumber(),
+                    query.getApprovalContent()
+            );
+        } else { // 非0 表示审核未通过
+            emailContent = String.format(
+                    "您好，%s！\n\n您创建的合同【%s】（编号：%s）审核未通过。\n审核意见：%s\n\n请查看并处理后重新提交。",
+                    sales.getNickname(),
+                    contract.getName(),
+                    contract.getNumber(),
+                    query.getApprovalContent()
+            );
+        }
+        mailOutboxService.enqueue("contract-approval:" + approval.getId(), sales.getEmail(), emailSubject, emailContent);
+        log.info("合同[ID:{}]审核{}，已提交通知销售[ID:{}]",
+                contract.getId(),
+                query.getType() == 0 ? "通过" : "未通过",
+                salesId);
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public List<ContractApprovalResultVO> batchApprovalContract(ContractBatchApprovalQuery query) {
+        boolean approved = query.getType() == 0;
+        String approvalContent = (approved ? "合同审核通过：" : "合同审核未通过：") + query.getApprovalContent();
+        Integer contractStatus = approved ? ContractStatusEnum.APPROVED.getValue() : ContractStatusEnum.REJECTED.getValue();
+        Integer managerId = SecurityUser.getManagerId();
+
+        // 一次查询校验全部合同，按主键顺序加锁，与单个审核和其他批量审核互斥
+        List<Integer> ids = query.getIds().stream().distinct().sorted().toList();
+        Map<Integer, Contract> contracts = baseMapper.selectList(new LambdaQueryWrapper<Contract>()
+                        .select(Contract::getId, Contract::getName, Contract::getNumber, Contract::getStatus, Contract::getCreaterId)
+                        .in(Contract::getId, ids)
+                        .last("for update"))
+                .stream().collect(Collectors.toMap(Contract::getId, Function.identity()));
+        Map<Integer, ContractApprovalResultVO> results = new LinkedHashMap<>();
+        List<Contract> pending = new ArrayList<>();
+        for (Integer id : query.getIds()) {
+            if (results.containsKey(id)) {
+                continue;
+            }
+            Contract contract = contracts.get(id);
+            if (contract == null) {
+                results.put(id, new ContractApprovalResultVO(id, false, "合同不存在"));
+            } else if (!ContractStatusEnum.PENDING.getValue().equals(contract.getStatus())) {
+                results.put(id, new ContractApprovalResultVO(id, false, "合同不在审核中"));
+            } else {
+                results.put(id, new ContractApprovalResultVO(id, true, null));
+                pending.add(contract);
             }
-            emailService.sendSimpleEmail(sales.getEmail(), emailSubject, emailContent);
-            log.info("合同[ID:{}]审核{}，已通知销售[ID:{}]",
-                    contract.getId(),
-                    query.getType() == 0 ? "通过" : "未通过",
-                    salesId);
-        } catch (Exception e) {
-            // 邮件发送失败不影响主流程，但记录日志
-            log.error("合同[ID:{}]审核通知邮件发送失败", contract.getId(), e);
         }
+        if (pending.isEmpty()) {
+            return new ArrayList<>(results.values());
+        }
+
+        // 一条语句完成状态变更，前后调整状态计数
+        List<Integer> pendingIds = pending.stream().map(Contract::getId).toList();
+        contractStatusCountService.beforeChange(pendingIds);
+        int updated = baseMapper.batchApprove(pendingIds, ContractStatusEnum.PENDING.getValue(), contractStatus,
+                approvalContent, managerId, LocalDateTime.now());
+        if (updated != pendingIds.size()) {
+            throw new ServerException("合同状态已变化，请重试");
+        }
+        contractStatusCountService.afterChange(pendingIds);
+
+        // 多行插入审核记录
+        List<Approval> approvals = pending.stream().map(contract -> {
+            Approval approval = new Approval();
+            approval.setType(0);
+            approval.setStatus(query.getType());
+            approval.setCreaterId(managerId);
+            approval.setContractId(contract.getId());
+            approval.setComment(approvalContent);
+            return approval;
+        }).toList();
+        approvalMapper.insertBatch(approvals);
+
+        notifySales(pending, approvals, approved, query.getApprovalContent());
+        return new ArrayList<>(results.values());
+    }
+
+    /**
+     * 按销售合并通知，每个销售一封邮件
+     */
+    private void notifySales(List<Contract> contracts, List<Approval> approvals, boolean approved, String comment) {
+        Map<Integer, Integer> approvalIds = new HashMap<>();
+        approvals.forEach(approval -> approvalIds.put(approval.getContractId(), approval.getId()));
+        Map<Integer, List<Contract>> bySales = contracts.stream()
+                .filter(contract -> contract.getCreaterId() != null)
+                .collect(Collectors.groupingBy(Contract::getCreaterId, LinkedHashMap::new, Collectors.toList()));
+        if (bySales.isEmpty()) {
+            return;
+        }
+        Map<Integer, SysManager> salesMap = sysManagerMapper.selectBatchIds(bySales.keySet()).stream()
+                .collect(Collectors.toMap(SysManager::getId, Function.identity()));
+        bySales.forEach((salesId, list) -> {
+            SysManager sales = salesMap.get(salesId);
+            if (sales == null || StringUtils.isBlank(sales.getEmail())) {
+                log.warn("销售[ID:{}]未设置邮箱，无法发送审核通知", salesId);
+                return;
+            }
+            StringBuilder content = new StringBuilder()
+                    .append("您好，").append(sales.getNickname()).append("！\n\n您创建的以下合同")
+                    .append(approved ? "已审核通过" : "审核未通过").append("：\n");
+            list.forEach(contract -> content.append("【").append(contract.getName()).append("】（编号：")
+                    .append(contract.getNumber()).append("）\n"));
+            content.append("审核意见：").append(comment).append("\n\n")
+                    .append(approved ? "请及时跟进后续流程。" : "请查看并处理后重新提交。");
+            // 以该销售第一条审核记录作为业务标识
+            Integer firstApprovalId = list.stream().map(contract -> approvalIds.get(contract.getId()))
+                    .filter(Objects::nonNull).min(Integer::compare).orElse(0);
+            mailOutboxService.enqueue("contract-approval-batch:" + firstApprovalId + ":" + salesId,
+                    sales.getEmail(), "合同审核通知", content.toString());
+        });
     }
 
     // startApproval 方法调整（替换硬编码1）
     @Override
+    @Transactional(rollbackFor = Exception.class)
     public void startApproval(IdQuery idQuery) {
         Contract contract = baseMapper.selectById(idQuery.getId());
         if (contract == null) {
@@ -231,7 +359,9 @@ public class ContractServiceImpl extends ServiceImpl<ContractMapper, Contract> i
         }
         // 状态变更为：审核中（枚举值）
         contract.setStatus(ContractStatusEnum.PENDING.getValue());
+        contractStatusCountService.beforeChange(contract.getId());
         baseMapper.updateById(contract);
+        contractStatusCountService.afterChange(contract.getId());
     }
 
     @Resource
@@ -249,79 +379,77 @@ public class ContractServiceImpl extends ServiceImpl<ContractMapper, Contract> i
     }
 
     private void handleContractProducts(Integer contractId, List<ProductVO> newProductList) {
-        log.info("接收到的产品ID列表：{}", newProductList.stream().map(ProductVO::getPId).toList());
         if (newProductList == null) return;
+        log.info("接收到的产品ID列表：{}", newProductList.stream().map(ProductVO::getPId).toList());
 
-        List<ContractProduct> oldProducts = contractProductMapper.selectList(
-                new LambdaQueryWrapper<ContractProduct>().eq(ContractProduct::getCId, contractId)
-        );
-
-        // === 1. 新增商品 ===
-        List<ProductVO> newAdded = newProductList.stream()
-                .filter(np -> oldProducts.stream().noneMatch(op -> op.getPId().equals(np.getPId())))
-                .toList();
-        for (ProductVO p : newAdded) {
-            Product product = checkAndGetProduct(p.getPId(), p.getCount());
-            decreaseStock(product, p.getCount());
-            ContractProduct cp = buildContractProduct(contractId, product, p.getCount());
-            contractProductMapper.insert(cp);
+        // 新的商品数量，同一商品多行时合并
+        Map<Integer, Integer> newCounts = new LinkedHashMap<>();
+        for (ProductVO p : newProductList) {
+            newCounts.merge(p.getPId(), p.getCount(), Integer::sum);
         }
 
-        // === 2. 修改数量 ===
-        List<ProductVO> changed = newProductList.stream()
-                .filter(np -> oldProducts.stream()
-                        .anyMatch(op -> op.getPId().equals(np.getPId()) && !op.getCount().equals(np.getCount())))
-                .toList();
-        for (ProductVO p : changed) {
-            ContractProduct old = oldProducts.stream()
-                    .filter(op -> op.getPId().equals(p.getPId()))
-                    .findFirst().orElseThrow();
-
-            Product product = checkAndGetProduct(p.getPId(), 0);
-            int diff = p.getCount() - old.getCount();
-
-            // 库存调整
-            if (diff > 0) decreaseStock(product, diff);
-            else if (diff < 0) increaseStock(product, -diff);
-
-            // 更新合同商品
-            old.setCount(p.getCount());
-            old.setPrice(product.getPrice());
-            old.setTotalPrice(product.getPrice().multiply(BigDecimal.valueOf(p.getCount())));
-            contractProductMapper.updateById(old);
+        // 原有的合同商品，同一商品的重复行按删除处理
+        Map<Integer, ContractProduct> oldMap = new HashMap<>();
+        List<ContractProduct> removed = new ArrayList<>();
+        for (ContractProduct op : contractProductMapper.selectList(
+                new LambdaQueryWrapper<ContractProduct>().eq(ContractProduct::getCId, contractId))) {
+            if (oldMap.putIfAbsent(op.getPId(), op) != null) {
+                removed.add(op);
+            }
         }
 
-        // === 3. 删除商品 ===
-        List<ContractProduct> removed = oldProducts.stream()
-                .filter(op -> newProductList.stream().noneMatch(np -> np.getPId().equals(op.getPId())))
-                .toList();
-        for (ContractProduct rm : removed) {
-            Product product = productMapper.selectById(rm.getPId());
-            if (product != null) increaseStock(product, rm.getCount());
-            contractProductMapper.deleteById(rm.getId());
+        // === 1. 按商品ID比对，计算新增、修改的商品和库存变化量 ===
+        Map<Integer, Integer> deltas = new HashMap<>();
+        Map<Integer, ContractProduct> changed = new LinkedHashMap<>();
+        List<Integer> added = new ArrayList<>();
+        newCounts.forEach((productId, count) -> {
+            ContractProduct old = oldMap.remove(productId);
+            if (old == null) {
+                added.add(productId);
+                deltas.put(productId, count);
+            } else if (!old.getCount().equals(count)) {
+                changed.put(productId, old);
+                deltas.put(productId, count - old.getCount());
+            }
+        });
+        // 未出现在新列表中的商品
+        removed.addAll(oldMap.values());
+        removed.forEach(rm -> deltas.merge(rm.getPId(), -rm.getCount(), Integer::sum));
+
+        // === 2. 一次查询新增、修改商品的名称和价格 ===
+        Map<Integer, Product> products = new HashMap<>();
+        if (!added.isEmpty() || !changed.isEmpty()) {
+            List<Integer> productIds = new ArrayList<>(added);
+            productIds.addAll(changed.keySet());
+            productMapper.selectBatchIds(productIds).forEach(product -> products.put(product.getId(), product));
+            List<Integer> missing = productIds.stream().filter(id -> !products.containsKey(id)).toList();
+            if (!missing.isEmpty()) {
+                throw new ServerException("商品不存在：" + missing);
+            }
         }
-    }
 
+        // === 3. 批量扣减/退回库存，库存不足时整体回滚 ===
+        productService.applyStockDeltas(deltas);
 
-    private Product checkAndGetProduct(Integer productId, int needCount) {
-        Product product = productMapper.selectById(productId);
-        if (product == null) throw new ServerException("商品不存在");
-        if (needCount > 0 && product.getStock() < needCount) {
-            throw new ServerException("商品库存不足");
+        // === 4. 批量写入合同商品 ===
+        if (!added.isEmpty()) {
+            Db.saveBatch(added.stream()
+                    .map(productId -> buildContractProduct(contractId, products.get(productId), newCounts.get(productId)))
+                    .toList());
+        }
+        if (!changed.isEmpty()) {
+            changed.forEach((productId, old) -> {
+                Product product = products.get(productId);
+                int count = newCounts.get(productId);
+                old.setCount(count);
+                old.setPrice(product.getPrice());
+                old.setTotalPrice(product.getPrice().multiply(BigDecimal.valueOf(count)));
+            });
+            Db.updateBatchById(changed.values());
+        }
+        if (!removed.isEmpty()) {
+            contractProductMapper.deleteBatchIds(removed.stream().map(ContractProduct::getId).toList());
         }
-        return product;
-    }
-
-    private void decreaseStock(Product product, int count) {
-        product.setStock(product.getStock() - count);
-        product.setSales(product.getSales() + count);
-        productMapper.updateById(product);
-    }
-
-    private void increaseStock(Product product, int count) {
-        product.setStock(product.getStock() + count);
-        product.setSales(product.getSales() - count);
-        productMapper.updateById(product);
     }
 
     private ContractProduct buildContractProduct(Integer contractId, Product product, int count) {
@@ -332,7 +460,6 @@ public class ContractServiceImpl extends ServiceImpl<ContractMapper, Contract> i
         cp.setCount(count);
         cp.setPrice(product.getPrice());
         cp.setTotalPrice(product.getPrice().multiply(BigDecimal.valueOf(count)));
-        log.info("即将入库的商品ID：{}", cp.getPId());
         return cp;
     }
 
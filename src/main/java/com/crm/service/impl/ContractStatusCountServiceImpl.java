@@ -0,0 +1,142 @@
+package com.crm.service.impl;
+
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.crm.entity.ContractStatusCount;
+import com.crm.mapper.ContractStatusCountMapper;
+import com.crm.service.ContractStatusCountService;
+import com.crm.vo.ContractTrendPieVO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * <p>
+ * 合同状态计数 服务实现类
+ * </p>
+ *
+ * @author crm
+ */
+@Slf4j
+@Service
+public class ContractStatusCountServiceImpl extends ServiceImpl<ContractStatusCountMapper, ContractStatusCount> implements ContractStatusCountService {
+    private final TransactionTemplate transactionTemplate;
+
+    public ContractStatusCountServiceImpl(TransactionTemplate transactionTemplate) {
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @Override
+    public void beforeChange(Integer contractId) {
+        // 先锁定合同行，减少计数时读取的负责人和状态在事务结束前不会被并发修改，变更后的增加计数同样基于该行
+        baseMapper.lockContract(contractId);
+        baseMapper.adjustByContract(contractId, -1);
+    }
+
+    @Override
+    public void afterChange(Integer contractId) {
+        baseMapper.adjustByContract(contractId, 1);
+    }
+
+    @Override
+    public void beforeChange(Collection<Integer> contractIds) {
+        if (!contractIds.isEmpty()) {
+            baseMapper.lockContracts(contractIds);
+            baseMapper.adjustByContracts(contractIds, -1);
+        }
+    }
+
+    @Override
+    public void afterChange(Collection<Integer> contractIds) {
+        if (!contractIds.isEmpty()) {
+            baseMapper.adjustByContracts(contractIds, 1);
+        }
+    }
+
+    @Override
+    public List<ContractTrendPieVO> getPieData(Integer ownerId) {
+        return baseMapper.selectPieData(ownerId);
+    }
+
+    @Override
+    public int verify() {
+        // 第一遍不加锁比较，只有不一致的负责人才加锁重新统计，避免校验阻塞正常的状态变更
+        Map<Integer, Map<Integer, Integer>> expected = group(baseMapper.countFromContracts());
+        Map<Integer, Map<Integer, Integer>> actual = group(baseMapper.selectList(null));
+        Set<Integer> ownerIds = new HashSet<>(expected.keySet());
+        ownerIds.addAll(actual.keySet());
+        int repaired = 0;
+        for (Integer ownerId : ownerIds) {
+            if (equalsIgnoreZero(expected.get(ownerId), actual.get(ownerId))) {
+                continue;
+            }
+            try {
+                Boolean fixed = transactionTemplate.execute(status -> repair(ownerId));
+                if (Boolean.TRUE.equals(fixed)) {
+                    repaired++;
+                }
+            } catch (Exception e) {
+                // 与状态变更发生死锁时放弃，下次校验再处理
+                log.warn("负责人[{}]合同状态计数修复失败", ownerId, e);
+            }
+        }
+        if (repaired > 0) {
+            log.warn("合同状态计数校验完成，修复负责人{}个", repaired);
+        }
+        return repaired;
+    }
+
+    /**
+     * 先锁定计数行，再以加锁读取重新统计，期间该负责人的状态变更会等待
+     *
+     * @return 是否有修改
+     */
+    private boolean repair(Integer ownerId) {
+        Map<Integer, Integer> actual = group(baseMapper.selectByOwnerForUpdate(ownerId)).getOrDefault(ownerId, Map.of());
+        Map<Integer, Integer> expected = group(baseMapper.countFromContractsByOwner(ownerId)).getOrDefault(ownerId, Map.of());
+        if (equalsIgnoreZero(expected, actual)) {
+            return false;
+        }
+        Set<Integer> statuses = new HashSet<>(expected.keySet());
+        statuses.addAll(actual.keySet());
+        for (Integer status : statuses) {
+            int count = expected.getOrDefault(status, 0);
+            if (!Objects.equals(count, actual.getOrDefault(status, 0))) {
+                log.warn("负责人[{}]状态[{}]合同数量不一致，计数{}，实际{}", ownerId, status, actual.get(status), count);
+                baseMapper.upsert(ownerId, status, count);
+            }
+        }
+        return true;
+    }
+
+    private static Map<Integer, Map<Integer, Integer>> group(List<ContractStatusCount> counts) {
+        Map<Integer, Map<Integer, Integer>> map = new HashMap<>();
+        for (ContractStatusCount count : counts) {
+            map.computeIfAbsent(count.getOwnerId(), id -> new HashMap<>()).put(count.getStatus(), count.getCount());
+        }
+        return map;
+    }
+
+    /**
+     * 数量为 0 的状态与不存在的状态视为相同
+     */
+    private static boolean equalsIgnoreZero(Map<Integer, Integer> expected, Map<Integer, Integer> actual) {
+        Map<Integer, Integer> a = expected == null ? Map.of() : expected;
+        Map<Integer, Integer> b = actual == null ? Map.of() : actual;
+        Set<Integer> statuses = new HashSet<>(a.keySet());
+        statuses.addAll(b.keySet());
+        for (Integer status : statuses) {
+            if (a.getOrDefault(status, 0).intValue() != b.getOrDefault(status, 0).intValue()) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,141 @@
+package com.crm.service.impl;
+
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.crm.entity.CustomerHourlyStat;
+import com.crm.mapper.CustomerHourlyStatMapper;
+import com.crm.service.CustomerHourlyStatService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * <p>
+ * 客户新增小时汇总 服务实现类
+ * </p>
+ *
+ * @author crm
+ */
+@Slf4j
+@Service
+public class CustomerHourlyStatServiceImpl extends ServiceImpl<CustomerHourlyStatMapper, CustomerHourlyStat> implements CustomerHourlyStatService {
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * 定时重新统计的天数，包含当天
+     */
+    @Value("${customer.hourly-stat.rebuild-days:2}")
+    private int rebuildDays;
+
+    public CustomerHourlyStatServiceImpl(TransactionTemplate transactionTemplate) {
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @Override
+    public void beforeChange(Collection<Integer> customerIds) {
+        if (!customerIds.isEmpty()) {
+            baseMapper.adjustByCustomers(customerIds, -1);
+        }
+    }
+
+    @Override
+    public void afterChange(Collection<Integer> customerIds) {
+        if (!customerIds.isEmpty()) {
+            baseMapper.adjustByCustomers(customerIds, 1);
+        }
+    }
+
+    @Override
+    public List<CustomerHourlyStat> getHourlyTrend(LocalDateTime start, LocalDateTime end) {
+        return baseMapper.selectHourlyTrend(start, end);
+    }
+
+    @Override
+    public List<CustomerHourlyStat> getDailyTrend(LocalDateTime start, LocalDateTime end) {
+        return baseMapper.selectDailyTrend(start, end);
+    }
+
+    @Override
+    public int rebuild(LocalDate from, LocalDate to) {
+        int repaired = 0;
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            LocalDate current = day;
+            try {
+                Integer fixed = transactionTemplate.execute(status -> repair(current));
+                repaired += fixed == null ? 0 : fixed;
+            } catch (Exception e) {
+                // 与客户变更发生死锁时放弃，下次重新统计时再处理
+                log.warn("客户新增汇总[{}]重新统计失败", current, e);
+            }
+        }
+        if (repaired > 0) {
+            log.warn("客户新增汇总重新统计完成，{} 至 {} 修复{}行", from, to, repaired);
+        }
+        return repaired;
+    }
+
+    @Override
+    public int rebuildRecent() {
+        LocalDate today = LocalDate.now();
+        LocalDate from = today.minusDays(Math.max(rebuildDays, 1) - 1);
+        if (baseMapper.selectCount(null) == 0) {
+            LocalDateTime minCreateTime = baseMapper.selectMinCreateTime();
+            if (minCreateTime == null) {
+                return 0;
+            }
+            from = minCreateTime.toLocalDate();
+            log.info("客户新增汇总为空，从{}开始补齐", from);
+        }
+        return rebuild(from, today);
+    }
+
+    /**
+     * 先锁定当天的汇总行，再以加锁读取重新统计，期间当天客户的变更会等待
+     *
+     * @return 修复的汇总行数
+     */
+    private int repair(LocalDate day) {
+        LocalDateTime start = day.atStartOfDay();
+        LocalDateTime end = start.plusDays(1);
+        Map<Key, Integer> actual = group(baseMapper.selectRangeForUpdate(start, end));
+        Map<Key, Integer> expected = group(baseMapper.countFromCustomers(start, end));
+        Set<Key> keys = new HashSet<>(expected.keySet());
+        keys.addAll(actual.keySet());
+        int repaired = 0;
+        for (Key key : keys) {
+            int count = expected.getOrDefault(key, 0);
+            if (count != actual.getOrDefault(key, 0)) {
+                CustomerHourlyStat stat = new CustomerHourlyStat();
+                stat.setStatHour(key.statHour());
+                stat.setOwnerId(key.ownerId());
+                stat.setSource(key.source());
+                stat.setLevel(key.level());
+                stat.setCreateCount(count);
+                baseMapper.upsert(stat);
+                repaired++;
+            }
+        }
+        return repaired;
+    }
+
+    private static Map<Key, Integer> group(List<CustomerHourlyStat> stats) {
+        Map<Key, Integer> map = new HashMap<>();
+        for (CustomerHourlyStat stat : stats) {
+            map.merge(new Key(stat.getStatHour(), stat.getOwnerId(), stat.getSource(), stat.getLevel()),
+                    stat.getCreateCount(), Integer::sum);
+        }
+        return map;
+    }
+
+    private record Key(LocalDateTime statHour, Integer ownerId, Integer source, Integer level) {
+    }
+}
@@ -2,32 +2,47 @@ package com.crm.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.crm.common.excel.ExcelImporter;
+import com.crm.common.excel.ImportHandler;
 import com.crm.common.exception.ServerException;
+import com.crm.common.export.ExportJobManager;
+import com.crm.common.model.SeekCursor;
 import com.crm.common.result.PageResult;
 import com.crm.convert.CustomerConvert;
 import com.crm.entity.Customer;
+import com.crm.entity.CustomerHourlyStat;
 import com.crm.entity.SysManager;
 import com.crm.mapper.CustomerMapper;
 import com.crm.query.CustomerQuery;
 import com.crm.query.CustomerTrendQuery;
 import com.crm.query.IdQuery;
 import com.crm.security.user.SecurityUser;
+import com.crm.service.CustomerHourlyStatService;
 import com.crm.service.CustomerService;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.crm.utils.DateUtils;
 import com.crm.utils.ExcelUtils;
-import com.crm.vo.CustomerTrendVO;
 import com.crm.vo.CustomerVO;
 import com.github.yulichang.wrapper.MPJLambdaWrapper;
 import io.micrometer.common.util.StringUtils;
+import jakarta.annotation.Resource;
 import jakarta.servlet.http.HttpServletResponse;
+import org.apache.ibatis.cursor.Cursor;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
 
 
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
+import java.time.temporal.WeekFields;
 import java.util.*;
+import java.util.function.Function;
 
 import static com.crm.utils.DateUtils.*;
 
@@ -41,18 +56,89 @@ import static com.crm.utils.DateUtils.*;
  */
 @Service
 public class CustomerServiceImpl extends ServiceImpl<CustomerMapper, Customer> implements CustomerService {
+    @Resource
+    private ExportJobManager exportJobManager;
+    @Resource
+    private PlatformTransactionManager transactionManager;
+    @Resource
+    private ExcelImporter excelImporter;
+    @Resource
+    private CustomerHourlyStatService customerHourlyStatService;
+
     @Override
     public PageResult<CustomerVO> getPage(CustomerQuery query) {
-        Page<CustomerVO> page = new Page<>(query.getPage(), query.getLimit());
         MPJLambdaWrapper<Customer> wrapper = selection(query);
+        if (query.isCursorMode()) {
+            // 游标分页：按 (create_time, id) 续读，不统计总数
+            SeekCursor.apply(wrapper, Customer::getCreateTime, Customer::getId, query.getCursor());
+            Page<CustomerVO> result = baseMapper.selectJoinPage(SeekCursor.page(query), CustomerVO.class, wrapper);
+            return SeekCursor.result(result.getRecords(), query.getLimit(), CustomerVO::getCreateTime, CustomerVO::getId);
+        }
+        Page<CustomerVO> page = new Page<>(query.getPage(), query.getLimit());
         Page<CustomerVO> result = baseMapper.selectJoinPage(page, CustomerVO.class, wrapper);
         return new PageResult<>(result.getRecords(), result.getTotal());
     }
     @Override
+    @Transactional(readOnly = true)
     public void exportCustomer(CustomerQuery query, HttpServletResponse httpResponse){
-        MPJLambdaWrapper<Customer> wrapper = selection(query);
-        List<Customer> customerList = baseMapper.selectJoinList(wrapper);
-        ExcelUtils.writeExcel(httpResponse, customerList,"客户信息","客户信息", CustomerVO.class);
+        // 流式读取，边读边写，Cursor 需在事务内遍历
+        try (Cursor<CustomerVO> cursor = baseMapper.selectExportCursor(query)) {
+            ExcelUtils.writeExcel(httpResponse, cursor, "客户信息", "客户信息", CustomerVO.class);
+        } catch (IOException e) {
+            throw new ServerException("客户信息文件导出失败");
+        }
+    }
+
+    @Override
+    public String submitExport(CustomerQuery query) {
+        long total = baseMapper.countExport(query);
+        return exportJobManager.submit("客户信息", total, (out, job) -> {
+            // 导出线程中开启只读事务，Cursor 在事务内遍历
+            TransactionTemplate template = new TransactionTemplate(transactionManager);
+            template.setReadOnly(true);
+            template.executeWithoutResult(status -> {
+                try (Cursor<CustomerVO> cursor = baseMapper.selectExportCursor(query)) {
+                    ExcelUtils.writeExcel(out, job.track(cursor), "客户信息", CustomerVO.class);
+                } catch (IOException e) {
+                    throw new ServerException("客户信息文件导出失败", e);
+                }
+            });
+        });
+    }
+
+    @Override
+    public String submitImport(MultipartFile file) {
+        Integer managerId = SecurityUser.getManagerId();
+        return excelImporter.submit(file, "客户导入错误报告", CustomerVO.class, new ImportHandler<>() {
+            @Override
+            public List<UniqueKey<CustomerVO>> uniqueKeys() {
+                // 客户名称是联系人姓名，同名不同人很常见，只按手机号查重
+                return List.of(new UniqueKey<>("手机号", CustomerVO::getPhone, baseMapper::selectExistingPhones));
+            }
+
+            @Override
+            public void insert(List<CustomerVO> rows) {
+                List<Customer> customers = new ArrayList<>(rows.size());
+                for (CustomerVO row : rows) {
+                    Customer customer = CustomerConvert.INSTANCE.convert(row);
+                    customer.setId(null);
+                    customer.setOwnerId(managerId);
+                    customer.setCreaterId(managerId);
+                    customer.setIsPublic(0);
+                    customers.add(customer);
+                }
+                // 写入和小时汇总在同一事务中
+                try {
+                    new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                        baseMapper.insertBatch(customers);
+                        customerHourlyStatService.afterChange(customers.stream().map(Customer::getId).toList());
+                    });
+                } catch (DuplicateKeyException e) {
+                    // 查重之后手机号被并发写入，唯一索引拒绝整批写入
+                    throw new ServerException("部分手机号已被其他操作录入，请重新导入该批数据");
+                }
+            }
+        });
     }
     private MPJLambdaWrapper<Customer> selection(CustomerQuery  query){
         MPJLambdaWrapper<Customer> wrapper = new MPJLambdaWrapper<>();
@@ -84,11 +170,11 @@ public class CustomerServiceImpl extends ServiceImpl<CustomerMapper, Customer> i
     }
 
     @Override
+    @Transactional(rollbackFor = Exception.class)
     public void saveOrUpdate(CustomerVO customerVO) throws ServerException {
-        LambdaQueryWrapper<Customer> wrapper = new LambdaQueryWrapper<Customer>().eq(Customer::getName, customerVO.getPhone());
+        LambdaQueryWrapper<Customer> wrapper = new LambdaQueryWrapper<Customer>().eq(Customer::getPhone, customerVO.getPhone());
         if (customerVO.getId() == null){
-            Customer customer = baseMapper.selectOne(wrapper);
-            if (customer != null){
+            if (baseMapper.exists(wrapper)){
                 throw new ServerException("该手机号客户已存在，请勿重复添加");
             }
             Customer convert = CustomerConvert.INSTANCE.convert(customerVO);
@@ -96,22 +182,27 @@ public class CustomerServiceImpl extends ServiceImpl<CustomerMapper, Customer> i
             convert.setOwnerId(managerId);
             convert.setCreaterId(managerId);
             baseMapper.insert(convert);
+            customerHourlyStatService.afterChange(List.of(convert.getId()));
         }else{
             wrapper.ne(Customer::getId, customerVO.getId());
-            Customer customer = baseMapper.selectOne(wrapper);
-            if(customer!=null){
+            if(baseMapper.exists(wrapper)){
                 throw new ServerException("该手机号客户已存在，请勿重复添加");
             }
             Customer convert = CustomerConvert.INSTANCE.convert(customerVO);
+            customerHourlyStatService.beforeChange(List.of(convert.getId()));
             baseMapper.updateById(convert);
+            customerHourlyStatService.afterChange(List.of(convert.getId()));
         }
     }
     @Override
+    @Transactional(rollbackFor = Exception.class)
     public void removeCustomer(List<Integer> ids){
+        customerHourlyStatService.beforeChange(ids);
         removeByIds(ids);
     }
 
     @Override
+    @Transactional(rollbackFor = Exception.class)
     public void customerToPublicPool(IdQuery idQuery) throws ServerException {
         Customer customer = baseMapper.selectById(idQuery.getId());
         if(customer == null){
@@ -119,10 +210,13 @@ public class CustomerServiceImpl extends ServiceImpl<CustomerMapper, Customer> i
         }
         customer.setIsPublic(1);
         customer.setOwnerId(null);
+        customerHourlyStatService.beforeChange(List.of(customer.getId()));
         baseMapper.updateById(customer);
+        customerHourlyStatService.afterChange(List.of(customer.getId()));
     }
 
     @Override
+    @Transactional(rollbackFor = Exception.class)
     public void publicPoolToPrivate(IdQuery idQuery) throws ServerException {
         Customer customer = baseMapper.selectById(idQuery.getId());
         if (customer == null) {
@@ -131,50 +225,53 @@ public class CustomerServiceImpl extends ServiceImpl<CustomerMapper, Customer> i
         customer.setIsPublic(0);
         Integer ownerId = SecurityUser.getManagerId();
         customer.setOwnerId(ownerId);
+        customerHourlyStatService.beforeChange(List.of(customer.getId()));
         baseMapper.updateById(customer);
+        customerHourlyStatService.afterChange(List.of(customer.getId()));
     }
 
     @Override
     public Map<String, List> getCustomerTrend(CustomerTrendQuery query) {
         // 1、X轴展示的时间
-        List<String> timeList = new ArrayList<>();
-        // 2、Y轴展示的数据
-        List<Integer> countList = new ArrayList<>();
-        // 3、Mapper 查询返回的结果
-        List<CustomerTrendVO> result;
+        List<String> timeList;
+        // 2、小时汇总按X轴的时间合并
+        Map<String, Integer> counts = new HashMap<>();
         if ("day".equals(query.getTransactionType())){
             LocalDateTime now = LocalDateTime.now();
-            LocalDateTime localDateTime =now.truncatedTo(ChronoUnit.SECONDS);
-            LocalDateTime startTime = now.withHour(0).withMinute(0).withSecond(0).truncatedTo(ChronoUnit.SECONDS);
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-            List<String> timeRange = new ArrayList<>();
-            timeRange.add(formatter.format(startTime));
-            timeRange.add(formatter.format(localDateTime));
-            timeList = getHourData(timeRange);
-            query.setTimeRange(timeRange);
-            result = baseMapper.getTradeStatistics(query);
-        }else if("monthrange".equals(query.getTransactionType())){
-            query.setTimeFormat("%Y-%m");
-            timeList = getMonthInRange(query.getTimeRange().get(0),query.getTimeRange().get(1));
-            result = baseMapper.getTradeStatisticsByDay(query);
-        }else if("week".equals(query.getTransactionType())){
-            timeList = getWeekInRange(query.getTimeRange().get(0),query.getTimeRange().get(1));
-            result = baseMapper.getTradeStatisticsByWeek(query);
+            timeList = getHourData(new ArrayList<>());
+            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("HH:00");
+            for (CustomerHourlyStat stat : customerHourlyStatService.getHourlyTrend(now.truncatedTo(ChronoUnit.DAYS), now)) {
+                counts.merge(formatter.format(stat.getStatHour()), stat.getCreateCount(), Integer::sum);
+            }
         }else{
-            query.setTimeFormat("%Y-%m-%d");
-            timeList = getDatesInRange(query.getTimeRange().get(0),query.getTimeRange().get(1));
-            result = baseMapper.getTradeStatisticsByDay(query);
+            String startTime = query.getTimeRange().get(0);
+            String endTime = query.getTimeRange().get(1);
+            Function<LocalDateTime, String> label;
+            if("monthrange".equals(query.getTransactionType())){
+                timeList = getMonthInRange(startTime, endTime);
+                label = DateTimeFormatter.ofPattern("yyyy-MM")::format;
+            }else if("week".equals(query.getTransactionType())){
+                timeList = getWeekInRange(startTime, endTime);
+                // 与 getWeekInRange 使用相同的周规则
+                WeekFields weekFields = WeekFields.of(Locale.CHINA);
+                label = time -> String.valueOf(time.get(weekFields.weekOfYear()));
+            }else{
+                timeList = getDatesInRange(startTime, endTime);
+                label = DateTimeFormatter.ofPattern("yyyy-MM-dd")::format;
+            }
+            DateTimeFormatter formatter = DateTimeFormatter.ofPattern(DATE_TIME_PATTERN);
+            LocalDateTime start = LocalDateTime.parse(startTime.trim(), formatter).truncatedTo(ChronoUnit.HOURS);
+            LocalDateTime end = LocalDateTime.parse(endTime.trim(), formatter);
+            for (CustomerHourlyStat stat : customerHourlyStatService.getDailyTrend(start, end)) {
+                counts.merge(label.apply(stat.getStatHour()), stat.getCreateCount(), Integer::sum);
+            }
         }
 
         //匹配时间点查询到的数据，没有值默认填充0
-        List<CustomerTrendVO> finalResult = result;
-        timeList.forEach((String time) -> {
-            finalResult.stream().filter((CustomerTrendVO item) -> item.getTradeTime().equals(time)).findFirst().ifPresentOrElse((CustomerTrendVO item) -> {
-                countList.add(item.getTradeCount());
-            }, () -> {
-                countList.add(0);
-            });
-        });
+        List<Integer> countList = new ArrayList<>(timeList.size());
+        for (String time : timeList) {
+            countList.add(counts.getOrDefault(time, 0));
+        }
 
         Map<String, List> resultMap = new HashMap<>();
         resultMap.put("timeList", timeList);
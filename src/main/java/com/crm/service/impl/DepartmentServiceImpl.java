@@ -2,6 +2,7 @@ package com.crm.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.conditions.query.LambdaQueryChainWrapper;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.crm.common.exception.ServerException;
 import com.crm.common.result.PageResult;
 import com.crm.entity.Department;
@@ -10,9 +11,11 @@ import com.crm.mapper.SysManagerMapper;
 import com.crm.query.DepartmentQuery;
 import com.crm.query.IdQuery;
 import com.crm.service.DepartmentService;
+import com.crm.utils.TreeIndex;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import lombok.AllArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -34,38 +37,29 @@ public class DepartmentServiceImpl extends ServiceImpl<DepartmentMapper, Departm
     @Override
     public PageResult<Department> getPage(DepartmentQuery query) {
         //1.构建条件查询wrapper
+        String name = query.getName() != null && !query.getName().isEmpty() ? query.getName() : null;
         LambdaQueryWrapper<Department> wrapper = new LambdaQueryWrapper<>();
-        if (query.getName() != null && !query.getName().isEmpty()) {
-            wrapper.like(Department::getName, query.getName());
-        }
-        List<Department> departments = baseMapper.selectList(wrapper);
-        if (departments.isEmpty()) {
+        wrapper.like(name != null, Department::getName, name);
+
+        //2.查询符合条件的最小层级，作为分页的顶级部门
+        Department top = baseMapper.selectOne(new LambdaQueryWrapper<Department>()
+                .select(Department::getLevel)
+                .like(name != null, Department::getName, name)
+                .orderByAsc(Department::getLevel).last("limit 1"));
+        if (top == null) {
             return new PageResult<>(Collections.emptyList(), 0);
         }
-
-
-        Integer minLevel = departments.stream().map(Department::getLevel).min(Integer::compareTo).orElse(0);
-
-        List<Department> topDepartment = departments.stream().filter(department -> department.getLevel().equals(minLevel)).toList();
-
-        int total = topDepartment.size();
-        int formIndex = (query.getPage() - 1) * query.getLimit();
-        int toIndex = Math.min(formIndex + query.getLimit(), total);
-        if (formIndex >= total) {
-            return new PageResult<>(Collections.emptyList(), total);
+        Page<Department> page = baseMapper.selectPage(new Page<>(query.getPage(), query.getLimit()),
+                wrapper.eq(Department::getLevel, top.getLevel()).orderByAsc(Department::getId));
+        List<Department> result = page.getRecords();
+        if (result.isEmpty()) {
+            return new PageResult<>(Collections.emptyList(), page.getTotal());
         }
 
-        List<Department> result = topDepartment.subList(formIndex, toIndex);
-        result.forEach(item -> getChildList(item,departments));
-        return new PageResult<>(result,total);
-    }
-    private Department getChildList(Department department, List<Department> list) {
-        list.forEach(item -> {
-            if (department.getId().equals(item.getParentId())) {
-                department.getChildren().add(getChildList(item, list));
-            }
-        });
-        return department;
+        //3.通过闭包表只查询当前页部门的子树，再构建父子关系
+        List<Department> children = baseMapper.selectSubtrees(result.stream().map(Department::getId).toList(), name);
+        TreeIndex.of(children, Department::getId, Department::getParentId).attach(result, Department::getChildren);
+        return new PageResult<>(result, page.getTotal());
     }
     @Override
     public List<Department> getList() {
@@ -83,13 +77,12 @@ public class DepartmentServiceImpl extends ServiceImpl<DepartmentMapper, Departm
         if (childDepartments.isEmpty()) {
             return parentDepartments;
         }
-//        3、递归构建父子关系
-        parentDepartments.forEach(item -> {
-            getChildList(item, childDepartments);
-        });
+//        3、建立索引构建父子关系
+        TreeIndex.of(childDepartments, Department::getId, Department::getParentId).attach(parentDepartments, Department::getChildren);
         return parentDepartments;
     }
     @Override
+    @Transactional(rollbackFor = Exception.class)
     public void saveOrEditDepartment(Department department) {
 //        1、查询新增/修改的部门名称是不是已经存在了，如果存在直接抛出异常
         LambdaQueryWrapper<Department> wrapper = new LambdaQueryWrapper<Department>().eq(Department::getName, department.getName());
@@ -114,6 +107,7 @@ public class DepartmentServiceImpl extends ServiceImpl<DepartmentMapper, Departm
                 }
             }
             baseMapper.insert(department);
+            baseMapper.insertClosure(department.getId(), department.getParentId());
         } else {
             Department aDepartment = baseMapper.selectById(department.getId());
             if (aDepartment == null) {
@@ -124,41 +118,50 @@ public class DepartmentServiceImpl extends ServiceImpl<DepartmentMapper, Departm
             if (!departments.isEmpty()) {
                 throw new ServerException("部门名称已存在");
             }
-//            3、修改部门存在上级部门且上级部门的信息发生了变化时，要修改关联的父子关系关联的id
-            if (department.getParentId() != 0 && !Objects.equals(department.getParentId(), aDepartment.getParentId())) {
+//            3、修改部门存在上级部门且上级部门的信息发生了变化时，整体移动子树
+            boolean moved = department.getParentId() != 0 && !Objects.equals(department.getParentId(), aDepartment.getParentId());
+            if (moved) {
                 Department parentDepart = baseMapper.selectById(department.getParentId());
-                String parentIds = aDepartment.getParentIds();
-                String newParentIds = "";
                 if (parentDepart == null) {
                     throw new ServerException("上级部门不存在");
                 }
+                // 上级部门不能为自己或下级部门
+                if (department.getId().equals(parentDepart.getId())
+                        || baseMapper.selectAncestorIds(parentDepart.getId()).contains(department.getId())) {
+                    throw new ServerException("上级部门不能为自己或下级部门");
+                }
                 if (parentDepart.getParentIds() == null || parentDepart.getParentIds().isEmpty()) {
-                    newParentIds = parentDepart.getId().toString();
-
+                    department.setParentIds(parentDepart.getId().toString());
                 } else {
-                    newParentIds = parentDepart.getParentIds() + "," + parentDepart.getId();
+                    department.setParentIds(parentDepart.getParentIds() + "," + parentDepart.getId());
                 }
                 department.setLevel(parentDepart.getLevel() + 1);
-                department.setParentIds(newParentIds);
-                String finalNewParentIds = newParentIds;
-                baseMapper.selectList(new LambdaQueryWrapper<Department>().eq(Department::getParentIds, parentIds)).forEach(item -> {
-                    item.setParentIds(item.getParentIds().replace(parentIds, finalNewParentIds));
-                    baseMapper.updateById(item);
-                });
             }
             baseMapper.updateById(department);
+            if (moved) {
+                // 闭包表中替换子树的外部祖先，后代部门的层级和 parent_ids 一并按集合更新
+                baseMapper.deleteClosureLinks(department.getId());
+                baseMapper.insertClosureLinks(department.getId(), department.getParentId());
+                baseMapper.updateSubtreeLevel(department.getId(), department.getLevel() - aDepartment.getLevel());
+                baseMapper.updateSubtreeParentIds(department.getId());
+            }
         }
 
     }
     @Override
+    @Transactional(rollbackFor = Exception.class)
     public void removeDepartment(IdQuery query) {
 //        List<SysManager> sysManagers = sysManagerMapper.selectList(new LambdaQueryWrapper<SysManager>().eq(SysManager::getDepartmentId, query.getId()));
 //        if (!sysManagers.isEmpty()) {
 //            throw new ServerException("部门下有管理员,请解绑后再删除");
 //        }
-        // 删除该部门以及子部门
-        List<Department> departments = baseMapper.selectList(new LambdaQueryWrapper<Department>().like(Department::getParentIds, query.getId()).or().eq(Department::getId, query.getId()));
-        removeBatchByIds(departments);
+        // 删除该部门以及子部门，子部门通过闭包表查询
+        List<Integer> idList = new ArrayList<>(baseMapper.selectSubtreeIds(query.getId()));
+        if (!idList.contains(query.getId())) {
+            idList.add(query.getId());
+        }
+        baseMapper.deleteClosure(idList);
+        removeBatchByIds(idList);
     }
 
 }
\ No newline at end of file
@@ -2,9 +2,13 @@ package com.crm.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.crm.common.excel.ExcelImporter;
+import com.crm.common.excel.ImportHandler;
 import com.crm.common.exception.ServerException;
+import com.crm.common.model.SeekCursor;
 import com.crm.common.result.PageResult;
 import com.crm.convert.CustomerConvert;
+import com.crm.convert.LeadConvert;
 import com.crm.entity.Customer;
 import com.crm.entity.FollowUp;
 import com.crm.entity.Lead;
@@ -14,13 +18,20 @@ import com.crm.mapper.LeadMapper;
 import com.crm.query.IdQuery;
 import com.crm.query.LeadQuery;
 import com.crm.security.user.SecurityUser;
+import com.crm.service.CustomerHourlyStatService;
 import com.crm.service.LeadService;
+import com.crm.vo.LeadImportVO;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import lombok.AllArgsConstructor;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.multipart.MultipartFile;
 import springfox.documentation.oas.mappers.SecurityMapper;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * 服务实现类
  */
@@ -29,11 +40,12 @@ import springfox.documentation.oas.mappers.SecurityMapper;
 public class LeadServiceImpl extends ServiceImpl<LeadMapper, Lead> implements LeadService {
     private final CustomerMapper customerMapper;
     private final FollowUpMapper followUpMapper;
+    private final ExcelImporter excelImporter;
+    private final CustomerHourlyStatService customerHourlyStatService;
 
 
     @Override
     public PageResult<Lead> getPage(LeadQuery query) {
-        Page<Lead> page = new Page<>(query.getPage(), query.getLimit());
         LambdaQueryWrapper<Lead> wrapper = new LambdaQueryWrapper<>();
 
         // 线索名称模糊查询
@@ -59,12 +71,20 @@ public class LeadServiceImpl extends ServiceImpl<LeadMapper, Lead> implements Le
         // 按创建时间降序
         wrapper.orderByDesc(Lead::getCreateTime);
 
-        Page<Lead> leadPage = baseMapper.selectPage(page, wrapper);
+        if (query.isCursorMode()) {
+            // 游标分页：按 (create_time, id) 续读，不统计总数
+            SeekCursor.apply(wrapper, Lead::getCreateTime, Lead::getId, query.getCursor());
+            Page<Lead> leadPage = baseMapper.selectPage(SeekCursor.page(query), wrapper);
+            return SeekCursor.result(leadPage.getRecords(), query.getLimit(), Lead::getCreateTime, Lead::getId);
+        }
+
+        Page<Lead> leadPage = baseMapper.selectPage(new Page<>(query.getPage(), query.getLimit()), wrapper);
         return new PageResult<>(leadPage.getRecords(), leadPage.getTotal());
     }
 
 
     @Override
+    @Transactional(rollbackFor = Exception.class)
     public void saveOrEdit(Lead lead) {
         LambdaQueryWrapper<Lead> wrapper = new LambdaQueryWrapper<Lead>().eq(Lead::getName, lead.getName());
         Customer customer = customerMapper.selectOne(new LambdaQueryWrapper<Customer>().eq(Customer::getPhone, lead.getPhone()));
@@ -89,7 +109,14 @@ public class LeadServiceImpl extends ServiceImpl<LeadMapper, Lead> implements Le
                 idQuery.setId(lead.getId());
                 convertToCustomer(idQuery);
             } else {
-                customerMapper.delete(new LambdaQueryWrapper<Customer>().eq(Customer::getPhone, lead.getPhone()));
+                List<Integer> customerIds = customerMapper.selectList(new LambdaQueryWrapper<Customer>()
+                                .select(Customer::getId)
+                                .eq(Customer::getPhone, lead.getPhone()))
+                        .stream().map(Customer::getId).toList();
+                if (!customerIds.isEmpty()) {
+                    customerHourlyStatService.beforeChange(customerIds);
+                    customerMapper.deleteBatchIds(customerIds);
+                }
             }
             baseMapper.updateById(lead);
         }
@@ -97,16 +124,21 @@ public class LeadServiceImpl extends ServiceImpl<LeadMapper, Lead> implements Le
     }
 
     @Override
+    @Transactional(rollbackFor = Exception.class)
     public void convertToCustomer(IdQuery idQuery) {
         Lead lead = baseMapper.selectById(idQuery.getId());
         if (lead == null) {
             throw new ServerException("该线索不存在,客户转化失败");
         }
 //        1、将线索信息转化为客户，注意id设置为空，且设置创建人为当前的销售
+        if (customerMapper.exists(new LambdaQueryWrapper<Customer>().eq(Customer::getPhone, lead.getPhone()))) {
+            throw new ServerException("该手机号客户已经存在,客户转化失败");
+        }
         Customer customer = CustomerConvert.INSTANCE.leadConvert(lead);
         customer.setId(null);
         customer.setCreaterId(SecurityUser.getManagerId());
         customerMapper.insert(customer);
+        customerHourlyStatService.afterChange(List.of(customer.getId()));
 //       2、修改线索状态
         lead.setStatus(1);
         baseMapper.updateById(lead);
@@ -126,4 +158,28 @@ public class LeadServiceImpl extends ServiceImpl<LeadMapper, Lead> implements Le
         followUp.setTargetType(1);
         followUpMapper.insert(followUp);
     }
+
+    @Override
+    public String submitImport(MultipartFile file) {
+        Integer managerId = SecurityUser.getManagerId();
+        return excelImporter.submit(file, "线索导入错误报告", LeadImportVO.class, new ImportHandler<>() {
+            @Override
+            public List<UniqueKey<LeadImportVO>> uniqueKeys() {
+                return List.of(
+                        new UniqueKey<>("线索名称", LeadImportVO::getName, baseMapper::selectExistingNames),
+                        new UniqueKey<>("手机号", LeadImportVO::getPhone, baseMapper::selectExistingPhones));
+            }
+
+            @Override
+            public void insert(List<LeadImportVO> rows) {
+                List<Lead> leads = new ArrayList<>(rows.size());
+                for (LeadImportVO row : rows) {
+                    Lead lead = LeadConvert.INSTANCE.convert(row);
+                    lead.setOwnerId(managerId);
+                    leads.add(lead);
+                }
+                baseMapper.insertBatch(leads);
+            }
+        });
+    }
 }
\ No newline at end of file
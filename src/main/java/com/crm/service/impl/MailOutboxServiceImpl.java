@@ -0,0 +1,40 @@
+package com.crm.service.impl;
+
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.crm.common.mail.MailDeliveryWorker;
+import com.crm.entity.MailOutbox;
+import com.crm.mapper.MailOutboxMapper;
+import com.crm.service.MailOutboxService;
+import com.crm.utils.TransactionUtils;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+/**
+ * <p>
+ * 邮件发件箱 服务实现类
+ * </p>
+ *
+ * @author crm
+ */
+@Slf4j
+@Service
+@AllArgsConstructor
+public class MailOutboxServiceImpl extends ServiceImpl<MailOutboxMapper, MailOutbox> implements MailOutboxService {
+    private final MailDeliveryWorker mailDeliveryWorker;
+
+    @Override
+    public void enqueue(String bizKey, String to, String subject, String content) {
+        MailOutbox outbox = new MailOutbox();
+        outbox.setBizKey(bizKey);
+        outbox.setToAddress(to);
+        outbox.setSubject(subject);
+        outbox.setContent(content);
+        if (baseMapper.insertIgnore(outbox) == 0) {
+            log.info("发件箱邮件[{}]已存在，忽略", bizKey);
+            return;
+        }
+        // 事务提交后邮件才可见，此时再唤醒投递
+        TransactionUtils.afterCommit(mailDeliveryWorker::wakeUp);
+    }
+}
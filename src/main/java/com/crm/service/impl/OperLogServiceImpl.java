@@ -2,6 +2,7 @@ package com.crm.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.crm.common.model.SeekCursor;
 import com.crm.common.result.PageResult;
 import com.crm.entity.OperLog;
 import com.crm.mapper.OperLogMapper;
@@ -26,8 +27,6 @@ public class OperLogServiceImpl extends ServiceImpl<OperLogMapper, OperLog> impl
 
     @Override
     public PageResult<OperLog> page(OperLogQuery query) {
-        Page<OperLog> page = new Page<>(query.getPage(), query.getLimit())
-                ;
         LambdaQueryWrapper<OperLog> wrapper = new LambdaQueryWrapper<>();
 // 处理请求参数
         wrapper.eq(StringUtils.isNotBlank(query.getOperName()), OperLog::getOperName, query.getOperName());
@@ -38,6 +37,13 @@ public class OperLogServiceImpl extends ServiceImpl<OperLogMapper, OperLog> impl
                     0), query.getOperTime().get(1));
         }
         wrapper.orderByDesc(OperLog::getOperTime);
+        if (query.isCursorMode()) {
+            // 游标分页：日志按 (oper_time, id) 续读，不统计总数
+            SeekCursor.apply(wrapper, OperLog::getOperTime, OperLog::getId, query.getCursor());
+            Page<OperLog> result = baseMapper.selectPage(SeekCursor.page(query), wrapper);
+            return SeekCursor.result(result.getRecords(), query.getLimit(), OperLog::getOperTime, OperLog::getId);
+        }
+        Page<OperLog> page = new Page<>(query.getPage(), query.getLimit());
         Page<OperLog> result = baseMapper.selectPage(page, wrapper);
         return new PageResult<>(result.getRecords(), result.getTotal());
     }
@@ -1,28 +1,52 @@
 package com.crm.service.impl;
 
 import com.baomidou.mybatisplus.core.metadata.IPage;
-import com.baomidou.mybatisplus.core.toolkit.CollectionUtils;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.crm.common.exception.ServerException;
+import com.crm.common.model.SeekCursor;
+import com.crm.common.receivable.ReceivedAmountChangedEvent;
 import com.crm.entity.Contract;
 import com.crm.entity.Customer;
+import com.crm.entity.JobWatermark;
 import com.crm.entity.Payment;
 import com.crm.mapper.ContractMapper;
 import com.crm.mapper.CustomerMapper;
+import com.crm.mapper.JobWatermarkMapper;
 import com.crm.mapper.PaymentMapper;
+import com.crm.query.PaymentBatchReviewQuery;
+import com.crm.query.PaymentBatchReviewQuery.PaymentReviewItem;
+import com.crm.query.PaymentPendingQuery;
 import com.crm.query.PaymentQuery;
 import com.crm.service.PaymentService;
 import com.crm.common.result.PageResult; // 仅保留一次项目自定义 PageResult 导入
+import com.crm.vo.PaymentReviewResultVO;
 import com.crm.vo.PaymentVO;
 import com.github.yulichang.wrapper.MPJLambdaWrapper;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.cursor.Cursor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.StringUtils;
 
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -33,6 +57,7 @@ import java.util.stream.Collectors;
  * @author crm
  * @since 2025-10-12
  */
+@Slf4j
 @Service
 @Transactional
 public class PaymentServiceImpl extends ServiceImpl<PaymentMapper, Payment> implements PaymentService {
@@ -46,34 +71,122 @@ public class PaymentServiceImpl extends ServiceImpl<PaymentMapper, Payment> impl
     @Autowired
     private CustomerMapper customerMapper;
 
+    @Autowired
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    /**
+     * 回款生成任务的水位名
+     */
+    private static final String PAYMENT_GENERATE_JOB = "payment-generate";
+
+    @Autowired
+    private JobWatermarkMapper jobWatermarkMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * 每批插入的回款数
+     */
+    @Value("${payment.generate.chunk-size:500}")
+    private int chunkSize;
+
+    /**
+     * 只处理该时间之前更新的合同，单位：秒，避免水位越过尚未提交的合同
+     */
+    @Value("${payment.generate.safety-lag:60}")
+    private long safetyLag;
+
+    private final ReentrantLock generateLock = new ReentrantLock();
+
+    /**
+     * 从合同增量生成回款
+     * 按 (update_time, id) 从水位处流式读取合同，每批在独立事务中去重、插入并推进水位，
+     * 中途失败时已提交的批次不会重复生成，下次从水位处继续
+     */
     @Override
+    @Transactional(readOnly = true)
     public boolean generatePaymentFromContract() {
-        // 1. 查询未生成回款的合同
-        List<Contract> contracts = contractMapper.selectUnGeneratedPaymentContracts();
-        if (CollectionUtils.isEmpty(contracts)) {
-            return false;
+        if (!generateLock.tryLock()) {
+            throw new ServerException("回款数据正在生成，请稍后再试");
         }
+        try {
+            TransactionTemplate chunkTransaction = new TransactionTemplate(transactionManager);
+            chunkTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            JobWatermark watermark = chunkTransaction.execute(status -> {
+                jobWatermarkMapper.insertIgnore(PAYMENT_GENERATE_JOB, LocalDateTime.of(1970, 1, 1, 0, 0));
+                return jobWatermarkMapper.selectById(PAYMENT_GENERATE_JOB);
+            });
+            LocalDateTime beforeTime = LocalDateTime.now().minusSeconds(safetyLag);
 
-        // 2. 批量生成回款数据（金额：合同金额×100 转分存储）
-        List<Payment> payments = contracts.stream().map(contract -> {
-            Payment payment = new Payment();
-            payment.setContractId(contract.getId());
-            payment.setCustomerId(contract.getCustomerId());
-            payment.setContractNumber(contract.getNumber());
-            payment.setContractName(contract.getName());
-            // 合同金额（元）转分存储（确保 contract.getAmount() 不为 null）
-            payment.setNumber(contract.getAmount() != null ? contract.getAmount().multiply(new BigDecimal(100)).intValue() : 0);
-            // 修复："admin" 转 Integer 报错，改为默认创建人ID 1
-            payment.setCreaterId(1);
-            payment.setStatus(0); // 0-待审核
-            payment.setPaymentMethod(1); // 默认支付方式（1=银行转账）
-            payment.setPaymentTime(LocalDateTime.now());
-            payment.setDeleteFlag(0); // 未删除
-            return payment;
-        }).collect(Collectors.toList());
-
-        // 3. 批量插入回款表
-        return saveBatch(payments);
+            int generated = 0;
+            List<Contract> chunk = new ArrayList<>(chunkSize);
+            // 游标占用当前连接直到读完，批次写入在独立事务的其他连接中执行
+            try (Cursor<Contract> cursor = contractMapper.selectPaymentCandidates(
+                    watermark.getLastTime(), watermark.getLastId(), beforeTime)) {
+                for (Contract contract : cursor) {
+                    chunk.add(contract);
+                    if (chunk.size() >= chunkSize) {
+                        generated += saveChunk(chunkTransaction, chunk);
+                        chunk = new ArrayList<>(chunkSize);
+                    }
+                }
+            } catch (IOException e) {
+                throw new ServerException("读取合同失败");
+            }
+            if (!chunk.isEmpty()) {
+                generated += saveChunk(chunkTransaction, chunk);
+            }
+            log.info("从合同生成回款{}条", generated);
+            return generated > 0;
+        } finally {
+            generateLock.unlock();
+        }
+    }
+
+    /**
+     * 锁定水位后去重、插入并推进水位，多个节点同时执行时在水位行上排队
+     *
+     * @return 插入的回款数
+     */
+    private int saveChunk(TransactionTemplate chunkTransaction, List<Contract> chunk) {
+        Integer count = chunkTransaction.execute(status -> {
+            jobWatermarkMapper.selectForUpdate(PAYMENT_GENERATE_JOB);
+            Set<Integer> existing = new HashSet<>(paymentMapper.selectContractIdsWithPayment(
+                    chunk.stream().map(Contract::getId).toList()));
+            List<Payment> payments = chunk.stream()
+                    .filter(contract -> !existing.contains(contract.getId()))
+                    .map(this::toPayment)
+                    .toList();
+            if (!payments.isEmpty()) {
+                // rewriteBatchedStatements 开启后，一批回款合并为多行插入
+                saveBatch(payments, chunkSize);
+            }
+            Contract last = chunk.get(chunk.size() - 1);
+            jobWatermarkMapper.advance(PAYMENT_GENERATE_JOB, last.getUpdateTime(), last.getId().longValue());
+            return payments.size();
+        });
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * 合同生成回款（金额：合同金额×100 转分存储）
+     */
+    private Payment toPayment(Contract contract) {
+        Payment payment = new Payment();
+        payment.setContractId(contract.getId());
+        payment.setCustomerId(contract.getCustomerId());
+        payment.setContractNumber(contract.getNumber());
+        payment.setContractName(contract.getName());
+        // 合同金额（元）转分存储（确保 contract.getAmount() 不为 null）
+        payment.setNumber(contract.getAmount() != null ? contract.getAmount().multiply(new BigDecimal(100)).intValue() : 0);
+        // 修复："admin" 转 Integer 报错，改为默认创建人ID 1
+        payment.setCreaterId(1);
+        payment.setStatus(0); // 0-待审核
+        payment.setPaymentMethod(1); // 默认支付方式（1=银行转账）
+        payment.setPaymentTime(LocalDateTime.now());
+        payment.setDeleteFlag(0); // 未删除
+        return payment;
     }
 
     @Override
@@ -84,26 +197,122 @@ public class PaymentServiceImpl extends ServiceImpl<PaymentMapper, Payment> impl
             return false;
         }
 
-        // 2. 更新审核状态（1-通过，2-驳回）+ 更新时间
-        payment.setStatus(status);
-        payment.setUpdateTime(LocalDateTime.now());
-        return updateById(payment);
+        // 2. 更新审核状态（1-通过，2-驳回）+ 更新时间，以原状态为条件，并发审核时只有一次生效
+        boolean updated = lambdaUpdate()
+                .set(Payment::getStatus, status)
+                .set(Payment::getUpdateTime, LocalDateTime.now())
+                .setSql("version = version + 1")
+                .eq(Payment::getId, id)
+                .eq(payment.getStatus() != null, Payment::getStatus, payment.getStatus())
+                .isNull(payment.getStatus() == null, Payment::getStatus)
+                .update();
+        if (!updated) {
+            throw new ServerException("回款状态已变化，请刷新后重试");
+        }
+        publishReceivedChange(payment, receivedCents(payment.getStatus(), payment.getNumber()), receivedCents(status, payment.getNumber()));
+        return true;
+    }
+
+    /**
+     * 审核通过的回款计入已收款，单位：分
+     */
+    private static long receivedCents(Integer status, Integer number) {
+        return Integer.valueOf(1).equals(status) && number != null ? number : 0;
+    }
+
+    /**
+     * 发布已收款变化，汇总在当前事务中同步更新
+     */
+    private void publishReceivedChange(Payment payment, long before, long after) {
+        if (before != after) {
+            applicationEventPublisher.publishEvent(
+                    new ReceivedAmountChangedEvent(payment.getContractId(), payment.getCustomerId(), after - before));
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Payment> listPendingApproval(PaymentPendingQuery query) {
+        return paymentMapper.selectPendingQueue(query);
     }
 
+    /**
+     * 批量审核，按ID顺序锁定回款，逐条校验状态和版本号，
+     * 通过和驳回各执行一次以版本号为条件的 UPDATE，冲突的回款不影响其他回款
+     */
     @Override
-    public List<Payment> listPendingApproval() {
-        return paymentMapper.selectPendingApproval();
+    public List<PaymentReviewResultVO> batchReview(PaymentBatchReviewQuery query) {
+        Map<Integer, PaymentReviewItem> items = new TreeMap<>();
+        for (PaymentReviewItem item : query.getItems()) {
+            if (items.putIfAbsent(item.getId(), item) != null) {
+                throw new ServerException("回款ID重复：" + item.getId());
+            }
+        }
+
+        // 1. 按ID顺序加锁，与单条审核、金额修改互斥，避免并发批量审核死锁
+        Map<Integer, Payment> payments = lambdaQuery()
+                .in(Payment::getId, items.keySet())
+                .orderByAsc(Payment::getId)
+                .last("for update")
+                .list()
+                .stream()
+                .collect(Collectors.toMap(Payment::getId, Function.identity()));
+
+        // 2. 逐条校验，冲突的回款记录原因和当前版本号
+        Map<Integer, PaymentReviewResultVO> results = new LinkedHashMap<>();
+        Map<Integer, List<PaymentReviewItem>> byStatus = new TreeMap<>();
+        for (PaymentReviewItem item : items.values()) {
+            Payment payment = payments.get(item.getId());
+            String message = null;
+            if (payment == null) {
+                message = "回款不存在";
+            } else if (item.getStatus() != 1 && item.getStatus() != 2) {
+                message = "审核状态只能为通过或驳回";
+            } else if (!Integer.valueOf(0).equals(payment.getStatus())) {
+                message = "回款已审核";
+            } else if (!item.getVersion().equals(payment.getVersion())) {
+                message = "回款已被修改，请刷新后重试";
+            }
+            if (message != null) {
+                results.put(item.getId(), new PaymentReviewResultVO(item.getId(), false, message,
+                        payment == null ? null : payment.getVersion()));
+                continue;
+            }
+            byStatus.computeIfAbsent(item.getStatus(), k -> new ArrayList<>()).add(item);
+            results.put(item.getId(), new PaymentReviewResultVO(item.getId(), true, null, item.getVersion() + 1));
+        }
+
+        // 3. 每种审核状态一次 UPDATE，行已锁定，更新数不一致说明数据异常
+        for (Map.Entry<Integer, List<PaymentReviewItem>> entry : byStatus.entrySet()) {
+            int updated = paymentMapper.batchReview(entry.getKey(), entry.getValue());
+            if (updated != entry.getValue().size()) {
+                throw new ServerException("回款状态已变化，请刷新后重试");
+            }
+        }
+
+        // 4. 审核通过的回款按合同汇总后计入已收款
+        Map<ContractCustomer, Long> received = new LinkedHashMap<>();
+        for (PaymentReviewItem item : byStatus.getOrDefault(1, List.of())) {
+            Payment payment = payments.get(item.getId());
+            received.merge(new ContractCustomer(payment.getContractId(), payment.getCustomerId()),
+                    receivedCents(1, payment.getNumber()), Long::sum);
+        }
+        received.forEach((key, cents) -> {
+            if (cents != 0) {
+                applicationEventPublisher.publishEvent(new ReceivedAmountChangedEvent(key.contractId(), key.customerId(), cents));
+            }
+        });
+        log.info("回款批量审核：提交 {} 条，成功 {} 条", items.size(),
+                byStatus.values().stream().mapToInt(List::size).sum());
+        return new ArrayList<>(results.values());
     }
 
     @Override
     public PageResult<PaymentVO> getPage(PaymentQuery query) {
-        // 1. 构建分页对象（页码、每页条数与前端参数对齐）
-        Page<PaymentVO> page = new Page<>(query.getPage(), query.getLimit());
-
-        // 2. 构建 MPJ 关联查询条件（使用 getter 方法引用，适配项目环境）
+        // 1. 构建 MPJ 关联查询条件（使用 getter 方法引用，适配项目环境）
         MPJLambdaWrapper<Payment> wrapper = new MPJLambdaWrapper<>();
 
-        // 2.1 筛选条件（空条件不生效，避免误过滤）
+        // 1.1 筛选条件（空条件不生效，避免误过滤）
         if (StringUtils.hasText(query.getContractNumber())) {
             wrapper.like(Payment::getContractNumber, query.getContractNumber());
         }
@@ -120,18 +329,33 @@ public class PaymentServiceImpl extends ServiceImpl<PaymentMapper, Payment> impl
             wrapper.eq(Payment::getPaymentMethod, query.getPaymentMethod());
         }
 
-        // 2.2 关联客户表+数据过滤+排序（字段引用正确）
+        // 1.2 关联客户表+数据过滤+排序（字段引用正确）
         wrapper.selectAll(Payment.class) // 查询回款表所有字段
                 .selectAs(Customer::getName, PaymentVO::getCustomerName) // 客户名称映射到 VO
                 .leftJoin(Customer.class, Customer::getId, Payment::getCustomerId) // 关联条件：客户ID匹配
                 .eq(Payment::getDeleteFlag, 0) // 过滤未删除数据
                 .orderByDesc(Payment::getCreateTime); // 按创建时间倒序
 
-        // 3. 执行分页关联查询
+        // 2. 游标分页：按 (create_time, id) 续读，不统计总数
+        if (query.isCursorMode()) {
+            SeekCursor.apply(wrapper, Payment::getCreateTime, Payment::getId, query.getCursor());
+            IPage<PaymentVO> iPage = paymentMapper.selectJoinPage(SeekCursor.page(query), PaymentVO.class, wrapper);
+            return SeekCursor.result(format(iPage.getRecords()), query.getLimit(), PaymentVO::getCreateTime, PaymentVO::getId);
+        }
+
+        // 3. 执行分页关联查询（页码、每页条数与前端参数对齐）
+        Page<PaymentVO> page = new Page<>(query.getPage(), query.getLimit());
         IPage<PaymentVO> iPage = paymentMapper.selectJoinPage(page, PaymentVO.class, wrapper);
 
-        // 4. VO 数据格式化（分转元、状态/支付方式文本转换）
-        List<PaymentVO> formattedList = iPage.getRecords().stream()
+        // 4. 正确封装返回结果（匹配自定义 PageResult 构造器）
+        return new PageResult<>(format(iPage.getRecords()), iPage.getTotal());
+    }
+
+    /**
+     * VO 数据格式化（分转元、状态/支付方式文本转换）
+     */
+    private List<PaymentVO> format(List<PaymentVO> records) {
+        return records.stream()
                 .peek(vo -> {
                     // 金额：分转元（保留2位小数）
                     vo.setAmount(vo.getNumber() != null ? String.format("%.2f", vo.getNumber() / 100.0) : "0.00");
@@ -151,9 +375,6 @@ public class PaymentServiceImpl extends ServiceImpl<PaymentMapper, Payment> impl
                     });
                 })
                 .collect(Collectors.toList());
-
-        // 5. 正确封装返回结果（匹配自定义 PageResult 构造器）
-        return new PageResult<>(formattedList, iPage.getTotal());
     }
 
     // 查询回款详情（修复关联字段和映射错误）
@@ -168,15 +389,34 @@ public class PaymentServiceImpl extends ServiceImpl<PaymentMapper, Payment> impl
         return paymentMapper.selectJoinOne(PaymentVO.class, wrapper);
     }
 
-    // 编辑回款金额（逻辑正常）
+    // 编辑回款金额，已审核通过的回款同步调整已收款
     @Override
     public boolean updatePaymentAmount(Integer id, Integer newAmount) {
         Payment payment = getById(id);
         if (payment == null || payment.getDeleteFlag() == 1) {
             return false;
         }
-        payment.setNumber(newAmount); // 金额以分为单位存储
-        payment.setUpdateTime(LocalDateTime.now());
-        return updateById(payment);
+        // 金额以分为单位存储，以原金额和状态为条件，避免与并发修改或审核交错
+        boolean updated = lambdaUpdate()
+                .set(Payment::getNumber, newAmount)
+                .set(Payment::getUpdateTime, LocalDateTime.now())
+                .setSql("version = version + 1")
+                .eq(Payment::getId, id)
+                .eq(payment.getNumber() != null, Payment::getNumber, payment.getNumber())
+                .isNull(payment.getNumber() == null, Payment::getNumber)
+                .eq(payment.getStatus() != null, Payment::getStatus, payment.getStatus())
+                .isNull(payment.getStatus() == null, Payment::getStatus)
+                .update();
+        if (!updated) {
+            throw new ServerException("回款已变化，请刷新后重试");
+        }
+        publishReceivedChange(payment, receivedCents(payment.getStatus(), payment.getNumber()), receivedCents(payment.getStatus(), newAmount));
+        return true;
+    }
+
+    /**
+     * 已收款汇总键
+     */
+    private record ContractCustomer(Integer contractId, Integer customerId) {
     }
 }
\ No newline at end of file
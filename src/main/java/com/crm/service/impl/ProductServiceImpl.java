@@ -5,16 +5,24 @@ import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.crm.common.exception.ServerException;
 import com.crm.common.model.BaseServiceImpl;
 import com.crm.common.result.PageResult;
+import com.crm.common.stock.HotStockManager;
 import com.crm.entity.Product;
 import com.crm.mapper.ProductMapper;
 import com.crm.query.ProductQuery;
 import com.crm.service.ProductService;
 import io.micrometer.common.util.StringUtils;
+import jakarta.annotation.Resource;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * <p>
@@ -26,6 +34,8 @@ import java.time.format.DateTimeFormatter;
  */
 @Service
 public class ProductServiceImpl extends BaseServiceImpl<ProductMapper, Product> implements ProductService {
+    @Resource
+    private HotStockManager hotStockManager;
 
     // 时间格式化器（解决前后端时间格式兼容问题）
     private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
@@ -107,8 +117,11 @@ public class ProductServiceImpl extends BaseServiceImpl<ProductMapper, Product>
             if (product.getPrice() != null) {
                 oldProduct.setPrice(product.getPrice());
             }
-            if (product.getStock() != null) {
+            // 热点商品的库存以计数器为准，换算为增量调整；updateById 跳过为 null 的库存字段
+            if (product.getStock() != null && !hotStockManager.updateStock(oldProduct.getId(), product.getStock())) {
                 oldProduct.setStock(product.getStock());
+            } else {
+                oldProduct.setStock(null);
             }
             if (product.getStatus() != null) {
                 oldProduct.setStatus(product.getStatus());
@@ -175,4 +188,84 @@ public class ProductServiceImpl extends BaseServiceImpl<ProductMapper, Product>
         product.setUpdateTime(LocalDateTime.now());
         baseMapper.updateById(product);
     }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public void applyStockDeltas(Map<Integer, Integer> deltas) {
+        // 按商品ID排序，忽略变化量为 0 的商品
+        Map<Integer, Integer> sorted = new TreeMap<>();
+        deltas.forEach((productId, count) -> {
+            if (count != null && count != 0) {
+                sorted.put(productId, count);
+            }
+        });
+        if (sorted.isEmpty()) {
+            return;
+        }
+        // 热点商品在计数器上扣减，不锁定数据库中的商品行
+        Map<Integer, Integer> hotDeltas = hotStockManager.extract(sorted);
+        applyDbStockDeltas(sorted);
+        // 数据库部分已加锁并扣减成功后再扣减计数器，失败时抛出异常回滚数据库部分
+        Map<Integer, Integer> hotFailed = hotStockManager.apply(hotDeltas);
+        if (!hotFailed.isEmpty()) {
+            Map<Integer, String> names = baseMapper.selectList(new LambdaQueryWrapper<Product>()
+                            .select(Product::getId, Product::getName)
+                            .in(Product::getId, hotFailed.keySet()))
+                    .stream().collect(Collectors.toMap(Product::getId, Product::getName));
+            List<String> failures = new ArrayList<>();
+            hotFailed.forEach((productId, stock) -> {
+                String name = names.getOrDefault(productId, String.valueOf(productId));
+                // 计数器不存在说明正在切换热点状态
+                failures.add(stock < 0 ? "商品[" + name + "]库存暂不可用，请重试"
+                        : "商品[" + name + "]库存不足，剩余" + stock + "，需要" + hotDeltas.get(productId));
+            });
+            throw new ServerException(String.join("；", failures));
+        }
+    }
+
+    private void applyDbStockDeltas(Map<Integer, Integer> sorted) {
+        if (sorted.isEmpty()) {
+            return;
+        }
+        // 按主键顺序锁定商品行后检查，失败原因准确，且不会与其他合同交叉加锁导致死锁
+        Map<Integer, Product> products = baseMapper.selectList(new LambdaQueryWrapper<Product>()
+                        .select(Product::getId, Product::getName, Product::getStock)
+                        .in(Product::getId, sorted.keySet())
+                        .last("for update"))
+                .stream().collect(Collectors.toMap(Product::getId, Function.identity()));
+        List<String> failures = new ArrayList<>();
+        sorted.entrySet().removeIf(entry -> {
+            Product product = products.get(entry.getKey());
+            if (product != null) {
+                return false;
+            }
+            // 已删除的商品不再退回库存
+            if (entry.getValue() > 0) {
+                failures.add("商品[" + entry.getKey() + "]不存在");
+            }
+            return true;
+        });
+        sorted.forEach((productId, count) -> {
+            Product product = products.get(productId);
+            if (count > 0 && product.getStock() < count) {
+                failures.add(stockShortage(product, count));
+            }
+        });
+        if (!failures.isEmpty()) {
+            throw new ServerException(String.join("；", failures));
+        }
+        if (sorted.isEmpty()) {
+            return;
+        }
+
+        // 条件更新，库存不足的行不会被更新，不会超卖
+        int updated = baseMapper.applyStockDeltas(sorted);
+        if (updated != sorted.size()) {
+            throw new ServerException("商品库存已变化，请重试");
+        }
+    }
+
+    private static String stockShortage(Product product, int count) {
+        return "商品[" + product.getName() + "]库存不足，剩余" + product.getStock() + "，需要" + count;
+    }
 }
\ No newline at end of file
@@ -3,15 +3,14 @@ package com.crm.service.impl;
 import com.crm.convert.SysManagerConvert;
 import com.crm.entity.SysManager;
 import com.crm.enums.AccountStatusEnum;
+import com.crm.security.permission.PermissionIndex;
 import com.crm.security.user.ManagerDetail;
 import com.crm.service.SysManagerDetailsService;
-import com.crm.service.SysMenuService;
+import com.crm.service.SysManagerRoleService;
 import lombok.AllArgsConstructor;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
-import java.util.Set;
-
 /**
  * 用户 UserDetails 信息
  *
@@ -21,7 +20,8 @@ import java.util.Set;
 @Service
 @AllArgsConstructor
 public class SysManagerDetailsServiceImpl implements SysManagerDetailsService {
-    private final SysMenuService sysMenuService;
+    private final SysManagerRoleService sysManagerRoleService;
+    private final PermissionIndex permissionIndex;
 
     @Override
     public UserDetails getManagerDetails(SysManager sysManager) {
@@ -33,9 +33,9 @@ public class SysManagerDetailsServiceImpl implements SysManagerDetailsService {
             managerDetail.setEnabled(false);
         }
 
-        // 用户权限列表
-        Set<String> authoritySet = sysMenuService.getManagerAuthority(managerDetail);
-        managerDetail.setAuthoritySet(authoritySet);
+        // 用户角色列表，权限从权限索引中解析
+        managerDetail.setRoleIdList(sysManagerRoleService.getRoleIdList(sysManager.getId()));
+        managerDetail.setPermissions(permissionIndex.resolve(managerDetail.getRoleIdList()));
 
         return managerDetail;
     }
@@ -5,11 +5,17 @@ import com.crm.common.exception.ServerException;
 import com.crm.entity.SysManagerRole;
 import com.crm.mapper.SysManagerRoleMapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.crm.security.cache.TokenStoreCache;
 import com.crm.service.SysManagerRoleService;
+import com.crm.utils.TransactionUtils;
+import jakarta.annotation.Resource;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * <p>
@@ -20,6 +26,9 @@ import java.util.List;
  */
 @Service
 public class SysManagerRoleServiceImpl extends ServiceImpl<SysManagerRoleMapper, SysManagerRole> implements SysManagerRoleService {
+    @Resource
+    private TokenStoreCache tokenStoreCache;
+
     @Override
     public void saveOrUpdate(Integer managerId, Integer roleId) {
         SysManagerRole sysManagerRole = baseMapper.selectOne(new LambdaQueryWrapper<SysManagerRole>()
@@ -30,6 +39,7 @@ public class SysManagerRoleServiceImpl extends ServiceImpl<SysManagerRoleMapper,
         }
         sysManagerRole.setRoleId(roleId);
         saveOrUpdate(sysManagerRole);
+        refreshTokens(List.of(managerId));
     }
 
     @Override
@@ -42,7 +52,12 @@ public class SysManagerRoleServiceImpl extends ServiceImpl<SysManagerRoleMapper,
     @Override
     @Transactional(rollbackFor = Exception.class)
     public void deleteByRoleIdList(List<Integer> roleIdList) {
+        List<Integer> managerIds = baseMapper.selectList(new LambdaQueryWrapper<SysManagerRole>()
+                        .select(SysManagerRole::getManagerId)
+                        .in(SysManagerRole::getRoleId, roleIdList))
+                .stream().map(SysManagerRole::getManagerId).distinct().toList();
         remove(new LambdaQueryWrapper<SysManagerRole>().in(SysManagerRole::getRoleId, roleIdList));
+        refreshTokens(managerIds);
     }
 
     @Override
@@ -54,4 +69,30 @@ public class SysManagerRoleServiceImpl extends ServiceImpl<SysManagerRoleMapper,
         }
         return sysManagerRole;
     }
+
+    @Override
+    public List<Integer> getRoleIdList(Integer managerId) {
+        return baseMapper.selectList(new LambdaQueryWrapper<SysManagerRole>()
+                        .select(SysManagerRole::getRoleId)
+                        .eq(SysManagerRole::getManagerId, managerId))
+                .stream().map(SysManagerRole::getRoleId).toList();
+    }
+
+    /**
+     * 事务提交后重新查询管理员的角色，更新已登录 token 中的角色列表
+     */
+    private void refreshTokens(List<Integer> managerIds) {
+        if (managerIds.isEmpty()) {
+            return;
+        }
+        TransactionUtils.afterCommit(() -> {
+            Map<Integer, List<Integer>> roleIdLists = new HashMap<>();
+            managerIds.forEach(id -> roleIdLists.put(id, new ArrayList<>()));
+            baseMapper.selectList(new LambdaQueryWrapper<SysManagerRole>()
+                            .select(SysManagerRole::getManagerId, SysManagerRole::getRoleId)
+                            .in(SysManagerRole::getManagerId, managerIds))
+                    .forEach(r -> roleIdLists.get(r.getManagerId()).add(r.getRoleId()));
+            tokenStoreCache.updateRoleIdList(roleIdLists);
+        });
+    }
 }
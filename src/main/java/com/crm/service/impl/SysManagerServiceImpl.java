@@ -7,9 +7,11 @@ import com.crm.common.exception.ServerException;
 import com.crm.common.result.PageResult;
 import com.crm.convert.SysManagerConvert;
 import com.crm.entity.SysManager;
+import com.crm.enums.AccountStatusEnum;
 import com.crm.mapper.SysManagerMapper;
 import com.crm.query.ChangePasswordQuery;
 import com.crm.query.SysManagerQuery;
+import com.crm.security.cache.TokenStoreCache;
 import com.crm.security.user.ManagerDetail;
 import com.crm.service.SysManagerRoleService;
 import com.crm.service.SysManagerService;
@@ -31,6 +33,7 @@ import java.util.List;
 @AllArgsConstructor
 public class SysManagerServiceImpl extends ServiceImpl<SysManagerMapper, SysManager> implements SysManagerService {
     private SysManagerRoleService sysManagerRoleService;
+    private final TokenStoreCache tokenStoreCache;
 
     @Override
     public PageResult<SysManagerVO> page(SysManagerQuery query) {
@@ -68,6 +71,10 @@ public class SysManagerServiceImpl extends ServiceImpl<SysManagerMapper, SysMana
         updateById(entity);
         // 更新用户角色关系
         sysManagerRoleService.saveOrUpdate(entity.getId(), vo.getRoleId());
+        // 账号停用，强制下线
+        if (entity.getStatus() != null && entity.getStatus() == AccountStatusEnum.DISABLE.getValue()) {
+            tokenStoreCache.deleteUserById(entity.getId());
+        }
     }
 
     @Override
@@ -77,6 +84,8 @@ public class SysManagerServiceImpl extends ServiceImpl<SysManagerMapper, SysMana
         removeByIds(idList);
         // 删除用户角色关系
         sysManagerRoleService.removeByManagerId(idList);
+        // 强制下线
+        tokenStoreCache.deleteUserByIds(idList);
     }
 
     @Override
@@ -1,8 +1,9 @@
 package com.crm.service.impl;
 
-import cn.hutool.core.util.StrUtil;
+import cn.hutool.core.collection.CollUtil;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.toolkit.StringUtils;
+import com.crm.common.cache.MenuTreeCache;
 import com.crm.common.constant.Constant;
 import com.crm.common.exception.ServerException;
 import com.crm.convert.SysMenuConvert;
@@ -10,12 +11,17 @@ import com.crm.entity.SysMenu;
 import com.crm.enums.MenuTypeEnum;
 import com.crm.mapper.SysMenuMapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.crm.common.result.Result;
 import com.crm.query.SysMenuQuery;
+import com.crm.security.permission.PermissionIndex;
+import com.crm.security.permission.PermissionSet;
 import com.crm.security.user.ManagerDetail;
 import com.crm.service.SysMenuService;
 import com.crm.service.SysRoleMenuService;
 import com.crm.utils.TreeUtils;
 import com.crm.vo.SysMenuVO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.AllArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -33,6 +39,9 @@ import java.util.*;
 @AllArgsConstructor
 public class SysMenuServiceImpl extends ServiceImpl<SysMenuMapper, SysMenu> implements SysMenuService {
     private final SysRoleMenuService sysRoleMenuService;
+    private final PermissionIndex permissionIndex;
+    private final MenuTreeCache menuTreeCache;
+    private final ObjectMapper objectMapper;
 
     @Override
     public List<SysMenuVO> getManagerMenuList(ManagerDetail manager, String type) {
@@ -48,21 +57,35 @@ public class SysMenuServiceImpl extends ServiceImpl<SysMenuMapper, SysMenu> impl
     }
 
     @Override
-    public Set<String> getManagerAuthority(ManagerDetail manager) {
-        // 系统管理员，拥有最高权限
-        List<String> authorityList;
-        authorityList = baseMapper.getManagerAuthorityList(manager.getId());
-
-        // 用户权限列表
-        Set<String> permsSet = new HashSet<>();
-        for (String authority : authorityList) {
-            if (StrUtil.isBlank(authority)) {
-                continue;
-            }
-            permsSet.addAll(Arrays.asList(authority.trim().split(",")));
+    public byte[] getManagerMenuJson(ManagerDetail manager, String type) {
+        boolean admin = "admin".equals(manager.getAccount());
+        List<Integer> roleIdList = manager.getRoleIdList();
+        // 未记录角色的旧登录信息，不走缓存
+        if (!admin && CollUtil.isEmpty(roleIdList)) {
+            return toJson(Result.ok(getManagerMenuList(manager, type)));
+        }
+        // 相同角色组合的用户菜单相同，按角色组合缓存
+        String key = (admin ? "admin" : new TreeSet<>(roleIdList).toString()) + ":" + type;
+        return menuTreeCache.get(key, () -> {
+            List<SysMenu> menuList = admin ? baseMapper.getMenuList(type, false)
+                    : baseMapper.getRoleMenuList(roleIdList, type, false);
+            return toJson(Result.ok(TreeUtils.build(SysMenuConvert.INSTANCE.convertList(menuList))));
+        });
+    }
+
+    private byte[] toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new ServerException("菜单序列化失败", e);
         }
+    }
 
-        return permsSet;
+    @Override
+    public Set<String> getManagerAuthority(ManagerDetail manager) {
+        // 权限已在认证时由权限索引按角色解析，直接返回，不再查询数据库
+        PermissionSet permissions = manager.getPermissions();
+        return permissions == null ? Set.of() : permissions.getAuthoritySet();
     }
 
     @Override
@@ -96,6 +119,8 @@ public class SysMenuServiceImpl extends ServiceImpl<SysMenuMapper, SysMenu> impl
         SysMenu entity = SysMenuConvert.INSTANCE.convert(vo);
         // 保存菜单
         baseMapper.insert(entity);
+
+        menuTreeCache.invalidate();
     }
 
     @Override
@@ -108,6 +133,10 @@ public class SysMenuServiceImpl extends ServiceImpl<SysMenuMapper, SysMenu> impl
         }
         // 更新菜单
         updateById(entity);
+
+        // 权限标识可能变化，重建包含该菜单的角色权限
+        permissionIndex.menuChanged(List.of(entity.getId()));
+        menuTreeCache.invalidate();
     }
 
     @Override
@@ -122,6 +151,8 @@ public class SysMenuServiceImpl extends ServiceImpl<SysMenuMapper, SysMenu> impl
 
         // 删除角色菜单关系
         sysRoleMenuService.deleteByMenuId(id);
+
+        menuTreeCache.invalidate();
     }
 
     @Override
@@ -2,10 +2,13 @@ package com.crm.service.impl;
 
 import cn.hutool.core.collection.CollUtil;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.crm.common.cache.MenuTreeCache;
 import com.crm.entity.SysRoleMenu;
 import com.crm.mapper.SysRoleMenuMapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.crm.security.permission.PermissionIndex;
 import com.crm.service.SysRoleMenuService;
+import lombok.AllArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -21,7 +24,11 @@ import java.util.stream.Collectors;
 
  */
 @Service
+@AllArgsConstructor
 public class SysRoleMenuServiceImpl extends ServiceImpl<SysRoleMenuMapper, SysRoleMenu> implements SysRoleMenuService {
+    private final PermissionIndex permissionIndex;
+    private final MenuTreeCache menuTreeCache;
+
     @Override
     public List<Integer> getMenuIdList(Integer roleId){
         return baseMapper.getMenuIdList(roleId);
@@ -31,6 +38,9 @@ public class SysRoleMenuServiceImpl extends ServiceImpl<SysRoleMenuMapper, SysRo
     @Transactional(rollbackFor = Exception.class)
     public void deleteByMenuId(Integer menuId) {
         remove(new LambdaQueryWrapper<SysRoleMenu>().eq(SysRoleMenu::getMenuId, menuId));
+        // 重建包含该菜单的角色权限
+        permissionIndex.menuChanged(List.of(menuId));
+        menuTreeCache.invalidate();
     }
 
     @Override
@@ -59,6 +69,12 @@ public class SysRoleMenuServiceImpl extends ServiceImpl<SysRoleMenuMapper, SysRo
             LambdaQueryWrapper<SysRoleMenu> queryWrapper = new LambdaQueryWrapper<>();
             remove(queryWrapper.eq(SysRoleMenu::getRoleId, roleId).in(SysRoleMenu::getMenuId, deleteMenuIdList));
         }
+
+        // 菜单有变化时重建该角色权限
+        if (CollUtil.isNotEmpty(insertMenuIdList) || CollUtil.isNotEmpty(deleteMenuIdList)) {
+            permissionIndex.roleChanged(List.of(roleId));
+            menuTreeCache.invalidate();
+        }
     }
 
 
@@ -66,5 +82,7 @@ public class SysRoleMenuServiceImpl extends ServiceImpl<SysRoleMenuMapper, SysRo
     @Transactional(rollbackFor = Exception.class)
     public void deleteByRoleIdList(List<Integer> roleIdList) {
         remove(new LambdaQueryWrapper<SysRoleMenu>().in(SysRoleMenu::getRoleId, roleIdList));
+        permissionIndex.roleChanged(roleIdList);
+        menuTreeCache.invalidate();
     }
 }
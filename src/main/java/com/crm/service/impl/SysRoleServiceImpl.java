@@ -5,6 +5,7 @@ import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.crm.common.result.PageResult;
 import com.crm.convert.SysRoleConvert;
 import com.crm.entity.SysRole;
+import com.crm.entity.SysRoleMenu;
 import com.crm.mapper.SysRoleMapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.crm.mapper.SysRoleMenuMapper;
@@ -12,6 +13,7 @@ import com.crm.query.SysRoleQuery;
 import com.crm.service.SysManagerRoleService;
 import com.crm.service.SysRoleMenuService;
 import com.crm.service.SysRoleService;
+import com.crm.utils.BatchLoader;
 import com.crm.vo.SysRoleVO;
 import lombok.AllArgsConstructor;
 import org.springframework.stereotype.Service;
@@ -43,14 +45,13 @@ public class SysRoleServiceImpl extends ServiceImpl<SysRoleMapper, SysRole> impl
         wrapper.orderByDesc(SysRole::getCreateTime);
         Page<SysRole> result = baseMapper.selectPage(page, wrapper);
         List<SysRoleVO> list = SysRoleConvert.INSTANCE.convertList(result.getRecords());
-        if (list.size() > 0) {
-            for (SysRoleVO sysRoleVO : list) {
-                List<Integer> menuIdList = sysRoleMenuMapper.getMenuIdList(sysRoleVO.getId());
-                sysRoleVO.setMenuIds(menuIdList);
-
-            }
-
-        }
+        // 整页角色的菜单只执行一次查询
+        new BatchLoader().loadMany("roleMenus", list, SysRoleVO::getId,
+                ids -> sysRoleMenuMapper.selectList(new LambdaQueryWrapper<SysRoleMenu>()
+                        .select(SysRoleMenu::getRoleId, SysRoleMenu::getMenuId)
+                        .in(SysRoleMenu::getRoleId, ids)),
+                SysRoleMenu::getRoleId,
+                (sysRoleVO, roleMenus) -> sysRoleVO.setMenuIds(roleMenus.stream().map(SysRoleMenu::getMenuId).toList()));
         return new PageResult<>(list, page.getTotal());
     }
 
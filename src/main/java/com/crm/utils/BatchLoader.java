@@ -0,0 +1,96 @@
+package com.crm.utils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * 关联数据批量加载，用于分页结果等列表数据
+ * <p>
+ * 收集父记录的关联 key，每个关联只执行一次 IN 查询，按 key 分组后回填到父记录。
+ * 同一个 BatchLoader 实例在一次请求内复用，已加载过的 key 不会重复查询，
+ * 多层嵌套关联（如 合同 -> 合同商品 -> 商品）每层只需一次查询。
+ *
+ * @author crm
+ */
+public class BatchLoader {
+    /**
+     * 单次 IN 查询的最大 key 数量
+     */
+    private static final int BATCH_SIZE = 1000;
+
+    /**
+     * 关联名称 -> (key -> 关联数据)
+     */
+    private final Map<String, Map<Object, List<Object>>> memo = new HashMap<>();
+
+    /**
+     * 一对多关联
+     *
+     * @param name        关联名称，同名关联共用已加载的数据
+     * @param parents     父记录
+     * @param keyGetter   父记录中的关联 key
+     * @param query       根据 key 集合查询关联数据
+     * @param childKey    关联数据中的 key
+     * @param setter      回填关联数据，没有关联数据时回填空列表
+     */
+    public <P, K, C> void loadMany(String name, Collection<P> parents, Function<P, K> keyGetter,
+                                   Function<Collection<K>, List<C>> query, Function<C, K> childKey,
+                                   BiConsumer<P, List<C>> setter) {
+        Map<Object, List<Object>> loaded = load(name, parents, keyGetter, query, childKey);
+        for (P parent : parents) {
+            List<C> children = cast(loaded.get(keyGetter.apply(parent)));
+            setter.accept(parent, children == null ? new ArrayList<>() : new ArrayList<>(children));
+        }
+    }
+
+    /**
+     * 一对一关联，同一个 key 有多条数据时取第一条
+     */
+    public <P, K, C> void loadOne(String name, Collection<P> parents, Function<P, K> keyGetter,
+                                  Function<Collection<K>, List<C>> query, Function<C, K> childKey,
+                                  BiConsumer<P, C> setter) {
+        Map<Object, List<Object>> loaded = load(name, parents, keyGetter, query, childKey);
+        for (P parent : parents) {
+            List<C> children = cast(loaded.get(keyGetter.apply(parent)));
+            setter.accept(parent, children == null || children.isEmpty() ? null : children.get(0));
+        }
+    }
+
+    private <P, K, C> Map<Object, List<Object>> load(String name, Collection<P> parents, Function<P, K> keyGetter,
+                                                     Function<Collection<K>, List<C>> query, Function<C, K> childKey) {
+        Map<Object, List<Object>> loaded = memo.computeIfAbsent(name, k -> new HashMap<>());
+        // 只查询未加载过的 key
+        Set<K> keys = new LinkedHashSet<>();
+        for (P parent : parents) {
+            K key = keyGetter.apply(parent);
+            if (key != null && !loaded.containsKey(key)) {
+                keys.add(key);
+            }
+        }
+        if (keys.isEmpty()) {
+            return loaded;
+        }
+        List<K> keyList = new ArrayList<>(keys);
+        for (int from = 0; from < keyList.size(); from += BATCH_SIZE) {
+            List<K> batch = keyList.subList(from, Math.min(from + BATCH_SIZE, keyList.size()));
+            // 查询结果为空的 key 也记录下来，避免重复查询
+            batch.forEach(key -> loaded.put(key, new ArrayList<>()));
+            for (C child : query.apply(batch)) {
+                loaded.computeIfAbsent(childKey.apply(child), k -> new ArrayList<>()).add(child);
+            }
+        }
+        return loaded;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <C> List<C> cast(List<Object> list) {
+        return (List<C>) list;
+    }
+}
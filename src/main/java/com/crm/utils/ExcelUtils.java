@@ -2,7 +2,9 @@ package com.crm.utils;
 
 
 import com.alibaba.excel.EasyExcel;
+import com.alibaba.excel.ExcelWriter;
 import com.alibaba.excel.support.ExcelTypeEnum;
+import com.alibaba.excel.write.metadata.WriteSheet;
 import com.alibaba.excel.write.metadata.style.WriteCellStyle;
 import com.alibaba.excel.write.metadata.style.WriteFont;
 import com.alibaba.excel.write.style.HorizontalCellStyleStrategy;
@@ -13,6 +15,7 @@ import org.apache.poi.ss.usermodel.VerticalAlignment;
 
 import java.io.OutputStream;
 import java.net.URLEncoder;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -23,6 +26,16 @@ import java.util.List;
 * @create: 2025-10-19 10:37
 **/
 public class ExcelUtils {
+    /**
+     * 每批写入的行数，写入后 SXSSF 将超出行窗口的行刷到临时文件
+     */
+    public static final int BATCH_SIZE = 2000;
+
+    /**
+     * 单个 sheet 的最大数据行数，xlsx 上限为 1048576 行（含表头），超出后写入下一个 sheet
+     */
+    public static final int MAX_ROWS_PER_SHEET = 1_000_000;
+
     /**
      * 导出 excel
      *
@@ -33,6 +46,75 @@ public class ExcelUtils {
      * @param clazz     输出数据的模板
      */
     public static void writeExcel(HttpServletResponse response, List<? extends Object> data, String fileName, String sheetName, Class clazz) {
+        writeExcel(response, (Iterable<?>) data, fileName, sheetName, clazz);
+    }
+
+    /**
+     * 流式导出 excel，数据逐批写入 xlsx，内存占用与总行数无关
+     * 数据来源为 MyBatis Cursor 时需在事务内调用，由调用方关闭 Cursor
+     *
+     * @param response
+     * @param data      输出数据，只遍历一次
+     * @param fileName  excel 文件名称
+     * @param sheetName excel sheet 名称
+     * @param clazz     输出数据的模板
+     * @return 写入的行数
+     */
+    public static long writeExcel(HttpServletResponse response, Iterable<?> data, String fileName, String sheetName, Class<?> clazz) {
+        try {
+            return writeExcel(getOutputStream(fileName, response), data, sheetName, clazz);
+        } catch (Exception e) {
+            throw new ServerException(fileName + "文件导出失败");
+        }
+    }
+
+    /**
+     * 流式写入 xlsx 到输出流，每 BATCH_SIZE 行写入一次，每 MAX_ROWS_PER_SHEET 行换一个 sheet
+     *
+     * @param out       输出流，不负责关闭
+     * @param data      输出数据，只遍历一次
+     * @param sheetName excel sheet 名称，后续 sheet 依次追加序号
+     * @param clazz     输出数据的模板
+     * @return 写入的行数
+     */
+    public static long writeExcel(OutputStream out, Iterable<?> data, String sheetName, Class<?> clazz) {
+        ExcelWriter excelWriter = EasyExcel.write(out, clazz)
+                .excelType(ExcelTypeEnum.XLSX)
+                .autoCloseStream(false)
+                .registerWriteHandler(cellStyleStrategy())
+                .build();
+        try {
+            long total = 0;
+            int sheetNo = 0;
+            int sheetRows = 0;
+            WriteSheet writeSheet = EasyExcel.writerSheet(sheetNo, sheetName).build();
+            List<Object> batch = new ArrayList<>(BATCH_SIZE);
+            for (Object row : data) {
+                batch.add(row);
+                sheetRows++;
+                if (batch.size() >= BATCH_SIZE || sheetRows >= MAX_ROWS_PER_SHEET) {
+                    excelWriter.write(batch, writeSheet);
+                    total += batch.size();
+                    batch.clear();
+                }
+                if (sheetRows >= MAX_ROWS_PER_SHEET) {
+                    sheetNo++;
+                    sheetRows = 0;
+                    writeSheet = EasyExcel.writerSheet(sheetNo, sheetName + (sheetNo + 1)).build();
+                }
+            }
+            if (!batch.isEmpty() || total == 0) {
+                // 没有数据时也写出表头
+                excelWriter.write(batch, writeSheet);
+                total += batch.size();
+            }
+            return total;
+        } finally {
+            excelWriter.finish();
+        }
+    }
+
+    private static HorizontalCellStyleStrategy cellStyleStrategy() {
         //        表头样式
         WriteCellStyle headWriteCellStyle = new WriteCellStyle();
         WriteFont writeFont = new WriteFont();
@@ -47,22 +129,24 @@ public class ExcelUtils {
         contentWriteCellStyle.setHorizontalAlignment(HorizontalAlignment.CENTER);
         contentWriteCellStyle.setVerticalAlignment(VerticalAlignment.CENTER);
         contentWriteCellStyle.setWrapped(true);
-        HorizontalCellStyleStrategy horizontalCellStyleStrategy = new HorizontalCellStyleStrategy(headWriteCellStyle, contentWriteCellStyle);
-        try {
-            EasyExcel.write(getOutputStream(fileName, response), clazz).excelType(ExcelTypeEnum.XLS).sheet(sheetName).registerWriteHandler(horizontalCellStyleStrategy).doWrite(data);
-        } catch (Exception e) {
-            throw new ServerException(fileName + "文件导出失败");
-        }
-
+        return new HorizontalCellStyleStrategy(headWriteCellStyle, contentWriteCellStyle);
     }
 
     private static OutputStream getOutputStream(String fileName, HttpServletResponse response) throws Exception {
+        setDownloadHeader(fileName, response);
+        return response.getOutputStream();
+    }
+
+    /**
+     * 设置 xlsx 下载的响应头
+     *
+     * @param fileName excel 文件名称，不含扩展名
+     */
+    public static void setDownloadHeader(String fileName, HttpServletResponse response) throws Exception {
         fileName = URLEncoder.encode(fileName, "UTF-8");
-        response.setContentType("application/vnd.ms-excel;charset=utf-8");
+        response.setContentType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet;charset=utf-8");
         response.setCharacterEncoding("utf-8");
         fileName = URLEncoder.encode(fileName, "UTF-8");
-        response.setHeader("Content-Disposition", "attachment;filename=" + fileName + ".xls");
-        return response.getOutputStream();
+        response.setHeader("Content-Disposition", "attachment;filename=" + fileName + ".xlsx");
     }
 }
-
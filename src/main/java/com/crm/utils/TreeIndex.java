@@ -0,0 +1,217 @@
+package com.crm.utils;
+
+import com.crm.common.exception.ServerException;
+import com.crm.common.model.TreeNode;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * 树形结构索引，一次遍历建立 父ID -> 子节点 的索引，构建后不再修改，可以缓存复用
+ * <p>
+ * 构建时检测循环引用，处于环上的节点不会出现在子节点索引中，避免遍历时死循环。
+ *
+ * @author crm
+ */
+public class TreeIndex<T> {
+    private final Function<T, Integer> idGetter;
+    private final Function<T, Integer> parentIdGetter;
+    /**
+     * 节点ID -> 节点
+     */
+    private final Map<Integer, T> nodeMap;
+    /**
+     * 父ID -> 子节点列表，保持原列表顺序
+     */
+    private final Map<Integer, List<T>> childrenMap;
+    /**
+     * 处于环上的节点ID
+     */
+    private final Set<Integer> cycleIds;
+
+    private TreeIndex(Collection<T> nodes, Function<T, Integer> idGetter, Function<T, Integer> parentIdGetter) {
+        this.idGetter = idGetter;
+        this.parentIdGetter = parentIdGetter;
+        this.nodeMap = new HashMap<>(nodes.size() * 4 / 3 + 1);
+        for (T node : nodes) {
+            nodeMap.put(idGetter.apply(node), node);
+        }
+        this.cycleIds = findCycles();
+        Map<Integer, List<T>> children = new HashMap<>();
+        for (T node : nodes) {
+            if (cycleIds.contains(idGetter.apply(node))) {
+                continue;
+            }
+            children.computeIfAbsent(parentIdGetter.apply(node), k -> new ArrayList<>()).add(node);
+        }
+        children.replaceAll((k, v) -> Collections.unmodifiableList(v));
+        this.childrenMap = children;
+    }
+
+    public static <T extends TreeNode<T>> TreeIndex<T> of(Collection<T> nodes) {
+        return new TreeIndex<>(nodes, TreeNode::getId, TreeNode::getParentId);
+    }
+
+    public static <T> TreeIndex<T> of(Collection<T> nodes, Function<T, Integer> idGetter, Function<T, Integer> parentIdGetter) {
+        return new TreeIndex<>(nodes, idGetter, parentIdGetter);
+    }
+
+    public T get(Integer id) {
+        return nodeMap.get(id);
+    }
+
+    /**
+     * 直接子节点
+     */
+    public List<T> getChildren(Integer pid) {
+        return childrenMap.getOrDefault(pid, Collections.emptyList());
+    }
+
+    /**
+     * 子树中的所有节点，不包含自身，按层级顺序返回
+     */
+    public List<T> getDescendants(Integer id) {
+        List<T> result = new ArrayList<>();
+        Deque<Integer> queue = new ArrayDeque<>();
+        queue.add(id);
+        while (!queue.isEmpty()) {
+            for (T child : getChildren(queue.poll())) {
+                result.add(child);
+                queue.add(idGetter.apply(child));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 所有祖先节点，从根节点到直接上级排列
+     */
+    public List<T> getAncestors(Integer id) {
+        List<T> result = new ArrayList<>();
+        T node = nodeMap.get(id);
+        if (node == null || cycleIds.contains(id)) {
+            return result;
+        }
+        T parent = nodeMap.get(parentIdGetter.apply(node));
+        while (parent != null) {
+            result.add(parent);
+            parent = nodeMap.get(parentIdGetter.apply(parent));
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    /**
+     * 处于环上的节点ID
+     */
+    public Set<Integer> getCycleIds() {
+        return Collections.unmodifiableSet(cycleIds);
+    }
+
+    /**
+     * 存在循环引用时抛出异常
+     */
+    public void assertAcyclic() {
+        if (!cycleIds.isEmpty()) {
+            throw new ServerException("数据存在循环引用：" + cycleIds);
+        }
+    }
+
+    /**
+     * 将子节点挂到节点的 children 上，会修改节点本身，不适合复用的索引
+     *
+     * @param roots          根节点
+     * @param childrenGetter 获取节点的 children 列表
+     */
+    public void attach(Collection<T> roots, Function<T, List<T>> childrenGetter) {
+        Deque<T> queue = new ArrayDeque<>(roots);
+        while (!queue.isEmpty()) {
+            T node = queue.poll();
+            List<T> children = getChildren(idGetter.apply(node));
+            childrenGetter.apply(node).addAll(children);
+            queue.addAll(children);
+        }
+    }
+
+    /**
+     * 按层级限制生成新的树，不修改原节点，适合缓存复用的索引
+     *
+     * @param pid      根节点的父ID
+     * @param maxDepth 最大层级，小于等于 0 表示不限制
+     * @param mapper   根据节点和已生成的子节点创建新节点
+     */
+    public <R> List<R> render(Integer pid, int maxDepth, BiFunction<T, List<R>, R> mapper) {
+        int depthLimit = maxDepth <= 0 ? Integer.MAX_VALUE : maxDepth;
+        List<R> result = new ArrayList<>();
+        // 非递归的后序遍历，深层级的树不会栈溢出
+        Deque<Frame<T, R>> stack = new ArrayDeque<>();
+        for (T root : getChildren(pid)) {
+            stack.push(new Frame<>(root, getChildren(idGetter.apply(root)), 1));
+            while (!stack.isEmpty()) {
+                Frame<T, R> frame = stack.peek();
+                if (frame.depth < depthLimit && frame.next < frame.children.size()) {
+                    T child = frame.children.get(frame.next++);
+                    stack.push(new Frame<>(child, getChildren(idGetter.apply(child)), frame.depth + 1));
+                    continue;
+                }
+                stack.pop();
+                R rendered = mapper.apply(frame.node, frame.rendered);
+                if (stack.isEmpty()) {
+                    result.add(rendered);
+                } else {
+                    stack.peek().rendered.add(rendered);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 沿父节点向上遍历，每个节点只访问一次，遇到当前路径上的节点即为环
+     */
+    private Set<Integer> findCycles() {
+        Set<Integer> cycles = new LinkedHashSet<>();
+        // 0：未访问，1：在当前路径上，2：已确认
+        Map<Integer, Integer> state = new HashMap<>(nodeMap.size() * 4 / 3 + 1);
+        List<Integer> path = new ArrayList<>();
+        for (Integer start : nodeMap.keySet()) {
+            path.clear();
+            Integer id = start;
+            while (id != null && nodeMap.containsKey(id) && state.getOrDefault(id, 0) == 0) {
+                state.put(id, 1);
+                path.add(id);
+                id = parentIdGetter.apply(nodeMap.get(id));
+            }
+            if (id != null && state.getOrDefault(id, 0) == 1) {
+                // 环从 id 在路径中的位置开始
+                cycles.addAll(path.subList(path.indexOf(id), path.size()));
+            }
+            path.forEach(p -> state.put(p, 2));
+        }
+        return cycles;
+    }
+
+    private static class Frame<T, R> {
+        private final T node;
+        private final List<T> children;
+        private final int depth;
+        private final List<R> rendered = new ArrayList<>();
+        private int next;
+
+        Frame(T node, List<T> children, int depth) {
+            this.node = node;
+            this.children = children;
+            this.depth = depth;
+        }
+    }
+}
@@ -18,33 +18,19 @@ public class TreeUtils {
 
     /**
      * 根据pid，构建树节点
+     * 先建立 父ID -> 子节点 索引，时间复杂度 O(n)，处于环上的节点会被忽略
      */
     public static <T extends TreeNode<T>> List<T> build(List<T> treeNodes, Integer pid) {
         // pid不能为空
         AssertUtils.isNull(pid, "parentId");
 
-        List<T> treeList = new ArrayList<>();
-        for (T treeNode : treeNodes) {
-            if (pid.equals(treeNode.getParentId())) {
-                treeList.add(findChildren(treeNodes, treeNode));
-            }
-        }
+        TreeIndex<T> index = TreeIndex.of(treeNodes);
+        List<T> treeList = new ArrayList<>(index.getChildren(pid));
+        index.attach(treeList, TreeNode::getChildren);
 
         return treeList;
     }
 
-    /**
-     * 查找子节点
-     */
-    private static <T extends TreeNode<T>> T findChildren(List<T> treeNodes, T rootNode) {
-        for (T treeNode : treeNodes) {
-            if (rootNode.getId().equals(treeNode.getParentId())) {
-                rootNode.getChildren().add(findChildren(treeNodes, treeNode));
-            }
-        }
-        return rootNode;
-    }
-
     /**
      * 构建树节点
      */
@@ -0,0 +1,27 @@
+package com.crm.vo;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 合同批量审核结果
+ *
+ * @author crm
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "合同批量审核结果")
+public class ContractApprovalResultVO {
+
+    @Schema(description = "合同ID")
+    private Integer id;
+
+    @Schema(description = "是否成功")
+    private Boolean success;
+
+    @Schema(description = "失败原因")
+    private String message;
+}
@@ -0,0 +1,50 @@
+package com.crm.vo;
+
+import com.crm.utils.DateUtils;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 导出任务进度
+ *
+ * @author crm
+ */
+@Data
+@Schema(description = "导出任务进度")
+public class ExportJobVO {
+
+    @Schema(description = "任务ID")
+    private String id;
+
+    @Schema(description = "导出文件名")
+    private String name;
+
+    @Schema(description = "状态 0-排队中，1-导出中，2-已完成，3-失败")
+    private Integer status;
+
+    @Schema(description = "状态名称")
+    private String statusName;
+
+    @Schema(description = "已写入行数")
+    private Long rows;
+
+    @Schema(description = "预计总行数")
+    private Long total;
+
+    @Schema(description = "进度百分比")
+    private Integer percent;
+
+    @Schema(description = "失败原因")
+    private String message;
+
+    @Schema(description = "提交时间")
+    @JsonFormat(pattern = DateUtils.DATE_TIME_PATTERN)
+    private LocalDateTime createTime;
+
+    @Schema(description = "完成时间")
+    @JsonFormat(pattern = DateUtils.DATE_TIME_PATTERN)
+    private LocalDateTime finishTime;
+}
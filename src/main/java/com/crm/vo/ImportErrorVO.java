@@ -0,0 +1,26 @@
+package com.crm.vo;
+
+import com.alibaba.excel.annotation.ExcelProperty;
+import com.alibaba.excel.annotation.write.style.ColumnWidth;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 导入错误报告
+ *
+ * @author crm
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportErrorVO {
+
+    @ExcelProperty("行号")
+    @ColumnWidth(10)
+    private Integer rowNo;
+
+    @ExcelProperty("错误原因")
+    @ColumnWidth(80)
+    private String message;
+}
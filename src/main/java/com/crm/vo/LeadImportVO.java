@@ -0,0 +1,66 @@
+package com.crm.vo;
+
+import com.alibaba.excel.annotation.ExcelIgnoreUnannotated;
+import com.alibaba.excel.annotation.ExcelProperty;
+import com.alibaba.excel.annotation.write.style.ColumnWidth;
+import com.crm.converter.CustomerLevelConverter;
+import com.crm.converter.CustomerSourceConverter;
+import com.crm.converter.FollowUpStatusConverter;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 线索导入模板
+ *
+ * @author crm
+ */
+@Data
+@ExcelIgnoreUnannotated
+@ColumnWidth(24)
+public class LeadImportVO {
+
+    @Schema(description = "线索名称")
+    @NotBlank(message = "线索名称不能为空")
+    @ExcelProperty("线索名称")
+    private String name;
+
+    @Schema(description = "手机号")
+    @NotBlank(message = "手机号不能为空")
+    @ExcelProperty("手机号")
+    private String phone;
+
+    @Schema(description = "邮箱")
+    @ExcelProperty("邮箱")
+    private String email;
+
+    @Schema(description = "客户级别")
+    @NotNull(message = "客户级别不能为空")
+    @ExcelProperty(value = "客户级别", converter = CustomerLevelConverter.class)
+    private Integer level;
+
+    @Schema(description = "客户来源")
+    @NotNull(message = "客户来源不能为空")
+    @ExcelProperty(value = "客户来源", converter = CustomerSourceConverter.class)
+    private Integer source;
+
+    @Schema(description = "客户地址")
+    @ExcelProperty("客户地址")
+    private String address;
+
+    @Schema(description = "跟进状态")
+    @NotNull(message = "跟进状态不能为空")
+    @ExcelProperty(value = "跟进状态", converter = FollowUpStatusConverter.class)
+    private Integer followStatus;
+
+    @Schema(description = "下次跟进时间")
+    @ExcelProperty("下次跟进时间")
+    private LocalDateTime nextFollowStatus;
+
+    @Schema(description = "备注")
+    @ExcelProperty("备注")
+    private String remark;
+}
@@ -0,0 +1,30 @@
+package com.crm.vo;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 回款批量审核结果
+ *
+ * @author crm
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "回款批量审核结果")
+public class PaymentReviewResultVO {
+
+    @Schema(description = "回款ID")
+    private Integer id;
+
+    @Schema(description = "是否成功")
+    private Boolean success;
+
+    @Schema(description = "失败原因")
+    private String message;
+
+    @Schema(description = "当前版本号")
+    private Integer version;
+}
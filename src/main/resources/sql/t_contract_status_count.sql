@@ -0,0 +1,23 @@
+-- 合同状态计数，按负责人和状态保存未删除合同的数量，随合同状态变化在同一事务中增减
+CREATE TABLE IF NOT EXISTS `t_contract_status_count`
+(
+    `owner_id`    int      NOT NULL COMMENT '负责人ID',
+    `status`      int      NOT NULL COMMENT '合同状态',
+    `count`       int      NOT NULL DEFAULT 0 COMMENT '合同数量',
+    `update_time` datetime          DEFAULT NULL COMMENT '更新时间',
+    PRIMARY KEY (`owner_id`, `status`)
+) ENGINE = InnoDB
+  DEFAULT CHARSET = utf8mb4 COMMENT ='合同状态计数';
+
+-- 校验任务按负责人重新统计，需要该索引
+ALTER TABLE `t_contract` ADD INDEX `idx_owner_status` (`owner_id`, `status`);
+
+-- 根据现有合同初始化
+INSERT INTO `t_contract_status_count` (`owner_id`, `status`, `count`, `update_time`)
+SELECT owner_id, status, COUNT(*), NOW()
+FROM t_contract
+WHERE delete_flag = 0
+  AND owner_id IS NOT NULL
+  AND status IS NOT NULL
+GROUP BY owner_id, status
+ON DUPLICATE KEY UPDATE `count` = VALUES(`count`);
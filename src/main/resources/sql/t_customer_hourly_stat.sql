@@ -0,0 +1,26 @@
+-- 客户新增小时汇总，按创建时间所在小时、负责人、来源、级别保存未删除客户的数量，随客户变更在同一事务中增减
+-- 负责人为空记为 0，来源、级别为空记为 -1
+CREATE TABLE IF NOT EXISTS `t_customer_hourly_stat`
+(
+    `stat_hour`    datetime NOT NULL COMMENT '创建时间所在小时',
+    `owner_id`     int      NOT NULL DEFAULT 0 COMMENT '负责人ID',
+    `source`       int      NOT NULL DEFAULT -1 COMMENT '客户来源',
+    `level`        int      NOT NULL DEFAULT -1 COMMENT '客户级别',
+    `create_count` int      NOT NULL DEFAULT 0 COMMENT '客户数量',
+    `update_time`  datetime          DEFAULT NULL COMMENT '更新时间',
+    PRIMARY KEY (`stat_hour`, `owner_id`, `source`, `level`)
+) ENGINE = InnoDB
+  DEFAULT CHARSET = utf8mb4 COMMENT ='客户新增小时汇总';
+
+-- 重建任务按创建时间范围重新统计，需要该索引
+ALTER TABLE `t_customer` ADD INDEX `idx_create_time` (`create_time`);
+
+-- 根据现有客户初始化
+INSERT INTO `t_customer_hourly_stat` (`stat_hour`, `owner_id`, `source`, `level`, `create_count`, `update_time`)
+SELECT DATE_FORMAT(create_time, '%Y-%m-%d %H:00:00'), IFNULL(owner_id, 0), IFNULL(source, -1), IFNULL(level, -1),
+       COUNT(*), NOW()
+FROM t_customer
+WHERE delete_flag = 0
+  AND create_time IS NOT NULL
+GROUP BY 1, 2, 3, 4
+ON DUPLICATE KEY UPDATE `create_count` = VALUES(`create_count`);
@@ -0,0 +1,8 @@
+-- 导入时按手机号、线索名称批量查重
+-- 客户手机号在未删除的客户中唯一，并发导入时由唯一索引兜底；逻辑删除后 active_phone 为 NULL，允许重新录入
+-- 执行前先处理重复数据：SELECT phone, COUNT(*) FROM t_customer WHERE delete_flag = 0 AND phone IS NOT NULL GROUP BY phone HAVING COUNT(*) > 1;
+ALTER TABLE `t_customer`
+    ADD COLUMN `active_phone` VARCHAR(255) GENERATED ALWAYS AS (IF(`delete_flag` = 0, `phone`, NULL)) VIRTUAL COMMENT '未删除客户的手机号',
+    ADD UNIQUE INDEX `uk_active_phone` (`active_phone`);
+ALTER TABLE `t_lead` ADD INDEX `idx_name` (`name`);
+ALTER TABLE `t_lead` ADD INDEX `idx_phone` (`phone`);
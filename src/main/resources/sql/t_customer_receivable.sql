@@ -0,0 +1,31 @@
+-- 客户回款汇总，随回款审核和金额修改增量维护
+CREATE TABLE IF NOT EXISTS `t_customer_receivable`
+(
+    `customer_id`     int            NOT NULL COMMENT '客户ID',
+    `received_amount` decimal(16, 2) NOT NULL DEFAULT 0 COMMENT '已审核通过的回款金额（元）',
+    `update_time`     datetime                DEFAULT NULL COMMENT '更新时间',
+    PRIMARY KEY (`customer_id`)
+) ENGINE = InnoDB
+  DEFAULT CHARSET = utf8mb4 COMMENT ='客户回款汇总';
+
+-- 对账按合同、客户汇总已审核通过的回款
+ALTER TABLE `t_payment` ADD INDEX `idx_customer_status` (`customer_id`, `status`);
+
+-- 根据现有回款初始化合同已收款
+UPDATE t_contract c
+    LEFT JOIN (SELECT contract_id, SUM(number) AS amount
+               FROM t_payment
+               WHERE status = 1
+                 AND delete_flag = 0
+               GROUP BY contract_id) p ON p.contract_id = c.id
+SET c.received_amount = IFNULL(p.amount, 0) / 100;
+
+-- 根据现有回款初始化客户已收款
+INSERT INTO t_customer_receivable (customer_id, received_amount, update_time)
+SELECT customer_id, SUM(number) / 100, NOW()
+FROM t_payment
+WHERE status = 1
+  AND delete_flag = 0
+  AND customer_id IS NOT NULL
+GROUP BY customer_id
+ON DUPLICATE KEY UPDATE received_amount = VALUES(received_amount);
@@ -0,0 +1,22 @@
+-- 部门闭包表，保存所有 祖先-后代 关系（包含自身，depth = 0）
+CREATE TABLE IF NOT EXISTS `t_department_closure`
+(
+    `ancestor_id`   int NOT NULL COMMENT '祖先部门ID',
+    `descendant_id` int NOT NULL COMMENT '后代部门ID',
+    `depth`         int NOT NULL COMMENT '层级距离，0 表示自身',
+    PRIMARY KEY (`ancestor_id`, `descendant_id`),
+    KEY `idx_descendant` (`descendant_id`, `depth`)
+) ENGINE = InnoDB
+  DEFAULT CHARSET = utf8mb4 COMMENT ='部门闭包表';
+
+-- 根据现有部门数据初始化闭包表
+INSERT INTO `t_department_closure` (`ancestor_id`, `descendant_id`, `depth`)
+WITH RECURSIVE tree AS (SELECT id AS ancestor_id, id AS descendant_id, 0 AS depth
+                        FROM t_department
+                        WHERE delete_flag = 0
+                        UNION ALL
+                        SELECT t.ancestor_id, d.id, t.depth + 1
+                        FROM tree t
+                                 JOIN t_department d ON d.parent_id = t.descendant_id AND d.delete_flag = 0)
+SELECT ancestor_id, descendant_id, depth
+FROM tree;
@@ -0,0 +1,17 @@
+-- 增量任务水位，记录已处理到的 (时间, ID)，任务每处理完一批数据就在同一事务中推进
+CREATE TABLE IF NOT EXISTS `t_job_watermark`
+(
+    `job_name`    varchar(64) NOT NULL COMMENT '任务名',
+    `last_time`   datetime    NOT NULL COMMENT '已处理数据的最大时间',
+    `last_id`     bigint      NOT NULL DEFAULT 0 COMMENT '同一时间下已处理数据的最大ID',
+    `update_time` datetime             DEFAULT NULL COMMENT '更新时间',
+    PRIMARY KEY (`job_name`)
+) ENGINE = InnoDB
+  DEFAULT CHARSET = utf8mb4 COMMENT ='增量任务水位';
+
+-- 回款生成按 (update_time, id) 顺序扫描合同
+ALTER TABLE `t_contract` ADD INDEX `idx_update_time_id` (`update_time`, `id`);
+-- 没有更新时间的历史合同补齐，否则不会被扫描到
+UPDATE `t_contract` SET `update_time` = IFNULL(`create_time`, NOW()) WHERE `update_time` IS NULL;
+-- 回款生成按合同去重
+ALTER TABLE `t_payment` ADD INDEX `idx_contract_id` (`contract_id`);
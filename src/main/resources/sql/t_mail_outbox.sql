@@ -0,0 +1,22 @@
+-- 邮件发件箱，业务事务中写入，由 MailDeliveryWorker 异步投递
+CREATE TABLE IF NOT EXISTS `t_mail_outbox`
+(
+    `id`                bigint       NOT NULL AUTO_INCREMENT COMMENT '主键',
+    `biz_key`           varchar(128) NOT NULL COMMENT '业务唯一标识，重复写入会被忽略，同时用于生成 Message-ID',
+    `to_address`        varchar(255) NOT NULL COMMENT '收件人',
+    `subject`           varchar(255) NOT NULL COMMENT '主题',
+    `content`           text         NOT NULL COMMENT '正文',
+    `status`            tinyint      NOT NULL DEFAULT 0 COMMENT '0-待发送，1-发送中，2-已发送，3-死信',
+    `attempts`          int          NOT NULL DEFAULT 0 COMMENT '已尝试次数',
+    `next_attempt_time` datetime     NOT NULL COMMENT '下次尝试时间，发送中时为租约到期时间',
+    `claim_token`       varchar(64)           DEFAULT NULL COMMENT '领取批次标识',
+    `last_error`        varchar(512)          DEFAULT NULL COMMENT '最后一次失败原因',
+    `sent_time`         datetime              DEFAULT NULL COMMENT '发送成功时间',
+    `create_time`       datetime              DEFAULT NULL COMMENT '创建时间',
+    `update_time`       datetime              DEFAULT NULL COMMENT '更新时间',
+    PRIMARY KEY (`id`),
+    UNIQUE KEY `uk_biz_key` (`biz_key`),
+    KEY `idx_status_next_attempt` (`status`, `next_attempt_time`),
+    KEY `idx_claim_token` (`claim_token`)
+) ENGINE = InnoDB
+  DEFAULT CHARSET = utf8mb4 COMMENT ='邮件发件箱';
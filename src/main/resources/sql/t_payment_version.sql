@@ -0,0 +1,5 @@
+-- 回款版本号，每次修改加 1，批量审核以版本号判断是否被并发修改
+ALTER TABLE `t_payment` ADD COLUMN `version` int NOT NULL DEFAULT 0 COMMENT '版本号';
+
+-- 待审核队列按 (payment_time, id) 翻页
+ALTER TABLE `t_payment` ADD INDEX `idx_pending_queue` (`status`, `delete_flag`, `payment_time`, `id`);
@@ -0,0 +1,6 @@
+-- 游标分页按 (create_time, id) 续读，InnoDB 二级索引自带主键，无需再单独加 id
+-- t_customer 的 idx_create_time 已在 t_customer_hourly_stat.sql 中添加
+ALTER TABLE `t_lead` ADD INDEX `idx_create_time` (`create_time`);
+ALTER TABLE `t_payment` ADD INDEX `idx_delete_create_time` (`delete_flag`, `create_time`);
+ALTER TABLE `t_contract` ADD INDEX `idx_owner_create_time` (`owner_id`, `create_time`);
+ALTER TABLE `sys_oper_log` ADD INDEX `idx_oper_time` (`oper_time`);
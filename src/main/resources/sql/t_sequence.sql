@@ -0,0 +1,15 @@
+-- 号段序列，每个序列一行，value 为已租出的最大值
+CREATE TABLE IF NOT EXISTS `t_sequence`
+(
+    `name`  varchar(64) NOT NULL COMMENT '序列名',
+    `value` bigint      NOT NULL DEFAULT 0 COMMENT '已租出的最大值',
+    PRIMARY KEY (`name`)
+) ENGINE = InnoDB
+  DEFAULT CHARSET = utf8mb4 COMMENT ='号段序列';
+
+-- 合同序号从已发出编号的最大序号之后开始，编号格式为 HT + yyyyMMdd + 序号，序号位于第 11 位之后
+-- 历史编号可能因删除而不连续，不能用合同数量作为起点
+INSERT IGNORE INTO `t_sequence` (`name`, `value`)
+SELECT 'contract', COALESCE(MAX(CAST(SUBSTRING(`number`, 11) AS UNSIGNED)), 0)
+FROM t_contract
+WHERE `number` REGEXP '^HT[0-9]{9,}$';
@@ -0,0 +1,91 @@
+package com.crm.common.config;
+
+import com.crm.common.cache.BinaryRedisSerializer;
+import com.crm.security.user.ManagerDetail;
+import com.crm.vo.SysMenuVO;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Redis 序列化对比，输出 JSON 与二进制格式的数据大小和编解码耗时
+ * 位于测试源码中，不随应用打包，在 IDE 中直接运行 main 方法
+ *
+ * @author crm
+ */
+public class RedisSerializerBenchmark {
+    private static final int WARMUP = 20_000;
+    private static final int ROUNDS = 200_000;
+
+    public static void main(String[] args) {
+        RedisSerializer<Object> json = new RedisConfig.FastJsonRedisSerializer<>(Object.class);
+        RedisSerializer<Object> binary = new BinaryRedisSerializer(true, 1024);
+
+        ManagerDetail manager = manager();
+        List<SysMenuVO> menus = menus();
+        run("ManagerDetail", manager, json, binary);
+        run("List<SysMenuVO>", menus, json, binary);
+        run("String", "sys:access:0123456789abcdef0123456789abcdef", json, binary);
+
+        // 旧的 JSON 数据仍可读取
+        Object legacy = binary.deserialize(json.serialize(manager));
+        System.out.println("读取旧 JSON 数据：" + (legacy != null));
+    }
+
+    private static void run(String name, Object value, RedisSerializer<Object> json, RedisSerializer<Object> binary) {
+        System.out.printf("%-16s JSON %6d 字节，二进制 %6d 字节%n", name,
+                json.serialize(value).length, binary.serialize(value).length);
+        report(name, "JSON", value, json);
+        report(name, "二进制", value, binary);
+    }
+
+    private static void report(String name, String format, Object value, RedisSerializer<Object> serializer) {
+        for (int i = 0; i < WARMUP; i++) {
+            serializer.deserialize(serializer.serialize(value));
+        }
+        byte[] bytes = null;
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            bytes = serializer.serialize(value);
+        }
+        long encode = System.nanoTime() - start;
+        start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            serializer.deserialize(bytes);
+        }
+        long decode = System.nanoTime() - start;
+        System.out.printf("%-16s %-6s 编码 %6d ns/次，解码 %6d ns/次%n", name, format, encode / ROUNDS, decode / ROUNDS);
+    }
+
+    private static ManagerDetail manager() {
+        ManagerDetail manager = new ManagerDetail();
+        manager.setId(1);
+        manager.setAccount("admin");
+        manager.setRealName("管理员");
+        manager.setStatus(1);
+        manager.setRoleIdList(List.of(1, 2));
+        return manager;
+    }
+
+    private static List<SysMenuVO> menus() {
+        List<SysMenuVO> list = new ArrayList<>();
+        for (int i = 1; i <= 10; i++) {
+            SysMenuVO parent = new SysMenuVO();
+            parent.setId(i);
+            parent.setParentId(0);
+            parent.setName("菜单" + i);
+            for (int j = 1; j <= 6; j++) {
+                SysMenuVO child = new SysMenuVO();
+                child.setId(i * 100 + j);
+                child.setParentId(i);
+                child.setName("子菜单" + i + "-" + j);
+                child.setUrl("/module" + i + "/page" + j);
+                child.setAuth("module" + i + ":page" + j);
+                parent.getChildren().add(child);
+            }
+            list.add(parent);
+        }
+        return list;
+    }
+}
@@ -0,0 +1,207 @@
+package com.crm.common.mail;
+
+import com.crm.entity.MailOutbox;
+import com.crm.enums.MailOutboxStatusEnum;
+import com.crm.mapper.MailOutboxMapper;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.mockito.ArgumentCaptor;
+import org.springframework.boot.autoconfigure.mail.MailProperties;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.Semaphore;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 发件箱投递，以 GreenMail 作为 SMTP 服务，发件箱表用 Mock 代替
+ *
+ * @author crm
+ */
+class MailDeliveryWorkerTest {
+    private static final long BACKOFF_BASE = 30;
+    private static final int MAX_ATTEMPTS = 3;
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    private MailOutboxMapper mailOutboxMapper;
+
+    @BeforeEach
+    void setUp() {
+        mailOutboxMapper = mock(MailOutboxMapper.class);
+        when(mailOutboxMapper.markSent(anyLong(), anyString())).thenReturn(1);
+        when(mailOutboxMapper.markFailed(anyLong(), anyString(), anyInt(), any(), anyString())).thenReturn(1);
+    }
+
+    @Test
+    void sendsMessageAndMarksSent() throws Exception {
+        MailDeliveryWorker worker = worker(ServerSetupTest.SMTP.getPort());
+        MailOutbox outbox = outbox("order:1", "customer@localhost", 1);
+
+        deliver(worker, outbox);
+
+        MimeMessage[] received = greenMail.getReceivedMessages();
+        assertEquals(1, received.length);
+        assertEquals("合同审批通知", received[0].getSubject());
+        assertTrue(received[0].getMessageID().endsWith("@crm-outbox>"));
+        verify(mailOutboxMapper).markSent(outbox.getId(), outbox.getClaimToken());
+        assertEquals(1L, worker.stats().get("sentCount"));
+    }
+
+    @Test
+    void redeliveryKeepsMessageId() throws Exception {
+        MailDeliveryWorker worker = worker(ServerSetupTest.SMTP.getPort());
+
+        deliver(worker, outbox("order:2", "customer@localhost", 1));
+        deliver(worker, outbox("order:2", "customer@localhost", 2));
+
+        MimeMessage[] received = greenMail.getReceivedMessages();
+        assertEquals(2, received.length);
+        assertEquals(received[0].getMessageID(), received[1].getMessageID());
+    }
+
+    @Test
+    void retriesWithExponentialBackoffWhenServerUnavailable() throws Exception {
+        MailDeliveryWorker worker = worker(closedPort());
+
+        LocalDateTime before = LocalDateTime.now();
+        deliver(worker, outbox("order:3", "customer@localhost", 1));
+        assertNextAttemptBetween(before, BACKOFF_BASE / 2, BACKOFF_BASE);
+
+        before = LocalDateTime.now();
+        deliver(worker, outbox("order:3", "customer@localhost", 2));
+        assertNextAttemptBetween(before, BACKOFF_BASE, BACKOFF_BASE * 2);
+
+        assertEquals(2L, worker.stats().get("retryCount"));
+        assertEquals(0L, worker.stats().get("deadCount"));
+    }
+
+    @Test
+    void deadLettersAfterMaxAttempts() throws Exception {
+        MailDeliveryWorker worker = worker(closedPort());
+
+        deliver(worker, outbox("order:4", "customer@localhost", MAX_ATTEMPTS));
+
+        verify(mailOutboxMapper).markFailed(eq(4L), anyString(), eq(MailOutboxStatusEnum.DEAD.getValue()), any(), anyString());
+        assertEquals(1L, worker.stats().get("deadCount"));
+    }
+
+    @Test
+    void deadLettersInvalidRecipientWithoutRetry() throws Exception {
+        MailDeliveryWorker worker = worker(ServerSetupTest.SMTP.getPort());
+
+        deliver(worker, outbox("order:5", "customer@@localhost", 1));
+
+        assertEquals(0, greenMail.getReceivedMessages().length);
+        verify(mailOutboxMapper).markFailed(eq(5L), anyString(), eq(MailOutboxStatusEnum.DEAD.getValue()), any(), anyString());
+    }
+
+    @Test
+    void lostClaimOnFailureIsNotCountedAsRetry() throws Exception {
+        when(mailOutboxMapper.markFailed(anyLong(), anyString(), anyInt(), any(), anyString())).thenReturn(0);
+        MailDeliveryWorker worker = worker(closedPort());
+
+        deliver(worker, outbox("order:6", "customer@localhost", 1));
+
+        assertEquals(0L, worker.stats().get("retryCount"));
+        assertEquals(1L, worker.stats().get("lostClaimCount"));
+        verify(mailOutboxMapper, never()).markSent(anyLong(), anyString());
+    }
+
+    @Test
+    void stopWakesDispatcherBlockedOnInFlight() throws Exception {
+        MailDeliveryWorker worker = worker(ServerSetupTest.SMTP.getPort());
+        ReflectionTestUtils.setField(worker, "enabled", true);
+        ReflectionTestUtils.setField(worker, "batchSize", 1);
+        ReflectionTestUtils.setField(worker, "pollInterval", 60_000L);
+        worker.start();
+        // 占满空位，调度线程阻塞在 acquire
+        Semaphore inFlight = (Semaphore) ReflectionTestUtils.getField(worker, "inFlight");
+        inFlight.acquire();
+        Thread dispatcher = (Thread) ReflectionTestUtils.getField(worker, "dispatcherThread");
+
+        worker.stop();
+
+        dispatcher.join(Duration.ofSeconds(5));
+        assertFalse(dispatcher.isAlive());
+    }
+
+    private MailDeliveryWorker worker(int port) {
+        MailProperties mailProperties = new MailProperties();
+        mailProperties.setHost(ServerSetupTest.SMTP.getBindAddress());
+        mailProperties.setPort(port);
+        mailProperties.setUsername("crm@localhost");
+        mailProperties.setProtocol("smtp");
+        mailProperties.getProperties().put("mail.smtp.connectiontimeout", "2000");
+
+        SmtpConnectionPool pool = new SmtpConnectionPool();
+        ReflectionTestUtils.setField(pool, "mailProperties", mailProperties);
+        ReflectionTestUtils.setField(pool, "maxSize", 2);
+        ReflectionTestUtils.setField(pool, "idleTimeout", 60_000L);
+        pool.init();
+
+        MailDeliveryWorker worker = new MailDeliveryWorker();
+        ReflectionTestUtils.setField(worker, "mailOutboxMapper", mailOutboxMapper);
+        ReflectionTestUtils.setField(worker, "smtpConnectionPool", pool);
+        ReflectionTestUtils.setField(worker, "maxAttempts", MAX_ATTEMPTS);
+        ReflectionTestUtils.setField(worker, "backoffBase", BACKOFF_BASE);
+        ReflectionTestUtils.setField(worker, "backoffMax", 3600L);
+        return worker;
+    }
+
+    private static void deliver(MailDeliveryWorker worker, MailOutbox outbox) {
+        ReflectionTestUtils.invokeMethod(worker, "deliver", outbox);
+    }
+
+    private void assertNextAttemptBetween(LocalDateTime before, long minSeconds, long maxSeconds) {
+        ArgumentCaptor<LocalDateTime> nextAttemptTime = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(mailOutboxMapper, atLeastOnce()).markFailed(anyLong(), anyString(),
+                eq(MailOutboxStatusEnum.PENDING.getValue()), nextAttemptTime.capture(), anyString());
+        LocalDateTime actual = nextAttemptTime.getValue();
+        assertFalse(actual.isBefore(before.plusSeconds(minSeconds)), "重试间隔过短：" + actual);
+        assertFalse(actual.isAfter(LocalDateTime.now().plusSeconds(maxSeconds)), "重试间隔过长：" + actual);
+    }
+
+    private static MailOutbox outbox(String bizKey, String toAddress, int attempts) {
+        MailOutbox outbox = new MailOutbox();
+        outbox.setId(Long.valueOf(bizKey.substring(bizKey.indexOf(':') + 1)));
+        outbox.setBizKey(bizKey);
+        outbox.setToAddress(toAddress);
+        outbox.setSubject("合同审批通知");
+        outbox.setContent("您的合同已审批通过");
+        outbox.setStatus(MailOutboxStatusEnum.SENDING.getValue());
+        outbox.setAttempts(attempts);
+        outbox.setClaimToken("claim-" + bizKey);
+        return outbox;
+    }
+
+    /**
+     * 已关闭的端口，连接时立即被拒绝
+     */
+    private static int closedPort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.crm.common.sequence;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 号段序列压测，号段来源模拟 2ms 的远程往返，输出不同虚拟线程数下的分配速度，并检查号码是否乱序
+ * 位于测试源码中，不随应用打包，需在 JDK 21 上运行 main 方法
+ *
+ * @author crm
+ */
+public class SequenceBenchmark {
+    private static final int SEGMENT_SIZE = 1000;
+    private static final long DURATION_MILLIS = 2000;
+    private static final long SOURCE_LATENCY_NANOS = 2_000_000;
+
+    public static void main(String[] args) throws InterruptedException {
+        for (int threads : new int[]{1, 4, 16, 64}) {
+            run(threads, 1);
+        }
+        run(16, 100);
+    }
+
+    private static void run(int threads, int batch) throws InterruptedException {
+        AtomicLong counter = new AtomicLong();
+        LongAdder sourceCalls = new LongAdder();
+        SequenceSource source = (name, size) -> {
+            sourceCalls.increment();
+            LockSupport.parkNanos(SOURCE_LATENCY_NANOS);
+            return counter.addAndGet(size);
+        };
+        SequenceGenerator generator = new SequenceGenerator(source, SEGMENT_SIZE);
+        // 预热
+        for (int i = 0; i < 100_000; i++) {
+            generator.next("warmup");
+        }
+
+        LongAdder allocated = new LongAdder();
+        LongAdder disorder = new LongAdder();
+        CountDownLatch done = new CountDownLatch(threads);
+        long deadline = System.currentTimeMillis() + DURATION_MILLIS;
+        for (int t = 0; t < threads; t++) {
+            Thread.ofVirtual().start(() -> {
+                long last = 0;
+                while (System.currentTimeMillis() < deadline) {
+                    for (int i = 0; i < 1000; i++) {
+                        long value = batch == 1 ? generator.next("bench") : generator.next("bench", batch)[batch - 1];
+                        // 单线程内取到的号码应严格递增
+                        if (value <= last) {
+                            disorder.increment();
+                        }
+                        last = value;
+                    }
+                    allocated.add(1000L * batch);
+                }
+                done.countDown();
+            });
+        }
+        done.await();
+        System.out.printf("虚拟线程 %3d 批量 %4d：%,12d 个/秒，租用号段 %6d 次，乱序 %d%n", threads, batch,
+                allocated.sum() * 1000 / DURATION_MILLIS, sourceCalls.sum(), disorder.sum());
+    }
+}
@@ -0,0 +1,86 @@
+package com.crm.utils;
+
+import com.crm.vo.SysMenuVO;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 树构建性能对比，原 O(n²) 的递归查找与索引构建
+ * 位于测试源码中，不随应用打包，在 IDE 中直接运行 main 方法
+ *
+ * @author crm
+ */
+public class TreeBenchmark {
+    /**
+     * 超过该节点数不再运行原算法，耗时过长
+     */
+    private static final int LEGACY_LIMIT = 20_000;
+
+    public static void main(String[] args) {
+        for (int size : new int[]{10_000, 20_000, 50_000, 100_000}) {
+            // 预热
+            TreeUtils.build(nodes(size), 0);
+
+            long start = System.nanoTime();
+            List<SysMenuVO> tree = TreeUtils.build(nodes(size), 0);
+            long indexed = System.nanoTime() - start;
+
+            TreeIndex<SysMenuVO> index = TreeIndex.of(nodes(size));
+            start = System.nanoTime();
+            List<SysMenuVO> rendered = index.render(0, 3, (node, children) -> {
+                SysMenuVO copy = new SysMenuVO();
+                copy.setId(node.getId());
+                copy.setParentId(node.getParentId());
+                copy.setChildren(children);
+                return copy;
+            });
+            long render = System.nanoTime() - start;
+
+            String legacy = "跳过";
+            if (size <= LEGACY_LIMIT) {
+                List<SysMenuVO> nodes = nodes(size);
+                start = System.nanoTime();
+                legacyBuild(nodes, 0);
+                legacy = (System.nanoTime() - start) / 1_000_000 + " ms";
+            }
+            System.out.printf("节点数 %6d：索引构建 %4d ms（根节点 %d），三级渲染 %4d ms（根节点 %d），原算法 %s%n",
+                    size, indexed / 1_000_000, tree.size(), render / 1_000_000, rendered.size(), legacy);
+        }
+    }
+
+    /**
+     * 随机生成一棵树，每个节点的父节点在其之前生成，约 1% 为根节点
+     */
+    private static List<SysMenuVO> nodes(int size) {
+        Random random = new Random(size);
+        List<SysMenuVO> list = new ArrayList<>(size);
+        for (int i = 1; i <= size; i++) {
+            SysMenuVO node = new SysMenuVO();
+            node.setId(i);
+            node.setParentId(i == 1 || random.nextInt(100) == 0 ? 0 : 1 + random.nextInt(i - 1));
+            list.add(node);
+        }
+        return list;
+    }
+
+    private static List<SysMenuVO> legacyBuild(List<SysMenuVO> treeNodes, Integer pid) {
+        List<SysMenuVO> treeList = new ArrayList<>();
+        for (SysMenuVO treeNode : treeNodes) {
+            if (pid.equals(treeNode.getParentId())) {
+                treeList.add(legacyFindChildren(treeNodes, treeNode));
+            }
+        }
+        return treeList;
+    }
+
+    private static SysMenuVO legacyFindChildren(List<SysMenuVO> treeNodes, SysMenuVO rootNode) {
+        for (SysMenuVO treeNode : treeNodes) {
+            if (rootNode.getId().equals(treeNode.getParentId())) {
+                rootNode.getChildren().add(legacyFindChildren(treeNodes, treeNode));
+            }
+        }
+        return rootNode;
+    }
+}